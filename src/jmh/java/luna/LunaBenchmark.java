@@ -0,0 +1,80 @@
+package luna;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import luna.exception.LunaException;
+import luna.storage.Durability;
+import luna.storage.Storage;
+import luna.storage.TaskFileGenerator;
+
+/**
+ * Measures commands end to end, from parsing the input to the formatted reply, over a generated data
+ * file. Storage writes in the background as in interactive use, and each changing benchmark leaves the
+ * list as it found it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LunaBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    private int taskCount;
+
+    private Path directory;
+    private Luna luna;
+
+    @Setup
+    public void setUp() throws IOException, LunaException {
+        directory = Files.createTempDirectory("luna-bench");
+        Path file = directory.resolve("luna.txt");
+        TaskFileGenerator.write(file, taskCount, 42);
+        Storage storage = new Storage(file.toString());
+        storage.setDurability(Durability.ASYNC);
+        luna = new Luna(storage);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        luna.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public String list() {
+        return luna.getResponse("list");
+    }
+
+    @Benchmark
+    public String find() {
+        return luna.getResponse("find report");
+    }
+
+    @Benchmark
+    public String markThenUnmark() {
+        luna.getResponse("mark 1");
+        return luna.getResponse("unmark 1");
+    }
+
+    @Benchmark
+    public String addThenUndo() {
+        luna.getResponse("todo read book");
+        return luna.getResponse("undo");
+    }
+}
@@ -0,0 +1,31 @@
+package luna.parser;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import luna.exception.LunaException;
+
+/**
+ * Measures parsing each kind of command. Parsing never looks at the task list, so its size is not a
+ * parameter here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParserBenchmark {
+    @Param({"list", "todo read book", "deadline return book /by 2019-12-02 1800",
+        "event project meeting /from Mon 2pm /to 4pm", "mark 3", "delete 1-5,8,#42", "find book /and report"})
+    private String command;
+
+    @Benchmark
+    public ParsedCommand parse() throws LunaException {
+        return Parser.parse(command);
+    }
+}
@@ -0,0 +1,73 @@
+package luna.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import luna.exception.LunaException;
+import luna.task.Task;
+
+/**
+ * Measures loading and saving a whole generated data file in each format. Saves are flushed without
+ * forcing to disk, so they measure encoding and writing rather than the device.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    private int taskCount;
+
+    @Param({"TEXT", "BINARY"})
+    private DataFormat format;
+
+    private Path directory;
+    private Storage storage;
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() throws IOException, LunaException {
+        directory = Files.createTempDirectory("luna-bench");
+        tasks = TaskFileGenerator.generate(taskCount, 42);
+        storage = new Storage(directory.resolve("luna.txt").toString());
+        storage.setDataFormat(format);
+        storage.setDurability(Durability.NONE);
+        storage.save(tasks);
+        storage.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        storage.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public ArrayList<Task> load() {
+        return storage.load();
+    }
+
+    @Benchmark
+    public void save() {
+        storage.save(tasks);
+        storage.flush();
+    }
+}
@@ -0,0 +1,102 @@
+package luna.storage;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import luna.exception.LunaException;
+import luna.task.DeadlineTask;
+import luna.task.EventTask;
+import luna.task.Task;
+import luna.task.ToDoTask;
+
+/**
+ * Generates synthetic task lists with a realistic mix of todos, deadlines and events, for benchmarks and
+ * for trying Luna on a large luna.txt. The same seed always gives the same tasks.
+ */
+public class TaskFileGenerator {
+    private static final String[] VERBS = {"read", "return", "buy", "call", "submit", "review", "fix", "plan",
+        "write", "prepare", "book", "clean", "email", "pay", "update"};
+    private static final String[] NOUNS = {"book", "milk", "mom", "assignment", "report", "code", "bug",
+        "project", "slides", "tickets", "room", "professor", "bills", "resume", "notes", "meeting minutes"};
+    // Covers every date format DeadlineTask understands, plus free text it keeps as written
+    private static final String[] DUE_FORMATS = {"yyyy-MM-dd HHmm", "yyyy-MM-dd", "d/M/yyyy HHmm", "d/M/yyyy"};
+    private static final String[] FREE_DUES = {"Sunday", "next week", "end of month", "tonight"};
+    private static final String[] EVENT_TIMES = {"Mon 2pm", "Tue 10am", "Wed 4pm", "Thu 9am", "Fri 1pm",
+        "Aug 6th 2pm", "Aug 6th 4pm"};
+
+    private TaskFileGenerator() {
+    }
+
+    /**
+     * Writes count generated tasks to the file in the text format, e.g.
+     * {@code ./gradlew generateTasks -Pcount=1000000 -Pfile=data/luna.txt}
+     */
+    public static void main(String[] args) throws LunaException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        String file = args.length > 1 ? args[1] : "data/luna.txt";
+        write(Path.of(file), count, 42);
+        System.out.println("Wrote " + count + " tasks to " + file);
+    }
+
+    /**
+     * Writes count generated tasks to the file in the human-readable text format
+     */
+    public static void write(Path file, int count, long seed) throws LunaException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            parent.toFile().mkdirs();
+        }
+        new Storage(file.toString()).exportText(file.toString(), generate(count, seed));
+    }
+
+    /**
+     * Generates count tasks: about 60% todos, 25% deadlines and 15% events, a third of them done
+     */
+    public static List<Task> generate(int count, long seed) throws LunaException {
+        Random random = new Random(seed);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String description = pick(random, VERBS) + " " + pick(random, NOUNS) + " " + i;
+            int kind = random.nextInt(100);
+            Task task;
+            if (kind < 60) {
+                task = new ToDoTask(description);
+            } else if (kind < 85) {
+                task = new DeadlineTask(description + " /by " + dueText(random));
+            } else {
+                task = new EventTask(description, pick(random, EVENT_TIMES), pick(random, EVENT_TIMES));
+            }
+            if (random.nextInt(3) == 0) {
+                task.markDone(true);
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static String dueText(Random random) {
+        if (random.nextInt(5) == 0) {
+            return pick(random, FREE_DUES);
+        }
+        int day = 1 + random.nextInt(28);
+        int month = 1 + random.nextInt(12);
+        int year = 2019 + random.nextInt(8);
+        String time = String.format("%02d%02d", random.nextInt(24), random.nextInt(4) * 15);
+        switch (pick(random, DUE_FORMATS)) {
+        case "yyyy-MM-dd HHmm":
+            return String.format("%d-%02d-%02d %s", year, month, day, time);
+        case "yyyy-MM-dd":
+            return String.format("%d-%02d-%02d", year, month, day);
+        case "d/M/yyyy HHmm":
+            return day + "/" + month + "/" + year + " " + time;
+        default:
+            return day + "/" + month + "/" + year;
+        }
+    }
+
+    private static String pick(Random random, String[] options) {
+        return options[random.nextInt(options.length)];
+    }
+}
@@ -0,0 +1,88 @@
+package luna.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.Temporal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import luna.exception.LunaException;
+
+/**
+ * Compares the single-pass date lexer with the regex and per-call formatter approach it replaced
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeadlineTaskBenchmark {
+    @Param({"Dec 02 2019, 6:00PM", "Dec 02 2019", "2019-12-02 1800", "2/12/2019 1800", "2019-12-02",
+        "2/12/2019", "June 6th"})
+    private String dueText;
+
+    private DeadlineTask deadline;
+
+    @Setup
+    public void setUp() throws LunaException {
+        deadline = new DeadlineTask("return book /by " + dueText);
+    }
+
+    @Benchmark
+    public Temporal parse_lexer() {
+        return DateTimeLexer.parse(dueText);
+    }
+
+    @Benchmark
+    public Temporal parse_legacyRegex() {
+        return parseWithRegex(dueText);
+    }
+
+    @Benchmark
+    public DeadlineTask construct() throws LunaException {
+        return new DeadlineTask("return book /by " + dueText);
+    }
+
+    @Benchmark
+    public String format_toString() {
+        return deadline.toString();
+    }
+
+    /**
+     * The parsing approach used before the lexer: up to six regex matches, then a new formatter
+     */
+    private static Temporal parseWithRegex(String text) {
+        String trimmed = text.trim();
+        try {
+            if (trimmed.matches("\\w{3} \\d{2} \\d{4}, \\d{1,2}:\\d{2}[AP]M")) {
+                return LocalDateTime.parse(trimmed, DateTimeFormatter.ofPattern("MMM dd yyyy, h:mma"));
+            }
+            if (trimmed.matches("\\w{3} \\d{2} \\d{4}")) {
+                return LocalDate.parse(trimmed, DateTimeFormatter.ofPattern("MMM dd yyyy"));
+            }
+            if (trimmed.matches("\\d{4}-\\d{2}-\\d{2} \\d{4}")) {
+                return LocalDateTime.parse(trimmed, DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"));
+            }
+            if (trimmed.matches("\\d{1,2}/\\d{1,2}/\\d{4} \\d{4}")) {
+                return LocalDateTime.parse(trimmed, DateTimeFormatter.ofPattern("d/M/yyyy HHmm"));
+            }
+            if (trimmed.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                return LocalDate.parse(trimmed, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            }
+            if (trimmed.matches("\\d{1,2}/\\d{1,2}/\\d{4}")) {
+                return LocalDate.parse(trimmed, DateTimeFormatter.ofPattern("d/M/yyyy"));
+            }
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        return null;
+    }
+}
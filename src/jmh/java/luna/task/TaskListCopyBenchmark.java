@@ -0,0 +1,50 @@
+package luna.task;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import luna.exception.LunaException;
+import luna.storage.TaskFileGenerator;
+
+/**
+ * Measures copying a task list, and copying then changing one task, which is when copy-on-write pays
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskListCopyBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    private int taskCount;
+
+    private TaskList tasks;
+
+    @Setup
+    public void setUp() throws LunaException {
+        tasks = new TaskList(TaskFileGenerator.generate(taskCount, 42));
+    }
+
+    @Benchmark
+    public TaskList copy() {
+        return tasks.copy();
+    }
+
+    @Benchmark
+    public TaskList snapshot() {
+        return tasks.snapshot();
+    }
+
+    @Benchmark
+    public TaskList copyThenMark() throws LunaException {
+        TaskList copy = tasks.copy();
+        copy.markTask(taskCount / 2, true);
+        return copy;
+    }
+}
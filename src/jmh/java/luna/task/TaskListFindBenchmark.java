@@ -0,0 +1,61 @@
+package luna.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import luna.exception.LunaException;
+
+/**
+ * Measures substring and word searches over a large task list with the search index already built
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskListFindBenchmark {
+    private static final String[] WORDS = {"read", "book", "return", "meeting", "project", "report", "buy",
+        "milk", "call", "mom", "submit", "assignment", "team", "review", "code", "fix", "bug", "plan"};
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int taskCount;
+
+    @Param({"item123456", "ject rep", "bo"})
+    private String keyword;
+
+    private TaskList tasks;
+
+    @Setup
+    public void setUp() throws LunaException {
+        Random random = new Random(42);
+        ArrayList<Task> list = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int j = 0; j < 3; j++) {
+                description.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            list.add(new ToDoTask(description.append("item").append(i).toString()));
+        }
+        tasks = new TaskList(list);
+        tasks.findTasks(keyword);
+    }
+
+    @Benchmark
+    public ArrayList<Task> findTasks() {
+        return tasks.findTasks(keyword);
+    }
+
+    @Benchmark
+    public ArrayList<Task> findTasksWithAllWords() {
+        return tasks.findTasksWithAllWords(List.of("book", "report"));
+    }
+}
@@ -0,0 +1,134 @@
+package luna.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load test that connects many concurrent line protocol clients to a server on localhost and reports
+ * throughput and latency percentiles. It starts its own server in a temporary directory unless
+ * "--port N" points it at a running one.
+ *
+ * <p>Run with ./gradlew loadTest -Pclients=64 -Pcommands=500
+ */
+public class LoadTest {
+    private static final String LIST_NAME = "loadtest";
+
+    public static void main(String[] args) throws Exception {
+        int clientCount = 64;
+        int commandsPerClient = 500;
+        int port = -1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--clients":
+                clientCount = Integer.parseInt(args[i + 1]);
+                break;
+            case "--commands":
+                commandsPerClient = Integer.parseInt(args[i + 1]);
+                break;
+            case "--port":
+                port = Integer.parseInt(args[i + 1]);
+                break;
+            default:
+                System.out.println("Unknown option " + args[i]);
+                return;
+            }
+        }
+
+        LunaServer server = null;
+        if (port < 0) {
+            server = new LunaServer(Files.createTempDirectory("luna-loadtest"));
+            server.start(0, -1);
+            port = server.getTcpPort();
+        }
+        try {
+            run(port, clientCount, commandsPerClient);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void run(int port, int clientCount, int commandsPerClient) throws InterruptedException {
+        long[][] latencies = new long[clientCount][commandsPerClient];
+        Throwable[] failures = new Throwable[clientCount];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] clients = new Thread[clientCount];
+        for (int c = 0; c < clientCount; c++) {
+            int client = c;
+            clients[c] = new Thread(() -> {
+                try (Socket socket = new Socket("localhost", port)) {
+                    runClient(socket, client, latencies[client], start);
+                } catch (IOException | InterruptedException e) {
+                    failures[client] = e;
+                }
+            });
+            clients[c].start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread client : clients) {
+            client.join();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                System.out.println("Client failed: " + failure);
+            }
+        }
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d clients x %d commands in %.2f s: %.0f commands/s%n", clientCount,
+                commandsPerClient, elapsedNanos / 1e9, all.length / (elapsedNanos / 1e9));
+        System.out.printf("latency p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                percentile(all, 0.5), percentile(all, 0.99), percentile(all, 0.999), all[all.length - 1] / 1e6);
+    }
+
+    /**
+     * Sends a mix of mostly adds with some marks and searches, timing each round trip
+     */
+    private static void runClient(Socket socket, int client, long[] latencies, CountDownLatch start)
+            throws IOException, InterruptedException {
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        send(out, in, "use " + LIST_NAME);
+        start.await();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < latencies.length; i++) {
+            int kind = random.nextInt(10);
+            String command;
+            if (kind < 6) {
+                command = "todo task " + client + "-" + i;
+            } else if (kind < 8) {
+                command = "mark " + (1 + random.nextInt(Math.max(1, i)));
+            } else {
+                command = "find task " + client + "-";
+            }
+            long before = System.nanoTime();
+            send(out, in, command);
+            latencies[i] = System.nanoTime() - before;
+        }
+    }
+
+    private static void send(PrintWriter out, BufferedReader in, String command) throws IOException {
+        out.println(command);
+        int lineCount = Integer.parseInt(in.readLine());
+        for (int i = 0; i < lineCount; i++) {
+            in.readLine();
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+    }
+}
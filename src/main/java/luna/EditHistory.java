@@ -0,0 +1,248 @@
+package luna;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import luna.exception.LunaException;
+import luna.storage.Storage;
+import luna.task.Task;
+import luna.task.TaskList;
+
+/**
+ * Multi-level undo and redo that records each change as a small edit that knows how to reverse
+ * itself, so memory grows with the number of changes rather than the size of the task list.
+ * Only the most recent edits up to the capacity are kept.
+ */
+class EditHistory {
+    private final int capacity;
+    private final Deque<Edit> undoStack = new ArrayDeque<>();
+    private final Deque<Edit> redoStack = new ArrayDeque<>();
+
+    /**
+     * Creates a history that keeps at most the given number of edits
+     */
+    EditHistory(int capacity) {
+        assert capacity > 0 : "History capacity should be positive";
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records a change the session has just applied, discarding anything that could be redone
+     */
+    void record(Edit edit, Session session) {
+        assert edit != null : "Edit to record should not be null";
+        assert session != null : "Session should not be null";
+
+        edit.session = session;
+        undoStack.push(edit);
+        if (undoStack.size() > capacity) {
+            undoStack.removeLast();
+        }
+        redoStack.clear();
+    }
+
+    /**
+     * Reverses the most recent edit and persists the reversal, if the session made that edit
+     */
+    void undo(TaskList tasks, Storage storage, Session session) throws LunaException {
+        if (undoStack.isEmpty()) {
+            throw new LunaException("No previous command to undo");
+        }
+        if (undoStack.peek().session != session) {
+            throw new LunaException("The last change was made by another client, so it cannot be undone here");
+        }
+        Edit edit = undoStack.pop();
+        edit.undo(tasks, storage);
+        redoStack.push(edit);
+    }
+
+    /**
+     * Reapplies the most recently undone edit and persists it, if the session undid that edit
+     */
+    void redo(TaskList tasks, Storage storage, Session session) throws LunaException {
+        if (redoStack.isEmpty()) {
+            throw new LunaException("No undone command to redo");
+        }
+        if (redoStack.peek().session != session) {
+            throw new LunaException("The last change was undone by another client, so it cannot be redone here");
+        }
+        Edit edit = redoStack.pop();
+        edit.redo(tasks, storage);
+        undoStack.push(edit);
+    }
+
+    /**
+     * A change to the task list that can be reversed and reapplied
+     */
+    abstract static class Edit {
+        // The session that made the edit, the only one that may undo or redo it
+        private Session session;
+
+        abstract void undo(TaskList tasks, Storage storage) throws LunaException;
+
+        abstract void redo(TaskList tasks, Storage storage) throws LunaException;
+
+        static void insert(TaskList tasks, Storage storage, int index, Task task) {
+            // A copy, so that the task held by this edit is never shared with a live list
+            Task inserted = task.copy();
+            tasks.insert(index, inserted);
+            if (index == tasks.size() - 1) {
+                storage.recordAdded(tasks.getTasks(), inserted);
+            } else {
+                storage.recordInserted(tasks.getTasks(), index, inserted);
+            }
+        }
+
+        static void delete(TaskList tasks, Storage storage, int index) throws LunaException {
+            tasks.deleteTask(index);
+            storage.recordDeleted(tasks.getTasks(), index);
+        }
+
+        static void mark(TaskList tasks, Storage storage, int index, boolean isDone) throws LunaException {
+            tasks.markTask(index, isDone);
+            storage.recordMarked(tasks.getTasks(), index, isDone);
+        }
+
+        static void insertAll(TaskList tasks, Storage storage, int[] indices, List<Task> insertedTasks) {
+            List<Task> copies = new ArrayList<>(insertedTasks.size());
+            for (Task task : insertedTasks) {
+                copies.add(task.copy());
+            }
+            tasks.insertAll(indices, copies);
+            // Task lines cannot share a journal record, so one snapshot stands in for the whole batch
+            storage.save(tasks.getTasks());
+        }
+
+        static void deleteAll(TaskList tasks, Storage storage, int[] indices) throws LunaException {
+            tasks.deleteTasks(indices);
+            storage.recordDeletedAll(tasks.getTasks(), indices);
+        }
+
+        static void markAll(TaskList tasks, Storage storage, int[] indices, boolean isDone) throws LunaException {
+            if (indices.length == 0) {
+                return;
+            }
+            tasks.markTasks(indices, isDone);
+            storage.recordMarkedAll(tasks.getTasks(), indices, isDone);
+        }
+    }
+
+    /**
+     * A task added at an index
+     */
+    static class Added extends Edit {
+        private final int index;
+        private final Task task;
+
+        Added(int index, Task task) {
+            this.index = index;
+            this.task = task.copy();
+        }
+
+        @Override
+        void undo(TaskList tasks, Storage storage) throws LunaException {
+            delete(tasks, storage, index);
+        }
+
+        @Override
+        void redo(TaskList tasks, Storage storage) {
+            insert(tasks, storage, index, task);
+        }
+    }
+
+    /**
+     * A task deleted from an index
+     */
+    static class Deleted extends Edit {
+        private final int index;
+        private final Task task;
+
+        Deleted(int index, Task task) {
+            this.index = index;
+            this.task = task;
+        }
+
+        @Override
+        void undo(TaskList tasks, Storage storage) {
+            insert(tasks, storage, index, task);
+        }
+
+        @Override
+        void redo(TaskList tasks, Storage storage) throws LunaException {
+            delete(tasks, storage, index);
+        }
+    }
+
+    /**
+     * A change in the done status of the task at an index
+     */
+    static class Marked extends Edit {
+        private final int index;
+        private final boolean wasDone;
+        private final boolean isDone;
+
+        Marked(int index, boolean wasDone, boolean isDone) {
+            this.index = index;
+            this.wasDone = wasDone;
+            this.isDone = isDone;
+        }
+
+        @Override
+        void undo(TaskList tasks, Storage storage) throws LunaException {
+            mark(tasks, storage, index, wasDone);
+        }
+
+        @Override
+        void redo(TaskList tasks, Storage storage) throws LunaException {
+            mark(tasks, storage, index, isDone);
+        }
+    }
+
+    /**
+     * Tasks deleted together from strictly increasing indices
+     */
+    static class DeletedAll extends Edit {
+        private final int[] indices;
+        private final List<Task> tasks;
+
+        DeletedAll(int[] indices, List<Task> tasks) {
+            this.indices = indices;
+            this.tasks = tasks;
+        }
+
+        @Override
+        void undo(TaskList tasks, Storage storage) {
+            insertAll(tasks, storage, indices, this.tasks);
+        }
+
+        @Override
+        void redo(TaskList tasks, Storage storage) throws LunaException {
+            deleteAll(tasks, storage, indices);
+        }
+    }
+
+    /**
+     * A change in the done status of several tasks, holding only the indices whose status changed
+     */
+    static class MarkedAll extends Edit {
+        private final int[] changedIndices;
+        private final boolean isDone;
+
+        MarkedAll(int[] changedIndices, boolean isDone) {
+            this.changedIndices = changedIndices;
+            this.isDone = isDone;
+        }
+
+        @Override
+        void undo(TaskList tasks, Storage storage) throws LunaException {
+            markAll(tasks, storage, changedIndices, !isDone);
+        }
+
+        @Override
+        void redo(TaskList tasks, Storage storage) throws LunaException {
+            markAll(tasks, storage, changedIndices, isDone);
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package luna;
 
+import java.util.Arrays;
+
 import javafx.application.Application;
+import luna.server.LunaServer;
 
 /**
  * A launcher class to workaround classpath issues.
  */
 public class Launcher {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            LunaServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--script")) {
+            ScriptRunner.main(args);
+            return;
+        }
         Application.launch(Main.class, args);
     }
 }
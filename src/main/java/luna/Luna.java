@@ -1,15 +1,27 @@
 package luna;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongToIntFunction;
 
 import luna.exception.LunaException;
+import luna.jfr.CommandExecutedEvent;
 import luna.parser.ParsedCommand;
 import luna.parser.Parser;
+import luna.stats.CommandStats;
+import luna.stats.CommandTimer;
+import luna.stats.Phase;
 import luna.storage.Storage;
 import luna.task.DeadlineTask;
 import luna.task.EventTask;
 import luna.task.Task;
 import luna.task.TaskList;
 import luna.task.ToDoTask;
+import luna.task.UnparsedTasks;
 import luna.ui.Ui;
 
 /**
@@ -17,12 +29,20 @@ import luna.ui.Ui;
  */
 public class Luna {
     private static final String DATA_FILE_PATH = "./data/luna.txt";
+    private static final int UNDO_LIMIT = 10000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
     private TaskList tasks;
     private Storage storage;
 
-    // Undo functionality - simple single-level undo
-    private TaskList previousTaskState;
-    private String lastCommand;
+    // Undo functionality - multi-level undo and redo of the most recent changes
+    private final EditHistory history = new EditHistory(UNDO_LIMIT);
+    private final CommandStats stats = CommandStats.shared();
+    // The session of commands given without one, shared with snapshots so that next and prev follow
+    // pages shown by either
+    private final Session localSession;
+
+    // Changes not handed to a storage that defers saving, saved together when it is flushed
+    private boolean hasDeferredChanges = false;
 
     // Exit flag for GUI
     private boolean shouldExit = false;
@@ -31,28 +51,52 @@ public class Luna {
      * Constructor for GUI and instance usage
      */
     public Luna() {
-        this.storage = new Storage(DATA_FILE_PATH);
-        assert storage != null : "Storage should be successfully initialized";
-
-        ArrayList<Task> loadedTasks = storage.load();
-        assert loadedTasks != null : "Storage.load() should never return null, even for empty lists";
-
-        this.tasks = new TaskList(loadedTasks);
-        assert tasks != null : "TaskList should be successfully initialized";
+        this(DATA_FILE_PATH);
     }
 
     /**
      * Constructor for testing with custom file path
      */
     public Luna(String dataFilePath) {
-        this.storage = new Storage(dataFilePath);
-        assert storage != null : "Storage should be successfully initialized";
+        this(Storage.fromSystemProperties(dataFilePath));
+    }
 
-        ArrayList<Task> loadedTasks = storage.load();
-        assert loadedTasks != null : "Storage.load() should never return null, even for empty lists";
+    /**
+     * Constructor that uses an already configured storage
+     */
+    public Luna(Storage storage) {
+        this.storage = storage;
+        this.localSession = new Session();
+        assert storage != null : "Storage should be successfully initialized";
 
-        this.tasks = new TaskList(loadedTasks);
+        UnparsedTasks unparsedTasks = storage.loadUnparsed();
+        if (unparsedTasks != null) {
+            this.tasks = new TaskList(unparsedTasks);
+        } else {
+            ArrayList<Task> loadedTasks = storage.load();
+            assert loadedTasks != null : "Storage.load() should never return null, even for empty lists";
+            this.tasks = new TaskList(loadedTasks);
+        }
         assert tasks != null : "TaskList should be successfully initialized";
+
+        stats.startDumpingFromSystemProperties();
+    }
+
+    /**
+     * Constructor for a snapshot, which has no storage and only answers read-only commands
+     */
+    private Luna(TaskList snapshot, Session localSession) {
+        this.tasks = snapshot;
+        this.storage = null;
+        this.localSession = localSession;
+    }
+
+    /**
+     * Returns a Luna over an unchangeable snapshot of the current tasks, which any number of threads may
+     * ask read-only commands such as list and find at once
+     */
+    public Luna readOnlySnapshot() {
+        return new Luna(tasks.snapshot(), localSession);
     }
 
     /**
@@ -60,31 +104,104 @@ public class Luna {
      * Used for GUI integration
      */
     public String getResponse(String input) {
-        assert input != null : "Input command should not be null";
+        return getResponse(input, localSession);
+    }
+
+    /**
+     * Processes a command on behalf of one of several clients sharing this Luna and returns the response,
+     * so that undo and redo only reverse changes made in the same session
+     */
+    public String getResponse(String input, Session session) {
+        assert session != null : "Session should not be null";
+
+        Ui ui = new Ui(true); // true for capture mode
+        assert ui != null : "Ui should be successfully created in capture mode";
+
+        respond(input, ui, session);
+        String output = ui.getOutput();
+        assert output != null : "UI output should never be null";
+        return output;
+    }
+
+    /**
+     * Processes a command and writes the same response getResponse would return to the writer as it is
+     * produced, so that long lists are never held in memory whole. Returns whether the command succeeded.
+     */
+    public boolean writeResponse(String input, Writer out) throws IOException {
+        assert out != null : "Writer should not be null";
 
         try {
-            Ui ui = new Ui(true); // true for capture mode
-            assert ui != null : "Ui should be successfully created in capture mode";
+            return respond(input, new Ui(out), localSession);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Processes a command, showing its response or error through the ui, and returns whether it succeeded
+     */
+    private boolean respond(String input, Ui ui, Session session) {
+        assert input != null : "Input command should not be null";
 
+        CommandExecutedEvent event = new CommandExecutedEvent();
+        event.begin();
+        CommandTimer timer = new CommandTimer();
+        String commandType = "invalid";
+        boolean isSuccessful = false;
+        try {
             ParsedCommand parsedCommand = Parser.parse(input);
             assert parsedCommand != null : "Parser should never return null ParsedCommand";
+            commandType = parsedCommand.getCommandType();
+            timer.lap(Phase.PARSE);
+            if (storage == null && !parsedCommand.isReadOnly()) {
+                throw new LunaException("Only list, find, next, prev and stats can run on a snapshot");
+            }
 
             if (parsedCommand.isExit()) {
                 ui.showGoodbye();
+                saveDeferredChanges();
+                storage.close();
                 this.shouldExit = true; // Set flag to indicate application should close
-                String output = ui.getOutput();
-                assert output != null : "UI output should never be null";
-                return output;
+            } else {
+                executeCommand(parsedCommand, ui, timer, session);
             }
-
-            executeCommand(parsedCommand, ui);
-            String output = ui.getOutput();
-            assert output != null : "UI output should never be null after command execution";
-            return output;
-
+            timer.lap(Phase.RENDER);
+            isSuccessful = true;
         } catch (LunaException e) {
             assert e.getMessage() != null : "LunaException should have a non-null message";
-            return "Error: " + e.getMessage();
+            ui.showError("Error: " + e.getMessage());
+        } finally {
+            timer.finish(stats, commandType);
+            event.complete(commandType, tasks.size(), timer.getNanos(Phase.HISTORY), timer.getNanos(Phase.PERSIST),
+                    isSuccessful);
+        }
+        ui.flush();
+        return isSuccessful;
+    }
+
+    /**
+     * Writes any pending changes to disk, for when the application closes without "bye"
+     */
+    public void close() {
+        saveDeferredChanges();
+        storage.close();
+    }
+
+    /**
+     * Writes any changes the storage's durability setting is still holding back
+     */
+    public void flush() {
+        saveDeferredChanges();
+        storage.flush();
+    }
+
+    /**
+     * Saves every task once for the changes persist skipped, so that no snapshot is built between flushes
+     */
+    private void saveDeferredChanges() {
+        if (hasDeferredChanges) {
+            hasDeferredChanges = false;
+            storage.save(tasks.getTasks());
         }
     }
 
@@ -98,23 +215,28 @@ public class Luna {
     /**
      * Checks if the marking is valid and does so
      */
-    private void markCommand(String indexStr, boolean markDone, Ui ui) throws LunaException {
-        assert indexStr != null : "Index string should not be null";
+    private void markCommand(List<String> taskReferences, boolean markDone, Ui ui, CommandTimer timer,
+            Session session)
+            throws LunaException {
+        assert taskReferences != null : "Task references should not be null";
         assert tasks != null : "TaskList should not be null";
         assert ui != null : "Ui should not be null";
 
-        int index;
-        try {
-            index = Integer.parseInt(indexStr) - 1;
-        } catch (NumberFormatException e) {
-            throw new LunaException("Please give a valid task number");
+        int[] indices = parseTaskIndices(taskReferences, "Please give a valid task number");
+        if (indices.length > 1) {
+            markTasksCommand(indices, markDone, ui, timer, session);
+            return;
         }
+        int index = indices[0];
 
-        assert index >= -1 : "Parsed index should be at least -1 (which will fail bounds check)";
+        assert index >= 0 && index < tasks.size() : "Parsed index should be within bounds";
 
+        boolean wasDone = tasks.get(index).isDone();
         tasks.markTask(index, markDone);
         Task task = tasks.get(index);
         assert task != null : "Task should exist after successful marking";
+        persist(timer, () -> storage.recordMarked(tasks.getTasks(), index, markDone));
+        recordEdit(timer, new EditHistory.Marked(index, wasDone, markDone), session);
 
         if (markDone) {
             assert task.isDone() : "Task should be marked as done after marking";
@@ -125,187 +247,405 @@ public class Luna {
         }
     }
 
+    /**
+     * Marks several tasks as one change with a single save and undo record
+     */
+    private void markTasksCommand(int[] indices, boolean markDone, Ui ui, CommandTimer timer,
+            Session session)
+            throws LunaException {
+        int changedCount = 0;
+        int[] changedIndices = new int[indices.length];
+        for (int index : indices) {
+            if (tasks.get(index).isDone() != markDone) {
+                changedIndices[changedCount++] = index;
+            }
+        }
+        int[] changed = Arrays.copyOf(changedIndices, changedCount);
+
+        // Recording an edit that changes nothing would clear redo and make the next undo do nothing
+        if (changedCount > 0) {
+            tasks.markTasks(changed, markDone);
+            persist(timer, () -> storage.recordMarkedAll(tasks.getTasks(), changed, markDone));
+            recordEdit(timer, new EditHistory.MarkedAll(changed, markDone), session);
+        }
+
+        ui.showTasksMarked(indices.length, markDone);
+    }
+
+    /**
+     * Returns the strictly increasing indices of the tasks given by the references, each a task number,
+     * a range of task numbers such as "1-500" or a task id after a "#"
+     */
+    private int[] parseTaskIndices(List<String> taskReferences, String errorMessage) throws LunaException {
+        BitSet selected = new BitSet();
+        for (String reference : taskReferences) {
+            // Searching from the second character leaves a leading minus sign to the number
+            int dash = reference.indexOf('-', 1);
+            int first = parseTaskIndex(dash < 0 ? reference : reference.substring(0, dash).trim(), errorMessage);
+            int last = dash < 0 ? first : parseTaskIndex(reference.substring(dash + 1).trim(), errorMessage);
+            if (first < 0 || last >= tasks.size()) {
+                throw new LunaException("Task index is out of bounds");
+            }
+            if (first > last) {
+                throw new LunaException("Please give ranges from the smaller task number to the larger one");
+            }
+            selected.set(first, last + 1);
+        }
+
+        assert !selected.isEmpty() : "At least one task should be selected";
+        return selected.stream().toArray();
+    }
+
+    /**
+     * Returns the index of the task given by its number in the list, or by its id after a "#"
+     */
+    private int parseTaskIndex(String taskStr, String errorMessage) throws LunaException {
+        assert taskStr != null : "Task string should not be null";
+
+        try {
+            if (!taskStr.startsWith("#")) {
+                return Integer.parseInt(taskStr) - 1;
+            }
+            int index = tasks.indexOfId(Long.parseLong(taskStr.substring(1)));
+            if (index < 0) {
+                throw new LunaException("There is no task with id " + taskStr);
+            }
+            return index;
+        } catch (NumberFormatException e) {
+            throw new LunaException(errorMessage);
+        }
+    }
+
     /**
      * Executes the given parsed command
      */
-    private void executeCommand(ParsedCommand parsedCommand, Ui ui) throws LunaException {
+    private void executeCommand(ParsedCommand parsedCommand, Ui ui, CommandTimer timer, Session session)
+            throws LunaException {
         assert parsedCommand != null : "ParsedCommand should not be null";
         assert tasks != null : "TaskList should not be null";
         assert ui != null : "Ui should not be null";
-        assert storage != null : "Storage should not be null";
+        assert storage != null || parsedCommand.isReadOnly() : "Storage should not be null";
         assert parsedCommand.getCommandType() != null : "Command type should not be null";
 
         String commandType = parsedCommand.getCommandType();
 
-        // Save state before modifying commands (but not for undo itself)
-        if (!commandType.equals("undo")) {
-            saveStateForUndo(commandType);
-        }
-
         int initialTaskCount = tasks.size();
 
         switch (commandType) {
         case "list":
-            ui.showTaskList(tasks.getTasks());
+            listCommand(parsedCommand.getArguments(), ui, timer, session);
             assert tasks.size() == initialTaskCount : "List command should not change task count";
             break;
+        case "next":
+        case "prev":
+            turnPageCommand(commandType.equals("next"), ui, timer, session);
+            break;
         case "undo":
-            undoLastCommand(ui);
-            storage.save(tasks.getTasks());
+            history.undo(tasks, storage, session);
+            ui.showUndoSuccess();
+            break;
+        case "redo":
+            history.redo(tasks, storage, session);
+            ui.showRedoSuccess();
             break;
         case "mark":
-            markCommand(parsedCommand.getArguments(), true, ui);
-            storage.save(tasks.getTasks());
+            markCommand(parsedCommand.getTaskReferences(), true, ui, timer, session);
             assert tasks.size() == initialTaskCount : "Mark command should not change task count";
             break;
         case "unmark":
-            markCommand(parsedCommand.getArguments(), false, ui);
-            storage.save(tasks.getTasks());
+            markCommand(parsedCommand.getTaskReferences(), false, ui, timer, session);
             assert tasks.size() == initialTaskCount : "Unmark command should not change task count";
             break;
         case "delete":
-            deleteCommand(parsedCommand.getArguments(), ui);
-            storage.save(tasks.getTasks());
-            assert tasks.size() == initialTaskCount - 1 : "Delete command should reduce task count by 1";
+            deleteCommand(parsedCommand.getTaskReferences(), ui, timer, session);
+            assert tasks.size() < initialTaskCount : "Delete command should reduce task count";
             break;
         case "todo":
-            createTodoTask(parsedCommand.getArguments(), ui, initialTaskCount);
+            createTodoTask(parsedCommand.getArguments(), ui, initialTaskCount, timer, session);
             break;
         case "deadline":
-            createDeadlineTask(parsedCommand.getArguments(), ui, initialTaskCount);
+            createDeadlineTask(parsedCommand.getArguments(), ui, initialTaskCount, timer, session);
             break;
         case "event":
-            createEventTask(parsedCommand.getArguments(), ui, initialTaskCount);
+            createEventTask(parsedCommand.getArguments(), ui, initialTaskCount, timer, session);
             break;
         case "find":
-            findCommand(parsedCommand.getArguments(), ui);
+            findCommand(parsedCommand.getArguments(), ui, timer, session);
             assert tasks.size() == initialTaskCount : "Find command should not change task count";
             break;
+        case "stats":
+            ui.showStats(stats.format());
+            break;
         default:
             throw new LunaException("Unknown command type");
         }
+        timer.lap(Phase.EXECUTE);
     }
 
     /**
-     * Deletes a task from the task list
+     * Deletes one or more tasks from the task list, several at once as a single change
      */
-    private void deleteCommand(String indexStr, Ui ui) throws LunaException {
-        assert indexStr != null : "Index string should not be null";
+    private void deleteCommand(List<String> taskReferences, Ui ui, CommandTimer timer,
+            Session session) throws LunaException {
+        assert taskReferences != null : "Task references should not be null";
         assert tasks != null : "TaskList should not be null";
         assert ui != null : "Ui should not be null";
 
-        int index;
-        try {
-            index = Integer.parseInt(indexStr) - 1;
-        } catch (NumberFormatException e) {
-            throw new LunaException("Please give a valid task number to delete");
+        int[] indices = parseTaskIndices(taskReferences, "Please give a valid task number to delete");
+        if (indices.length > 1) {
+            List<Task> removed = tasks.deleteTasks(indices);
+            persist(timer, () -> storage.recordDeletedAll(tasks.getTasks(), indices));
+            recordEdit(timer, new EditHistory.DeletedAll(indices, removed), session);
+            ui.showTasksDeleted(removed.size(), tasks.size());
+            return;
         }
+        int index = indices[0];
 
-        assert index >= -1 : "Parsed index should be at least -1 (which will fail bounds check)";
+        assert index >= 0 && index < tasks.size() : "Parsed index should be within bounds";
 
         Task removed = tasks.deleteTask(index);
         assert removed != null : "Deleted task should not be null";
+        persist(timer, () -> storage.recordDeleted(tasks.getTasks(), index));
+        recordEdit(timer, new EditHistory.Deleted(index, removed), session);
 
         ui.showTaskDeleted(removed, tasks.size());
     }
 
     /**
-     * Finds tasks that contain the given keyword
+     * Lists every task, or with "/page" or "/size", one page of them. With "/ids" first, each task is
+     * followed by its id.
      */
-    private void findCommand(String keyword, Ui ui) {
-        assert keyword != null : "Search keyword should not be null";
+    private void listCommand(String arguments, Ui ui, CommandTimer timer, Session session) throws LunaException {
+        boolean isShowingIds = arguments.equals("/ids") || arguments.startsWith("/ids ");
+        String options = isShowingIds ? arguments.substring("/ids".length()).trim() : arguments;
+        if (options.isBlank()) {
+            timer.lap(Phase.EXECUTE);
+            ui.showTaskList(tasks.getTasks(), isShowingIds);
+            timer.lap(Phase.RENDER);
+            return;
+        }
+        if (pagingOptionsStart(options) != 0) {
+            throw new LunaException("Please page the list with /page NUMBER and /size NUMBER");
+        }
+        int size = parsePagingOption(options, "/size", DEFAULT_PAGE_SIZE);
+        int page = parsePagingOption(options, "/page", 1);
+        showPage("list", "", isShowingIds, tasks.getTasks(), pageStart(page, size, tasks.size()), size, ui, timer,
+                session);
+    }
+
+    /**
+     * Finds tasks that contain the given keyword, or with "/and" or "/or" first, tasks that contain all
+     * or any of the following words. With "/page" or "/size" after them, shows one page of the tasks.
+     */
+    private void findCommand(String arguments, Ui ui, CommandTimer timer, Session session) throws LunaException {
+        assert arguments != null : "Search arguments should not be null";
         assert tasks != null : "TaskList should not be null";
         assert ui != null : "Ui should not be null";
 
-        ArrayList<Task> matchingTasks = tasks.findTasks(keyword);
-        assert matchingTasks != null : "findTasks should never return null, even for empty results";
+        int optionsStart = pagingOptionsStart(arguments);
+        String keyword = arguments.substring(0, optionsStart).stripTrailing();
+        if (keyword.isBlank()) {
+            throw new LunaException("Please provide a keyword to search for");
+        }
+        ArrayList<Task> matchingTasks = searchTasks(keyword);
+        if (optionsStart == arguments.length()) {
+            timer.lap(Phase.EXECUTE);
+            ui.showSearchResults(matchingTasks);
+            timer.lap(Phase.RENDER);
+            return;
+        }
 
-        ui.showSearchResults(matchingTasks);
+        String options = arguments.substring(optionsStart);
+        int size = parsePagingOption(options, "/size", DEFAULT_PAGE_SIZE);
+        int page = parsePagingOption(options, "/page", 1);
+        showPage("find", keyword, false, matchingTasks, pageStart(page, size, matchingTasks.size()), size, ui,
+                timer, session);
     }
 
     /**
-     * Saves the current state for undo functionality
+     * Shows the page after or before the last page the session was shown, finding it again by its tasks
+     * after any edits
      */
-    private void saveStateForUndo(String commandType) {
-        assert tasks != null : "Tasks should not be null when saving state";
-        assert commandType != null : "Command type should not be null";
-
-        // Only save state for commands that modify the task list
-        if (isModifyingCommand(commandType)) {
-            this.previousTaskState = tasks.copy();
-            this.lastCommand = commandType;
-            assert previousTaskState != null : "Previous task state should be saved";
-            assert lastCommand != null : "Last command should be saved";
+    private void turnPageCommand(boolean isNext, Ui ui, CommandTimer timer, Session session) throws LunaException {
+        PageCursor cursor = session.getPageCursor();
+        if (cursor == null) {
+            throw new LunaException("Please show a page first, such as with list /page 1");
         }
+        boolean isList = cursor.getCommandType().equals("list");
+        List<Task> source = isList ? tasks.getTasks() : searchTasks(cursor.getQuery());
+        // Search results hold only some of the tasks, so only the whole list can be searched by id
+        LongToIntFunction indexOfId = isList ? tasks::indexOfId : id -> PageCursor.scanForId(source, id);
+        int start = isNext ? cursor.nextStart(source, indexOfId) : cursor.previousStart(source, indexOfId);
+        showPage(cursor.getCommandType(), cursor.getQuery(), cursor.isShowingIds(), source, start, cursor.getSize(),
+                ui, timer, session);
     }
 
     /**
-     * Checks if a command type modifies the task list
+     * Shows the tasks of the source from start, up to size of them, and remembers them as the session's
+     * last page
      */
-    private boolean isModifyingCommand(String commandType) {
-        assert commandType != null : "Command type should not be null";
-
-        return commandType.equals("mark") || commandType.equals("unmark")
-            || commandType.equals("delete") || commandType.equals("todo")
-            || commandType.equals("deadline") || commandType.equals("event");
+    private void showPage(String commandType, String query, boolean isShowingIds, List<Task> source, int start,
+            int size, Ui ui, CommandTimer timer, Session session) {
+        int end = Math.min(source.size(), start + size);
+        int page = (start + size - 1) / size + 1;
+        int pageCount = Math.max(1, page + (source.size() - end + size - 1) / size);
+        timer.lap(Phase.EXECUTE);
+        if (commandType.equals("list")) {
+            ui.showTaskPage(source, start, end, page, pageCount, isShowingIds);
+        } else {
+            ui.showSearchPage(source, start, end, page, pageCount);
+        }
+        timer.lap(Phase.RENDER);
+        session.setPageCursor(new PageCursor(commandType, query, isShowingIds, source, start, end, size));
     }
 
     /**
-     * Undoes the last command if possible
+     * Returns the index of the first task on the page, checking that the page exists
      */
-    private void undoLastCommand(Ui ui) throws LunaException {
-        assert ui != null : "Ui should not be null";
-
-        if (previousTaskState == null) {
-            throw new LunaException("No previous command to undo");
+    private static int pageStart(int page, int size, int total) throws LunaException {
+        long start = (long) (page - 1) * size;
+        if (start > 0 && start >= total) {
+            int pageCount = (int) (((long) total + size - 1) / size);
+            throw new LunaException("There is no page " + page + ", only " + pageCount);
         }
+        return (int) start;
+    }
 
-        assert lastCommand != null : "Last command should not be null if previous state exists";
-
-        // Restore the previous state
-        this.tasks = previousTaskState.copy();
-        assert tasks != null : "Tasks should be restored after undo";
+    /**
+     * Returns where the "/page" and "/size" options start in the arguments, or their length if there are none
+     */
+    private static int pagingOptionsStart(String arguments) {
+        int start = arguments.length();
+        for (String option : new String[] {"/page", "/size"}) {
+            int index = arguments.indexOf(option);
+            while (index >= 0) {
+                int after = index + option.length();
+                boolean isWord = (index == 0 || Character.isWhitespace(arguments.charAt(index - 1)))
+                        && (after == arguments.length() || Character.isWhitespace(arguments.charAt(after)));
+                if (isWord) {
+                    start = Math.min(start, index);
+                    break;
+                }
+                index = arguments.indexOf(option, after);
+            }
+        }
+        return start;
+    }
 
-        // Clear undo state to prevent double undo
-        this.previousTaskState = null;
-        this.lastCommand = null;
+    /**
+     * Returns the positive number after the option among paging options such as "/page 3 /size 100", or
+     * the default if it is not given
+     */
+    private static int parsePagingOption(String options, String option, int defaultValue) throws LunaException {
+        String[] words = options.trim().split("\\s+");
+        int value = defaultValue;
+        for (int i = 0; i < words.length; i += 2) {
+            boolean isOption = words[i].equals("/page") || words[i].equals("/size");
+            if (!isOption || i + 1 == words.length) {
+                throw new LunaException("Please give pages as /page NUMBER and /size NUMBER");
+            }
+            if (words[i].equals(option)) {
+                try {
+                    value = Integer.parseInt(words[i + 1]);
+                } catch (NumberFormatException e) {
+                    value = 0;
+                }
+                if (value <= 0) {
+                    throw new LunaException("Please give " + option + " a positive number");
+                }
+            }
+        }
+        return value;
+    }
 
-        ui.showUndoSuccess();
+    /**
+     * Returns the tasks that contain the keyword, or with "/and" or "/or" first, that contain all or any of
+     * the following words
+     */
+    private ArrayList<Task> searchTasks(String keyword) throws LunaException {
+        String[] parts = keyword.trim().split("\\s+", 2);
+        boolean isAllWords = parts[0].equals("/and");
+        boolean isAnyWord = parts[0].equals("/or");
+
+        ArrayList<Task> matchingTasks;
+        if (isAllWords || isAnyWord) {
+            if (parts.length < 2) {
+                throw new LunaException("Please provide a keyword to search for");
+            }
+            List<String> words = Arrays.asList(parts[1].split("\\s+"));
+            matchingTasks = isAllWords ? tasks.findTasksWithAllWords(words) : tasks.findTasksWithAnyWord(words);
+        } else {
+            matchingTasks = tasks.findTasks(keyword);
+        }
+        assert matchingTasks != null : "findTasks should never return null, even for empty results";
+        return matchingTasks;
     }
 
     /**
      * Creates and adds a new todo task
      */
-    private void createTodoTask(String arguments, Ui ui, int initialTaskCount) throws LunaException {
+    private void createTodoTask(String arguments, Ui ui, int initialTaskCount, CommandTimer timer,
+            Session session)
+            throws LunaException {
         Task todo = new ToDoTask(arguments);
         assert todo != null : "ToDoTask should be successfully created";
         tasks.add(todo);
         ui.showTaskAdded(todo, tasks.size());
-        storage.save(tasks.getTasks());
+        persist(timer, () -> storage.recordAdded(tasks.getTasks(), todo));
+        recordEdit(timer, new EditHistory.Added(tasks.size() - 1, todo), session);
         assert tasks.size() == initialTaskCount + 1 : "Todo command should increase task count by 1";
     }
 
     /**
      * Creates and adds a new deadline task
      */
-    private void createDeadlineTask(String arguments, Ui ui, int initialTaskCount) throws LunaException {
+    private void createDeadlineTask(String arguments, Ui ui, int initialTaskCount, CommandTimer timer,
+            Session session)
+            throws LunaException {
         Task deadline = new DeadlineTask(arguments);
         assert deadline != null : "DeadlineTask should be successfully created";
         tasks.add(deadline);
         ui.showTaskAdded(deadline, tasks.size());
-        storage.save(tasks.getTasks());
+        persist(timer, () -> storage.recordAdded(tasks.getTasks(), deadline));
+        recordEdit(timer, new EditHistory.Added(tasks.size() - 1, deadline), session);
         assert tasks.size() == initialTaskCount + 1 : "Deadline command should increase task count by 1";
     }
 
     /**
      * Creates and adds a new event task
      */
-    private void createEventTask(String arguments, Ui ui, int initialTaskCount) throws LunaException {
+    private void createEventTask(String arguments, Ui ui, int initialTaskCount, CommandTimer timer,
+            Session session)
+            throws LunaException {
         Task event = new EventTask(arguments);
         assert event != null : "EventTask should be successfully created";
         tasks.add(event);
         ui.showTaskAdded(event, tasks.size());
-        storage.save(tasks.getTasks());
+        persist(timer, () -> storage.recordAdded(tasks.getTasks(), event));
+        recordEdit(timer, new EditHistory.Added(tasks.size() - 1, event), session);
         assert tasks.size() == initialTaskCount + 1 : "Event command should increase task count by 1";
     }
+
+    /**
+     * Runs a write to storage, or only notes the change if the storage defers saving, timing it apart from
+     * the rest of the command
+     */
+    private void persist(CommandTimer timer, Runnable write) {
+        timer.lap(Phase.EXECUTE);
+        if (storage.isSavingDeferred()) {
+            hasDeferredChanges = true;
+        } else {
+            write.run();
+        }
+        timer.lap(Phase.PERSIST);
+    }
+
+    /**
+     * Records how to undo a change, timing it apart from the rest of the command
+     */
+    private void recordEdit(CommandTimer timer, EditHistory.Edit edit, Session session) {
+        timer.lap(Phase.EXECUTE);
+        history.record(edit, session);
+        timer.lap(Phase.HISTORY);
+    }
 }
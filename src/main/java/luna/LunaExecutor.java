@@ -0,0 +1,175 @@
+package luna;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import luna.exception.LunaException;
+import luna.parser.Parser;
+
+/**
+ * Lets any number of threads share one Luna. Commands that may change tasks wait in a bounded queue
+ * for a single writer thread, which runs them in batches. list and find never wait behind them: they
+ * are answered at once, on the calling thread, from an unchangeable snapshot taken after the latest
+ * batch.
+ */
+public class LunaExecutor implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 64;
+    // Queued by close so the writer stops once every command before it has run
+    private static final PendingCommand STOP = new PendingCommand(null, null);
+
+    private final Luna luna;
+    private final BlockingQueue<PendingCommand> queue;
+    private final Thread writer;
+    // The session of commands submitted without one
+    private final Session defaultSession = new Session();
+    private volatile Luna snapshot;
+    private volatile boolean isClosed = false;
+
+    /**
+     * Creates an executor for the Luna, which no other code should use directly from then on
+     */
+    public LunaExecutor(Luna luna) {
+        this(luna, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates an executor whose queue holds at most the given number of waiting commands, beyond which
+     * submitting blocks until the writer catches up
+     */
+    public LunaExecutor(Luna luna, int queueCapacity) {
+        assert luna != null : "Luna should not be null";
+        assert queueCapacity > 0 : "Queue capacity should be positive";
+
+        this.luna = luna;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.snapshot = luna.readOnlySnapshot();
+        this.writer = new Thread(this::runWriter, "luna-writer");
+        this.writer.start();
+    }
+
+    /**
+     * Runs the command and completes the future with its response. Read-only commands complete before
+     * this returns.
+     */
+    public CompletableFuture<String> submit(String input) {
+        return submit(input, defaultSession);
+    }
+
+    /**
+     * Runs the command on behalf of the session and completes the future with its response, like submit
+     */
+    public CompletableFuture<String> submit(String input, Session session) {
+        assert input != null : "Input command should not be null";
+        assert session != null : "Session should not be null";
+
+        if (isClosed) {
+            return CompletableFuture.failedFuture(closedException());
+        }
+        if (isReadOnly(input)) {
+            return CompletableFuture.completedFuture(snapshot.getResponse(input, session));
+        }
+
+        PendingCommand command = new PendingCommand(input, session);
+        try {
+            queue.put(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        if (isClosed && queue.remove(command)) {
+            // Queued after close began, so the writer may already have stopped without reaching it
+            command.future.completeExceptionally(closedException());
+        }
+        return command.future;
+    }
+
+    /**
+     * Runs every command submitted so far, stops the writer and closes the Luna
+     */
+    @Override
+    public synchronized void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        luna.close();
+    }
+
+    private static RejectedExecutionException closedException() {
+        return new RejectedExecutionException("Luna executor is closed");
+    }
+
+    private static boolean isReadOnly(String input) {
+        try {
+            return Parser.parse(input).isReadOnly();
+        } catch (LunaException e) {
+            // The writer reports the error like any other
+            return false;
+        }
+    }
+
+    private void runWriter() {
+        List<PendingCommand> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        List<String> responses = new ArrayList<>(MAX_BATCH_SIZE);
+        boolean isStopping = false;
+        while (!isStopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+            for (PendingCommand command : batch) {
+                if (isStopping || command == STOP) {
+                    // Drained along with the stop, after close had already begun
+                    isStopping = true;
+                    responses.add(null);
+                    command.future.completeExceptionally(closedException());
+                    continue;
+                }
+                try {
+                    responses.add(luna.getResponse(command.input, command.session));
+                } catch (RuntimeException e) {
+                    responses.add(null);
+                    command.future.completeExceptionally(e);
+                }
+            }
+
+            // Publishing first means a caller that saw its change complete also sees it in list and find
+            snapshot = luna.readOnlySnapshot();
+            for (int i = 0; i < responses.size(); i++) {
+                if (responses.get(i) != null) {
+                    batch.get(i).future.complete(responses.get(i));
+                }
+            }
+            batch.clear();
+            responses.clear();
+        }
+    }
+
+    /**
+     * A command waiting for the writer, with the future its response completes
+     */
+    private static class PendingCommand {
+        private final String input;
+        private final Session session;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        PendingCommand(String input, Session session) {
+            this.input = input;
+            this.session = session;
+        }
+    }
+}
@@ -8,13 +8,15 @@ import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import luna.ui.MainWindow;
+import luna.ui.StartupMetrics;
 
 /**
  * A GUI for Luna using FXML.
  */
 public class Main extends Application {
 
-    private Luna luna = new Luna();
+    private final StartupMetrics startupMetrics = StartupMetrics.sinceProcessStart();
+    private MainWindow mainWindow;
 
     @Override
     public void start(Stage stage) {
@@ -23,10 +25,30 @@ public class Main extends Application {
             AnchorPane ap = fxmlLoader.load();
             Scene scene = new Scene(ap);
             stage.setScene(scene);
-            fxmlLoader.<MainWindow>getController().setLuna(luna);
+            mainWindow = fxmlLoader.<MainWindow>getController();
+            // Tasks load in the background, so the window shows at once however large the data file is
+            mainWindow.load(Luna::new, startupMetrics);
+            markFirstFrame(scene);
             stage.show();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        if (mainWindow != null) {
+            mainWindow.shutdown();
+        }
+    }
+
+    private void markFirstFrame(Scene scene) {
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                startupMetrics.markFirstFrame();
+            }
+        });
+    }
 }
@@ -0,0 +1,113 @@
+package luna;
+
+import java.util.List;
+import java.util.function.LongToIntFunction;
+
+import luna.exception.LunaException;
+import luna.task.Task;
+
+/**
+ * Remembers the last page of a list or find shown, so that next and prev can continue from it. The
+ * page is held by the ids of its first and last tasks rather than their positions, so adding or
+ * deleting tasks elsewhere in the list does not shift it; the positions are only a fallback for when
+ * those tasks themselves are deleted.
+ */
+final class PageCursor {
+    private final String commandType;
+    private final String query;
+    private final boolean isShowingIds;
+    private final int size;
+    private final int start;
+    private final int end;
+    private final long firstId;
+    private final long lastId;
+
+    /**
+     * Creates a cursor at the tasks from start to end, exclusive, of the source, which is the whole list
+     * or the results of the query, and whose pages show task ids if isShowingIds is true
+     */
+    PageCursor(String commandType, String query, boolean isShowingIds, List<Task> source, int start, int end,
+            int size) {
+        assert start >= 0 && start <= end && end <= source.size() : "Page should be within the source";
+        assert size > 0 : "Page size should be positive";
+
+        this.commandType = commandType;
+        this.query = query;
+        this.isShowingIds = isShowingIds;
+        this.size = size;
+        this.start = start;
+        this.end = end;
+        this.firstId = start < end ? source.get(start).getId() : -1;
+        this.lastId = start < end ? source.get(end - 1).getId() : -1;
+    }
+
+    String getCommandType() {
+        return commandType;
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+    boolean isShowingIds() {
+        return isShowingIds;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns where the page after this one starts in the source as it is now, given how to find the
+     * position of a task in the source by its id
+     */
+    int nextStart(List<Task> source, LongToIntFunction indexOfId) throws LunaException {
+        int position = positionOf(source, indexOfId, lastId, end - 1);
+        int next = position < 0 ? Math.min(end, source.size()) : position + 1;
+        if (next >= source.size()) {
+            throw new LunaException("This is already the last page");
+        }
+        return next;
+    }
+
+    /**
+     * Returns where the page before this one starts in the source as it is now, like nextStart
+     */
+    int previousStart(List<Task> source, LongToIntFunction indexOfId) throws LunaException {
+        int position = positionOf(source, indexOfId, firstId, start);
+        int previousEnd = position < 0 ? Math.min(start, source.size()) : position;
+        if (previousEnd <= 0) {
+            throw new LunaException("This is already the first page");
+        }
+        return Math.max(0, previousEnd - size);
+    }
+
+    /**
+     * Returns the position of the task with the id, looking first where it was, or -1 if it is gone
+     */
+    private static int positionOf(List<Task> source, LongToIntFunction indexOfId, long id, int previousPosition) {
+        if (id < 0) {
+            return -1;
+        }
+        if (previousPosition >= 0 && previousPosition < source.size()
+                && source.get(previousPosition).getId() == id) {
+            return previousPosition;
+        }
+        return indexOfId.applyAsInt(id);
+    }
+
+    /**
+     * Returns the position of the task with the id in the source by looking at every task, or -1 if it
+     * is not there
+     */
+    static int scanForId(List<Task> source, long id) {
+        int position = 0;
+        for (Task task : source) {
+            if (task.getId() == id) {
+                return position;
+            }
+            position++;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,153 @@
+package luna;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import luna.exception.LunaException;
+import luna.storage.Durability;
+import luna.storage.Storage;
+
+/**
+ * Runs a file of commands, one per line, as fast as possible: commands stream through Luna without
+ * waiting on the disk, changes are saved only at checkpoints, and replies stream into a buffered writer.
+ * Used to bulk-import tasks and to replay recorded command traces.
+ */
+public class ScriptRunner {
+    private static final String DEFAULT_DATA_FILE = "./data/luna.txt";
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 10_000;
+    private static final int OUTPUT_BUFFER_CHARS = 64 * 1024;
+
+    private final Luna luna;
+    private final int checkpointInterval;
+    private long commandCount = 0;
+    private long errorCount = 0;
+
+    /**
+     * Creates a runner that saves the changes of every checkpointInterval commands, or only at the end
+     * if it is 0. The Luna's storage should hold changes back until flushed, as Durability.NONE does.
+     */
+    public ScriptRunner(Luna luna, int checkpointInterval) {
+        assert luna != null : "Luna should not be null";
+        assert checkpointInterval >= 0 : "Checkpoint interval should not be negative";
+
+        this.luna = luna;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Runs every command from the reader until it ends or a "bye", writing each reply on its own line,
+     * then saves whatever the last checkpoint left unsaved
+     */
+    public void run(BufferedReader commands, Writer replies) throws IOException {
+        String line;
+        while ((line = commands.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            boolean isSuccessful = luna.writeResponse(line, replies);
+            commandCount++;
+            if (!isSuccessful) {
+                errorCount++;
+            }
+            replies.write('\n');
+
+            if (luna.shouldExit()) {
+                // bye has already closed the storage, saving everything
+                break;
+            }
+            if (checkpointInterval > 0 && commandCount % checkpointInterval == 0) {
+                luna.flush();
+            }
+        }
+        if (!luna.shouldExit()) {
+            luna.flush();
+        }
+        replies.flush();
+    }
+
+    public long getCommandCount() {
+        return commandCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Runs a script given by "--script FILE", or "-" for standard input, and reports the throughput
+     */
+    public static void main(String[] args) {
+        String scriptFile = null;
+        String outputFile = null;
+        String dataFile = DEFAULT_DATA_FILE;
+        int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 >= args.length) {
+                    throw new LunaException("Missing value for " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                case "--script":
+                    scriptFile = value;
+                    break;
+                case "--output":
+                    outputFile = value;
+                    break;
+                case "--data":
+                    dataFile = value;
+                    break;
+                case "--checkpoint":
+                    checkpointInterval = Integer.parseInt(value);
+                    if (checkpointInterval < 0) {
+                        throw new LunaException("Checkpoint interval should not be negative");
+                    }
+                    break;
+                default:
+                    throw new LunaException("Unknown option " + option);
+                }
+            }
+            if (scriptFile == null) {
+                throw new LunaException("Please give a script with --script");
+            }
+        } catch (LunaException | NumberFormatException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println("Usage: --script FILE|- [--output FILE] [--data FILE] [--checkpoint N]");
+            return;
+        }
+
+        Storage storage = Storage.fromSystemProperties(dataFile);
+        storage.setDurability(Durability.NONE);
+        Luna luna = new Luna(storage);
+        ScriptRunner runner = new ScriptRunner(luna, checkpointInterval);
+
+        long start = System.nanoTime();
+        try (BufferedReader commands = scriptFile.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(scriptFile), StandardCharsets.UTF_8);
+                Writer replies = outputFile == null
+                        ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+                                OUTPUT_BUFFER_CHARS)
+                        : Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8)) {
+            runner.run(commands, replies);
+        } catch (IOException e) {
+            System.err.println("Error running script: " + e.getMessage());
+        } finally {
+            luna.close();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        // Reported on standard error so it never mixes with replies written to standard output
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        System.err.printf("Ran %d commands (%d errors) in %.2f s: %.0f commands/sec%n", runner.getCommandCount(),
+                runner.getErrorCount(), seconds, runner.getCommandCount() / seconds);
+    }
+}
@@ -0,0 +1,19 @@
+package luna;
+
+/**
+ * One of several clients sharing a Luna. Undo and redo only reverse changes made in the same session,
+ * since changes made by other clients in between may have moved the tasks they refer to, and next and
+ * prev continue from the last page the session was shown.
+ */
+public class Session {
+    // Set by the writer thread or by readers of a snapshot, but never by both at once for one session
+    private volatile PageCursor pageCursor;
+
+    PageCursor getPageCursor() {
+        return pageCursor;
+    }
+
+    void setPageCursor(PageCursor pageCursor) {
+        this.pageCursor = pageCursor;
+    }
+}
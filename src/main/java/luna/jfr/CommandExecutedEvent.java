@@ -0,0 +1,55 @@
+package luna.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one command, from parsing the input to formatting the reply
+ */
+@Name("luna.CommandExecuted")
+@Label("Command Executed")
+@Category({"Luna", "Command"})
+@Description("Parsing and running one command and formatting its reply")
+@StackTrace(false)
+public class CommandExecutedEvent extends Event {
+    @Label("Command Type")
+    private String commandType;
+
+    @Label("Task Count")
+    @Description("Tasks in the list after the command")
+    private int taskCount;
+
+    @Label("Undo History Time")
+    @Description("Time spent recording how to undo the command")
+    @Timespan(Timespan.NANOSECONDS)
+    private long undoHistoryTime;
+
+    @Label("Persist Time")
+    @Description("Time spent saving or journaling the change")
+    @Timespan(Timespan.NANOSECONDS)
+    private long persistTime;
+
+    @Label("Succeeded")
+    private boolean isSuccessful;
+
+    /**
+     * Ends the event and commits it if it is enabled and lasted past its threshold
+     */
+    public void complete(String commandType, int taskCount, long undoHistoryNanos, long persistNanos,
+            boolean isSuccessful) {
+        end();
+        if (shouldCommit()) {
+            this.commandType = commandType;
+            this.taskCount = taskCount;
+            this.undoHistoryTime = undoHistoryNanos;
+            this.persistTime = persistNanos;
+            this.isSuccessful = isSuccessful;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package luna.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one search of the task list
+ */
+@Name("luna.SearchExecuted")
+@Label("Search Executed")
+@Category({"Luna", "Search"})
+@Description("Finding the tasks that match a keyword or words")
+@StackTrace(false)
+public class SearchExecutedEvent extends Event {
+    @Label("Mode")
+    @Description("contains, all words or any word")
+    private String mode;
+
+    @Label("Indexed")
+    @Description("Whether the search index narrowed the tasks checked")
+    private boolean isIndexed;
+
+    @Label("Keyword Length")
+    private int keywordLength;
+
+    @Label("Hits")
+    private int hits;
+
+    @Label("Scanned")
+    @Description("Tasks checked, or index entries read, to find the hits")
+    private long scanned;
+
+    /**
+     * Ends the event and commits it if it is enabled and lasted past its threshold
+     */
+    public void complete(String mode, boolean isIndexed, int keywordLength, int hits, long scanned) {
+        end();
+        if (shouldCommit()) {
+            this.mode = mode;
+            this.isIndexed = isIndexed;
+            this.keywordLength = keywordLength;
+            this.hits = hits;
+            this.scanned = scanned;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package luna.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for loading the data file and replaying its journal
+ */
+@Name("luna.StorageLoad")
+@Label("Storage Load")
+@Category({"Luna", "Storage"})
+@Description("Reading the data file, parsing its tasks and replaying the journal")
+@StackTrace(false)
+public class StorageLoadEvent extends Event {
+    @Label("Format")
+    @Description("text, parallel text, lazy text, binary or none if there is no data file yet")
+    private String format;
+
+    @Label("File Size")
+    @DataAmount
+    private long bytes;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Parse Failures")
+    @Description("Lines skipped because they are not valid tasks")
+    private long parseFailures;
+
+    /**
+     * Ends the event and commits it if it is enabled and lasted past its threshold
+     */
+    public void complete(String format, long bytes, int taskCount, long parseFailures) {
+        end();
+        if (shouldCommit()) {
+            this.format = format;
+            this.bytes = bytes;
+            this.taskCount = taskCount;
+            this.parseFailures = parseFailures;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package luna.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for encoding the whole task list and writing it over the data file
+ */
+@Name("luna.StorageSave")
+@Label("Storage Save")
+@Category({"Luna", "Storage"})
+@Description("Encoding the task list and writing it over the data file")
+@StackTrace(false)
+public class StorageSaveEvent extends Event {
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Format")
+    private String format;
+
+    @Label("Forced To Disk")
+    private boolean isForced;
+
+    /**
+     * Ends the event and commits it if it is enabled and lasted past its threshold
+     */
+    public void complete(int taskCount, long bytes, String format, boolean isForced) {
+        end();
+        if (shouldCommit()) {
+            this.taskCount = taskCount;
+            this.bytes = bytes;
+            this.format = format;
+            this.isForced = isForced;
+            commit();
+        }
+    }
+}
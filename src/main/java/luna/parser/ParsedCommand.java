@@ -1,21 +1,34 @@
 package luna.parser;
 
+import java.util.List;
+
 /**
  * Simple data structure to hold parsed command information
  */
 public class ParsedCommand {
     private String commandType;
     private String arguments;
+    private List<String> taskReferences;
 
     /**
      * Constructs a ParsedCommand with the specified command type and arguments
      */
     public ParsedCommand(String commandType, String arguments) {
+        this(commandType, arguments, List.of());
+    }
+
+    /**
+     * Constructs a ParsedCommand for a command that acts on the tasks given by the references, each
+     * a task number, a range of task numbers or a task id
+     */
+    public ParsedCommand(String commandType, String arguments, List<String> taskReferences) {
         assert commandType != null : "Command type should not be null";
         assert arguments != null : "Arguments should not be null (use empty string if no args)";
+        assert taskReferences != null : "Task references should not be null (use empty list if none)";
 
         this.commandType = commandType;
         this.arguments = arguments;
+        this.taskReferences = taskReferences;
 
         assert this.commandType.equals(commandType) : "Command type should be set correctly";
         assert this.arguments.equals(arguments) : "Arguments should be set correctly";
@@ -31,6 +44,19 @@ public class ParsedCommand {
         return arguments;
     }
 
+    public List<String> getTaskReferences() {
+        assert taskReferences != null : "Task references should never be null";
+        return taskReferences;
+    }
+
+    /**
+     * Checks if this command changes nothing, so it can run on a snapshot of the tasks
+     */
+    public boolean isReadOnly() {
+        return commandType.equals("list") || commandType.equals("find") || commandType.equals("next")
+                || commandType.equals("prev") || commandType.equals("stats");
+    }
+
     /**
      * Checks if this command is an exit command
      */
@@ -1,5 +1,8 @@
 package luna.parser;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import luna.exception.LunaException;
 
 /**
@@ -46,26 +49,35 @@ public class Parser {
         assert arguments != null : "Arguments should not be null";
 
         switch (commandWord) {
+        case "list":
+            return new ParsedCommand("list", arguments);
+
+        case "next":
+            return new ParsedCommand("next", arguments);
+
+        case "prev":
+            return new ParsedCommand("prev", arguments);
+
         case "mark":
             if (arguments.isBlank()) {
                 throw new LunaException("Please provide a task number to mark");
             }
             assert !arguments.isBlank() : "Arguments should not be blank after validation";
-            return new ParsedCommand("mark", arguments);
+            return new ParsedCommand("mark", arguments, parseTaskReferences(arguments));
 
         case "unmark":
             if (arguments.isBlank()) {
                 throw new LunaException("Please provide a task number to unmark");
             }
             assert !arguments.isBlank() : "Arguments should not be blank after validation";
-            return new ParsedCommand("unmark", arguments);
+            return new ParsedCommand("unmark", arguments, parseTaskReferences(arguments));
 
         case "delete":
             if (arguments.isBlank()) {
                 throw new LunaException("Please give a task number to delete");
             }
             assert !arguments.isBlank() : "Arguments should not be blank after validation";
-            return new ParsedCommand("delete", arguments);
+            return new ParsedCommand("delete", arguments, parseTaskReferences(arguments));
 
         case "todo":
             return new ParsedCommand("todo", arguments);
@@ -86,8 +98,31 @@ public class Parser {
         case "undo":
             return new ParsedCommand("undo", arguments);
 
+        case "redo":
+            return new ParsedCommand("redo", arguments);
+
+        case "stats":
+            return new ParsedCommand("stats", arguments);
+
         default:
             throw new LunaException("Sorry! I dont gets");
         }
     }
+
+    /**
+     * Splits comma-separated task references such as "3", "1-500" or "#7" out of the arguments
+     */
+    private static List<String> parseTaskReferences(String arguments) throws LunaException {
+        List<String> references = new ArrayList<>();
+        for (String part : arguments.split(",", -1)) {
+            String reference = part.trim();
+            if (reference.isEmpty()) {
+                throw new LunaException("Please separate task numbers with single commas");
+            }
+            references.add(reference);
+        }
+
+        assert !references.isEmpty() : "There should be at least one task reference";
+        return references;
+    }
 }
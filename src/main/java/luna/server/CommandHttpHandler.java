@@ -0,0 +1,85 @@
+package luna.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import luna.Session;
+import luna.exception.LunaException;
+
+/**
+ * Answers POST /command?list=NAME with a body like {"command": "list"} by running the command and
+ * replying {"response": "..."}, or {"error": "..."} with status 400 when the request is malformed
+ */
+class CommandHttpHandler implements HttpHandler {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final LunaServer server;
+
+    CommandHttpHandler(LunaServer server) {
+        this.server = server;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                reply(exchange, 405, "error", "Only POST is supported");
+                return;
+            }
+
+            try {
+                String command = Json.readStringField(readBody(exchange), "command");
+                if (command == null) {
+                    throw new LunaException("The request should have a \"command\" field");
+                }
+                // Each request is a session of its own, so undo only reverses a change made by the same request
+                String response = server.execute(listName(exchange), command, new Session());
+                reply(exchange, 200, "response", response);
+            } catch (LunaException e) {
+                reply(exchange, 400, "error", e.getMessage());
+            } catch (RuntimeException e) {
+                reply(exchange, 500, "error", TcpSession.unwrap(e).toString());
+            }
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException, LunaException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new LunaException("The request body is too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Returns the list named by the "list" query parameter, or the default list if there is none
+     */
+    private static String listName(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("list=")) {
+                    return parameter.substring(5);
+                }
+            }
+        }
+        return LunaServer.DEFAULT_LIST;
+    }
+
+    private static void reply(HttpExchange exchange, int status, String field, String text) throws IOException {
+        byte[] body = ("{" + Json.quote(field) + ": " + Json.quote(text) + "}\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
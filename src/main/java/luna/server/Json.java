@@ -0,0 +1,149 @@
+package luna.server;
+
+import luna.exception.LunaException;
+
+/**
+ * Just enough JSON for the HTTP endpoint: reading a string field from a flat object, and quoting
+ * strings for responses
+ */
+final class Json {
+    private final String text;
+    private int position = 0;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Returns the value of the string field in a JSON object whose values are all strings, or null if
+     * the object has no such field
+     */
+    static String readStringField(String json, String field) throws LunaException {
+        Json reader = new Json(json);
+        String value = null;
+        reader.expect('{');
+        if (reader.peek() == '}') {
+            reader.position++;
+        } else {
+            while (true) {
+                String key = reader.readString();
+                reader.expect(':');
+                String fieldValue = reader.readString();
+                if (key.equals(field)) {
+                    value = fieldValue;
+                }
+                if (reader.peek() == ',') {
+                    reader.position++;
+                } else {
+                    reader.expect('}');
+                    break;
+                }
+            }
+        }
+        if (reader.peek() != 0) {
+            throw new LunaException("Unexpected text after the JSON object");
+        }
+        return value;
+    }
+
+    /**
+     * Returns the text as a JSON string literal
+     */
+    static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '"':
+                quoted.append("\\\"");
+                break;
+            case '\\':
+                quoted.append("\\\\");
+                break;
+            case '\n':
+                quoted.append("\\n");
+                break;
+            case '\r':
+                quoted.append("\\r");
+                break;
+            case '\t':
+                quoted.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    quoted.append(String.format("\\u%04x", (int) c));
+                } else {
+                    quoted.append(c);
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it, or 0 at the end
+     */
+    private char peek() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void expect(char expected) throws LunaException {
+        if (peek() != expected) {
+            throw new LunaException("Expected '" + expected + "' in JSON at position " + position);
+        }
+        position++;
+    }
+
+    private String readString() throws LunaException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+            case 'n':
+                value.append('\n');
+                break;
+            case 'r':
+                value.append('\r');
+                break;
+            case 't':
+                value.append('\t');
+                break;
+            case 'b':
+                value.append('\b');
+                break;
+            case 'f':
+                value.append('\f');
+                break;
+            case 'u':
+                if (position + 4 > text.length()) {
+                    throw new LunaException("Incomplete \\u escape in JSON string");
+                }
+                try {
+                    value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                } catch (NumberFormatException e) {
+                    throw new LunaException("Invalid \\u escape in JSON string");
+                }
+                position += 4;
+                break;
+            default:
+                value.append(escaped);
+            }
+        }
+        throw new LunaException("Unterminated JSON string");
+    }
+}
@@ -0,0 +1,243 @@
+package luna.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpServer;
+
+import luna.Luna;
+import luna.LunaExecutor;
+import luna.Session;
+import luna.exception.LunaException;
+
+/**
+ * Headless server that lets many clients send commands at once to shared Luna instances, over a line
+ * protocol on TCP and a small HTTP endpoint that takes and returns JSON. Each instance is a named task
+ * list kept in its own file in the data directory. Its changes run one at a time on its own writer
+ * thread, while list and find are answered at once from a snapshot.
+ *
+ * <p>Every client connection and HTTP exchange gets its own thread from a pool that grows as needed,
+ * so a slow client never holds up the others.
+ */
+public class LunaServer {
+    public static final String DEFAULT_LIST = "luna";
+    private static final int DEFAULT_TCP_PORT = 4567;
+    private static final int DEFAULT_HTTP_PORT = 8080;
+    private static final String DEFAULT_DATA_DIRECTORY = "./data";
+    private static final Pattern LIST_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path dataDirectory;
+    private final ConcurrentHashMap<String, LunaExecutor> lists = new ConcurrentHashMap<>();
+    // Held while opening a list and while closing, so that no list is opened after close has closed them all
+    private final Object listsLock = new Object();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newCachedThreadPool(new ClientThreadFactory());
+    private ServerSocket serverSocket;
+    private HttpServer httpServer;
+    private volatile boolean isClosed = false;
+
+    /**
+     * Creates a server that keeps its task lists in the given directory
+     */
+    public LunaServer(Path dataDirectory) {
+        assert dataDirectory != null : "Data directory should not be null";
+        this.dataDirectory = dataDirectory;
+    }
+
+    /**
+     * Starts listening on the given ports, where port 0 picks any free port and a negative port leaves
+     * that protocol off
+     */
+    public void start(int tcpPort, int httpPort) throws IOException {
+        if (tcpPort >= 0) {
+            serverSocket = new ServerSocket(tcpPort);
+            // Not a daemon, so the server keeps running until it is closed
+            new Thread(this::acceptClients, "luna-accept").start();
+        }
+        if (httpPort >= 0) {
+            httpServer = HttpServer.create(new InetSocketAddress(httpPort), 0);
+            httpServer.createContext("/command", new CommandHttpHandler(this));
+            httpServer.setExecutor(executor);
+            httpServer.start();
+        }
+    }
+
+    public int getTcpPort() {
+        return serverSocket == null ? -1 : serverSocket.getLocalPort();
+    }
+
+    public int getHttpPort() {
+        return httpServer == null ? -1 : httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Runs a command of the client's session against the named task list and returns the response. "bye"
+     * only ends the session, since the list stays open for other clients.
+     */
+    public String execute(String listName, String command, Session session) throws LunaException {
+        assert command != null : "Command should not be null";
+
+        if (command.trim().equals("bye")) {
+            return "Goodbye! Hope to see you again";
+        }
+        try {
+            return getList(listName).submit(command, session).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new LunaException("The server is shutting down");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the named task list, loading it on first use
+     */
+    LunaExecutor getList(String listName) throws LunaException {
+        if (listName == null || !LIST_NAME.matcher(listName).matches()) {
+            throw new LunaException("List names should be 1 to 64 letters, digits, '-' or '_'");
+        }
+        LunaExecutor list = lists.get(listName);
+        if (list != null) {
+            // A list closed since is rejected when the command is submitted to it
+            return list;
+        }
+        synchronized (listsLock) {
+            if (isClosed) {
+                throw new LunaException("The server is shutting down");
+            }
+            return lists.computeIfAbsent(listName,
+                    name -> new LunaExecutor(new Luna(dataDirectory.resolve(name + ".txt").toString())));
+        }
+    }
+
+    /**
+     * Stops accepting clients, disconnects the connected ones and writes every task list to disk
+     */
+    public void close() {
+        synchronized (listsLock) {
+            isClosed = true;
+        }
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Error closing server socket: " + e.getMessage());
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        for (Socket client : clients) {
+            closeQuietly(client);
+        }
+        executor.shutdownNow();
+
+        for (LunaExecutor list : lists.values()) {
+            list.close();
+        }
+    }
+
+    private void acceptClients() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                clients.add(client);
+                executor.execute(() -> {
+                    try {
+                        new TcpSession(this, client).run();
+                    } finally {
+                        clients.remove(client);
+                        closeQuietly(client);
+                    }
+                });
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Error accepting client: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // The client is gone either way
+        }
+    }
+
+    /**
+     * Starts a server from options "--port N", "--http-port N" and "--data-dir DIR"
+     */
+    public static void main(String[] args) {
+        int tcpPort = DEFAULT_TCP_PORT;
+        int httpPort = DEFAULT_HTTP_PORT;
+        String dataDirectory = DEFAULT_DATA_DIRECTORY;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 >= args.length) {
+                    throw new LunaException("Missing value for " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                case "--port":
+                    tcpPort = Integer.parseInt(value);
+                    break;
+                case "--http-port":
+                    httpPort = Integer.parseInt(value);
+                    break;
+                case "--data-dir":
+                    dataDirectory = value;
+                    break;
+                default:
+                    throw new LunaException("Unknown option " + option);
+                }
+            }
+        } catch (LunaException | NumberFormatException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println("Usage: --server [--port N] [--http-port N] [--data-dir DIR]");
+            return;
+        }
+
+        LunaServer server = new LunaServer(Paths.get(dataDirectory));
+        try {
+            server.start(tcpPort, httpPort);
+        } catch (IOException e) {
+            System.out.println("Error starting server: " + e.getMessage());
+            server.close();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Luna server listening on TCP port " + server.getTcpPort()
+                + " and HTTP port " + server.getHttpPort());
+    }
+
+    /**
+     * Names client threads and makes them daemons, so open connections never keep the JVM alive
+     */
+    private static class ClientThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "luna-client-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package luna.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+
+import luna.Session;
+import luna.exception.LunaException;
+
+/**
+ * Serves one TCP client. Each line the client sends is a command, answered with a line holding the
+ * number of response lines followed by those lines. "use NAME" switches the session to another task
+ * list and "bye" ends it.
+ */
+class TcpSession implements Runnable {
+    private final LunaServer server;
+    private final Socket socket;
+    private final Session session = new Session();
+    private String listName = LunaServer.DEFAULT_LIST;
+
+    TcpSession(LunaServer server, Socket socket) {
+        this.server = server;
+        this.socket = socket;
+    }
+
+    @Override
+    public void run() {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                writeResponse(out, respond(line));
+                if (line.trim().equals("bye")) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // The client disconnected, which ends the session
+        }
+    }
+
+    private String respond(String line) {
+        String command = line.trim();
+        try {
+            if (command.startsWith("use ")) {
+                String name = command.substring(4).trim();
+                server.getList(name);
+                listName = name;
+                return "Now using task list " + name;
+            }
+            return server.execute(listName, command, session);
+        } catch (LunaException e) {
+            return "Error: " + e.getMessage();
+        } catch (RuntimeException e) {
+            // A command that fails unexpectedly should not end the session, so it is reported like any other
+            return "Error: " + unwrap(e);
+        }
+    }
+
+    /**
+     * Returns what a failed command actually threw, rather than the CompletionException wrapping it
+     */
+    static Throwable unwrap(RuntimeException e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static void writeResponse(BufferedWriter out, String response) throws IOException {
+        String[] lines = response.split("\n", -1);
+        out.write(String.valueOf(lines.length));
+        out.write('\n');
+        for (String responseLine : lines) {
+            out.write(responseLine);
+            out.write('\n');
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,126 @@
+package luna.stats;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a latency histogram for each phase of each command type. One shared instance collects the
+ * latencies of every Luna in the process, and can write its report to a file periodically.
+ */
+public class CommandStats {
+    private static final String FILE_PROPERTY = "luna.stats.file";
+    private static final String INTERVAL_PROPERTY = "luna.stats.interval";
+    private static final long DEFAULT_INTERVAL_SECONDS = 60;
+    private static final CommandStats SHARED = new CommandStats();
+
+    private final Map<String, LatencyHistogram[]> histograms = new ConcurrentHashMap<>();
+    private ScheduledExecutorService dumper;
+
+    /**
+     * Returns the stats shared by every Luna in the process
+     */
+    public static CommandStats shared() {
+        return SHARED;
+    }
+
+    /**
+     * Records the latency of a phase of a command
+     */
+    public void record(String commandType, Phase phase, long nanos) {
+        LatencyHistogram[] phases = histograms.get(commandType);
+        if (phases == null) {
+            phases = histograms.computeIfAbsent(commandType, type -> newHistograms());
+        }
+        phases[phase.ordinal()].record(nanos);
+    }
+
+    /**
+     * Returns the histogram of a phase of a command type, or null if it has never run
+     */
+    public LatencyHistogram get(String commandType, Phase phase) {
+        LatencyHistogram[] phases = histograms.get(commandType);
+        return phases == null ? null : phases[phase.ordinal()];
+    }
+
+    /**
+     * Formats the 50th and 99th percentile and maximum latency of each phase of each command type
+     */
+    public String format() {
+        if (histograms.isEmpty()) {
+            return "No commands have run yet.";
+        }
+        StringBuilder report = new StringBuilder("Latency in microseconds as p50 / p99 / max:");
+        for (Map.Entry<String, LatencyHistogram[]> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram[] phases = entry.getValue();
+            report.append('\n').append(entry.getKey()).append(" x").append(phases[Phase.TOTAL.ordinal()].getCount())
+                    .append(':');
+            appendPhase(report, Phase.TOTAL, phases[Phase.TOTAL.ordinal()]);
+            for (Phase phase : Phase.values()) {
+                if (phase != Phase.TOTAL && phases[phase.ordinal()].getCount() > 0) {
+                    appendPhase(report, phase, phases[phase.ordinal()]);
+                }
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Starts writing the report to the file named by the luna.stats.file system property, every
+     * luna.stats.interval seconds. Does nothing if the property is not set or writing already started.
+     */
+    public synchronized void startDumpingFromSystemProperties() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null || dumper != null) {
+            return;
+        }
+        long interval = Math.max(1, Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS));
+        Path path = Paths.get(file);
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "luna-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(path), interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes the report, headed by the current time, over the file
+     */
+    public void dump(Path path) {
+        try {
+            Files.writeString(path, LocalDateTime.now() + "\n" + format() + "\n", StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Error writing stats: " + e.getMessage());
+        }
+    }
+
+    private static LatencyHistogram[] newHistograms() {
+        LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+        return phases;
+    }
+
+    private static void appendPhase(StringBuilder report, Phase phase, LatencyHistogram histogram) {
+        report.append(phase == Phase.TOTAL ? " " : ", ").append(phase.name().toLowerCase(Locale.ROOT))
+                .append(' ').append(toMicros(histogram.getPercentileNanos(50)))
+                .append(" / ").append(toMicros(histogram.getPercentileNanos(99)))
+                .append(" / ").append(toMicros(histogram.getMaxNanos()));
+    }
+
+    private static String toMicros(long nanos) {
+        return nanos < 10_000 ? String.format(Locale.ROOT, "%.1f", nanos / 1000.0) : Long.toString(nanos / 1000);
+    }
+}
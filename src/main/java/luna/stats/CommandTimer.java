@@ -0,0 +1,53 @@
+package luna.stats;
+
+/**
+ * Times the phases of one command as a series of laps: each lap ends the phase it names, so time is
+ * never counted twice and nothing between laps is missed. Used by one thread for one command.
+ */
+public class CommandTimer {
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long startNanos;
+    private long lapStartNanos;
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final boolean[] isTimed = new boolean[PHASES.length];
+
+    /**
+     * Starts timing a command
+     */
+    public CommandTimer() {
+        startNanos = System.nanoTime();
+        lapStartNanos = startNanos;
+    }
+
+    /**
+     * Counts the time since the previous lap, or the start, towards the phase
+     */
+    public void lap(Phase phase) {
+        assert phase != Phase.TOTAL : "Total time is measured by finish";
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] += now - lapStartNanos;
+        isTimed[phase.ordinal()] = true;
+        lapStartNanos = now;
+    }
+
+    /**
+     * Returns the time counted towards the phase so far
+     */
+    public long getNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Records the time of every phase lapped, and the total, under the command type
+     */
+    public void finish(CommandStats stats, String commandType) {
+        long total = System.nanoTime() - startNanos;
+        for (Phase phase : PHASES) {
+            if (isTimed[phase.ordinal()]) {
+                stats.record(commandType, phase, phaseNanos[phase.ordinal()]);
+            }
+        }
+        stats.record(commandType, Phase.TOTAL, total);
+    }
+}
@@ -0,0 +1,19 @@
+package luna.stats;
+
+/**
+ * Represents a part of running a command that is timed separately
+ */
+public enum Phase {
+    /** Parsing the input into a command */
+    PARSE,
+    /** Changing or searching the tasks */
+    EXECUTE,
+    /** Recording how to undo the change */
+    HISTORY,
+    /** Saving or journaling the change */
+    PERSIST,
+    /** Formatting the reply */
+    RENDER,
+    /** The whole command, from input to reply */
+    TOTAL
+}
@@ -0,0 +1,160 @@
+package luna.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import luna.task.Task;
+
+/**
+ * Writes journal records and snapshots on a single background thread. Records submitted while a
+ * write is in progress are batched into the next write, and only the newest pending snapshot is kept.
+ */
+class BackgroundWriter {
+    private final Storage storage;
+    private final boolean isForced;
+    private final boolean isEager;
+    private final Object lock = new Object();
+
+    private List<String> pendingRecords = new ArrayList<>();
+    // The tasks after the last pending record, saved in full instead if the records cannot be written
+    private List<Task> pendingRecordsTasks;
+    private long pendingRecordsSequence;
+    private List<Task> pendingSnapshot;
+    private long pendingSnapshotSequence;
+    private boolean isWriting = false;
+    private boolean isFlushRequested = false;
+    private boolean isClosed = false;
+    private Thread thread;
+
+    /**
+     * Creates a writer for the storage with the given durability; with FSYNC_COMMAND it only carries
+     * journal compactions, since commands write on the caller's thread
+     */
+    BackgroundWriter(Storage storage, Durability durability) {
+        assert storage != null : "Storage should not be null";
+
+        this.storage = storage;
+        this.isForced = durability == Durability.FSYNC_BATCH || durability == Durability.FSYNC_COMMAND;
+        this.isEager = durability != Durability.NONE;
+    }
+
+    /**
+     * Queues a journal record to be appended in the next batch, along with the tasks it leaves and its
+     * sequence, which are saved as a snapshot instead if the batch cannot be written
+     */
+    void submitRecord(String record, List<Task> tasks, long sequence) {
+        synchronized (lock) {
+            pendingRecords.add(record);
+            pendingRecordsTasks = tasks;
+            pendingRecordsSequence = sequence;
+            wake();
+        }
+    }
+
+    /**
+     * Queues a snapshot of the tasks covering journal records up to the sequence, replacing any
+     * snapshot that has not been written yet
+     */
+    void submitSnapshot(List<Task> tasks, long sequence) {
+        synchronized (lock) {
+            pendingSnapshot = tasks;
+            pendingSnapshotSequence = sequence;
+            wake();
+        }
+    }
+
+    /**
+     * Blocks until everything submitted so far has been written
+     */
+    void flush() {
+        synchronized (lock) {
+            if (!hasPendingWork() && !isWriting) {
+                return;
+            }
+            isFlushRequested = true;
+            wake();
+            try {
+                while (hasPendingWork() || isWriting) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Flushes pending writes and stops the background thread
+     */
+    void close() {
+        flush();
+        synchronized (lock) {
+            isClosed = true;
+            lock.notifyAll();
+        }
+    }
+
+    private boolean hasPendingWork() {
+        return !pendingRecords.isEmpty() || pendingSnapshot != null;
+    }
+
+    private void wake() {
+        if (thread == null && !isClosed) {
+            thread = new Thread(this::run, "luna-storage-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        if (isEager || isFlushRequested) {
+            lock.notifyAll();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<String> records;
+            List<Task> recordsTasks;
+            long recordsSequence;
+            List<Task> snapshot;
+            long snapshotSequence;
+            synchronized (lock) {
+                try {
+                    while (!isClosed && (!hasPendingWork() || !(isEager || isFlushRequested))) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (isClosed && !hasPendingWork()) {
+                    thread = null;
+                    return;
+                }
+                records = pendingRecords;
+                pendingRecords = new ArrayList<>();
+                recordsTasks = pendingRecordsTasks;
+                recordsSequence = pendingRecordsSequence;
+                pendingRecordsTasks = null;
+                snapshot = pendingSnapshot;
+                snapshotSequence = pendingSnapshotSequence;
+                pendingSnapshot = null;
+                isWriting = true;
+            }
+
+            try {
+                if (!storage.writeRecords(records, isForced)) {
+                    storage.writeSnapshot(recordsTasks, recordsSequence, isForced);
+                }
+                if (snapshot != null) {
+                    storage.writeSnapshot(snapshot, snapshotSequence, isForced);
+                }
+            } finally {
+                synchronized (lock) {
+                    isWriting = false;
+                    if (!hasPendingWork()) {
+                        isFlushRequested = false;
+                    }
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+}
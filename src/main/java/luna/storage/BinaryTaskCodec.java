@@ -0,0 +1,232 @@
+package luna.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import luna.exception.LunaException;
+import luna.task.DeadlineTask;
+import luna.task.EventTask;
+import luna.task.Task;
+import luna.task.ToDoTask;
+
+/**
+ * Encodes tasks in Luna's versioned binary data format and decodes them from a file.
+ *
+ * <p>Layout: magic "LUNA", version byte, journal sequence (long), task count (int), then per task a
+ * type byte, a done byte and a length-prefixed UTF-8 description, followed by the due date of a
+ * deadline (kind byte plus epoch day, epoch second or text) or the start and end of an event.
+ */
+final class BinaryTaskCodec {
+    static final int MAGIC = 0x4C554E41;
+    static final byte VERSION = 1;
+
+    private static final byte TYPE_TODO = 'T';
+    private static final byte TYPE_DEADLINE = 'D';
+    private static final byte TYPE_EVENT = 'E';
+    private static final byte DUE_TEXT = 0;
+    private static final byte DUE_DATE = 1;
+    private static final byte DUE_DATE_TIME = 2;
+    // A task takes at least its type, done and description length bytes
+    private static final int MIN_TASK_BYTES = 6;
+
+    private BinaryTaskCodec() {
+    }
+
+    /**
+     * Checks whether the file starts with the binary format's magic number
+     */
+    static boolean isBinary(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] head = in.readNBytes(4);
+            return head.length == 4 && ByteBuffer.wrap(head).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Encodes the tasks, recording that all journal records up to the sequence are included
+     */
+    static byte[] encode(List<Task> tasks, long journalSequence) throws IOException {
+        assert tasks != null : "Tasks to encode should not be null";
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + tasks.size() * 48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(journalSequence);
+        out.writeInt(tasks.size());
+
+        for (Task task : tasks) {
+            assert task != null : "Task in list should not be null";
+            if (task instanceof DeadlineTask) {
+                encodeHeader(out, TYPE_DEADLINE, task);
+                encodeDue(out, (DeadlineTask) task);
+            } else if (task instanceof EventTask) {
+                EventTask event = (EventTask) task;
+                encodeHeader(out, TYPE_EVENT, task);
+                writeString(out, event.getStartTime());
+                writeString(out, event.getEndTime());
+            } else {
+                encodeHeader(out, TYPE_TODO, task);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes every task in the file into the list and returns the journal sequence, or -1 if the file is
+     * truncated or corrupt, in which case only the complete tasks before the damage are decoded. The file is
+     * read rather than mapped, since a mapped file cannot be replaced on some platforms until it is unmapped.
+     * @throws UnsupportedVersionException if the file was written in a newer version of the format
+     */
+    static long decode(Path path, ArrayList<Task> tasks) throws IOException {
+        assert tasks != null : "Tasks to decode into should not be null";
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Data file is too large to read: " + size + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read until the buffer is full or the file ends
+            }
+            buffer.flip();
+            return decode(buffer, tasks);
+        }
+    }
+
+    private static long decode(ByteBuffer buffer, ArrayList<Task> tasks) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a Luna binary data file");
+            }
+            byte version = buffer.get();
+            if (version > VERSION) {
+                throw new UnsupportedVersionException(version);
+            }
+            long journalSequence = buffer.getLong();
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining() / MIN_TASK_BYTES) {
+                // A damaged count must not size the list, or it could exhaust memory before recovery
+                return -1;
+            }
+            tasks.ensureCapacity(tasks.size() + count);
+
+            for (int i = 0; i < count; i++) {
+                Task task = decodeTask(buffer);
+                // task can be null if a record fails validation - skip it like the text loader does
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+            return journalSequence;
+        } catch (BufferUnderflowException e) {
+            return -1;
+        }
+    }
+
+    private static Task decodeTask(ByteBuffer buffer) {
+        byte type = buffer.get();
+        boolean isDone = buffer.get() != 0;
+        String description = readString(buffer);
+
+        try {
+            Task task;
+            switch (type) {
+            case TYPE_TODO:
+                task = new ToDoTask(description);
+                break;
+            case TYPE_DEADLINE:
+                task = decodeDeadline(buffer, description);
+                break;
+            case TYPE_EVENT:
+                String startTime = readString(buffer);
+                String endTime = readString(buffer);
+                task = new EventTask(description, startTime, endTime);
+                break;
+            default:
+                // The length of an unknown record type is unknown, so decoding cannot continue
+                throw new BufferUnderflowException();
+            }
+            task.markDone(isDone);
+            return task;
+        } catch (LunaException e) {
+            return null;
+        }
+    }
+
+    private static Task decodeDeadline(ByteBuffer buffer, String description) throws LunaException {
+        byte kind = buffer.get();
+        switch (kind) {
+        case DUE_DATE:
+            return new DeadlineTask(description, LocalDate.ofEpochDay(buffer.getLong()));
+        case DUE_DATE_TIME:
+            return new DeadlineTask(description, LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC));
+        default:
+            return new DeadlineTask(description, readString(buffer));
+        }
+    }
+
+    private static void encodeHeader(DataOutputStream out, byte type, Task task) throws IOException {
+        out.writeByte(type);
+        out.writeByte(task.isDone() ? 1 : 0);
+        writeString(out, task.getDescription());
+    }
+
+    private static void encodeDue(DataOutputStream out, DeadlineTask deadline) throws IOException {
+        LocalDateTime endDateTime = deadline.getEndDateTime();
+        LocalDate endDate = deadline.getEndDate();
+        if (endDateTime != null && endDateTime.getNano() == 0) {
+            out.writeByte(DUE_DATE_TIME);
+            out.writeLong(endDateTime.toEpochSecond(ZoneOffset.UTC));
+        } else if (endDate != null) {
+            out.writeByte(DUE_DATE);
+            out.writeLong(endDate.toEpochDay());
+        } else {
+            out.writeByte(DUE_TEXT);
+            writeString(out, deadline.getOriginalEndTime());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] encoded = new byte[length];
+        buffer.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Thrown when a data file was written in a newer version of the format than this one can read
+     */
+    static final class UnsupportedVersionException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedVersionException(byte version) {
+            super("Unsupported data file version " + version);
+        }
+    }
+}
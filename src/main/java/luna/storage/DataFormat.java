@@ -0,0 +1,11 @@
+package luna.storage;
+
+/**
+ * Represents the on-disk encoding used for the task snapshot file
+ */
+public enum DataFormat {
+    /** One human-readable task per line, as shown by the list command */
+    TEXT,
+    /** Versioned binary records that are loaded through a memory-mapped file */
+    BINARY
+}
@@ -0,0 +1,15 @@
+package luna.storage;
+
+/**
+ * Represents how eagerly changes to the task list reach the disk
+ */
+public enum Durability {
+    /** Changes are only written when the storage is flushed or closed */
+    NONE,
+    /** Changes are written by a background thread that coalesces bursts of mutations into one write */
+    ASYNC,
+    /** Like ASYNC, but every coalesced write is forced to disk */
+    FSYNC_BATCH,
+    /** Every change is written and forced to disk before the command returns */
+    FSYNC_COMMAND
+}
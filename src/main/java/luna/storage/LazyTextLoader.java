@@ -0,0 +1,171 @@
+package luna.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import luna.task.Task;
+import luna.task.UnparsedTasks;
+
+/**
+ * Indexes the lines of a text data file without parsing most of them, so that tasks can be parsed later when
+ * they are first read. A line is indexed only if parseTaskFromFile accepts it, so loading lazily keeps the
+ * same tasks as loading eagerly
+ */
+final class LazyTextLoader {
+    private static final int HEADER_BYTES = 64;
+    private static final byte[] DEADLINE_MARK = " (by: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT_MARK = " (from: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EVENT_END_MARK = " to: ".getBytes(StandardCharsets.US_ASCII);
+    private static final int NOT_A_TASK = -1;
+    private static final int NOT_DONE = 0;
+    private static final int DONE = 1;
+
+    private LazyTextLoader() {
+    }
+
+    /**
+     * Returns the journal sequence in the header of the text, or -1 if it has none
+     */
+    static long headerSequence(byte[] text) {
+        int end = 0;
+        while (end < text.length && end < HEADER_BYTES && text[end] != '\n') {
+            end++;
+        }
+        return TaskJournal.parseHeader(new String(text, 0, end, StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * Records where each task line of the text starts and whether its task is done, counting the lines
+     * that are not valid tasks in skippedLines
+     */
+    static UnparsedTasks index(byte[] text, LongAdder skippedLines) {
+        int[] lineStarts = new int[Math.max(16, text.length / 40)];
+        BitSet done = new BitSet();
+        int count = 0;
+        int lineStart = headerSequence(text) >= 0 ? lineEndAfter(text, 0) : 0;
+        while (lineStart < text.length) {
+            int next = lineEndAfter(text, lineStart);
+            int lineEnd = next > lineStart && text[next - 1] == '\n' ? next - 1 : next;
+            if (lineEnd > lineStart && text[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+
+            int state = taskState(text, lineStart, lineEnd);
+            if (state != NOT_A_TASK) {
+                if (count == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, count * 2);
+                }
+                done.set(count, state == DONE);
+                lineStarts[count++] = lineStart;
+            } else if (!isBlank(text, lineStart, lineEnd)) {
+                skippedLines.increment();
+            }
+            lineStart = next;
+        }
+        return new UnparsedTasks(text, lineStarts, count, done, Storage::parseTaskFromFile);
+    }
+
+    /**
+     * Returns the position just past the line break ending the line that starts at the position
+     */
+    private static int lineEndAfter(byte[] text, int position) {
+        while (position < text.length && text[position++] != '\n') {
+            // Skip to the line break
+        }
+        return position;
+    }
+
+    /**
+     * Returns whether the task of the line is done, or NOT_A_TASK if parseTaskFromFile rejects the line.
+     * Lines whose fields plainly hold text are judged by their shape, and only the rest are parsed
+     */
+    private static int taskState(byte[] text, int start, int end) {
+        if (end - start < 8 || text[start] != '[') {
+            return NOT_A_TASK;
+        }
+        if (hasPlainFields(text, start, end)) {
+            return text[start + 5] == 'X' ? DONE : NOT_DONE;
+        }
+        Task task = Storage.parseTaskFromFile(new String(text, start, end - start, StandardCharsets.UTF_8));
+        if (task == null) {
+            return NOT_A_TASK;
+        }
+        return task.isDone() ? DONE : NOT_DONE;
+    }
+
+    /**
+     * Checks the line starts with "[T] [X] " in ASCII and each of its fields has a visible character,
+     * with no '/' in the fields of deadlines and events that could split them differently when parsed
+     */
+    private static boolean hasPlainFields(byte[] text, int start, int end) {
+        for (int i = start; i < start + 8; i++) {
+            if (text[i] < 0) {
+                return false;
+            }
+        }
+        int content = start + 8;
+        switch (text[start + 1]) {
+        case 'T':
+            return hasVisible(text, content, end, true);
+        case 'D': {
+            int byIndex = lastIndexOf(text, content, end, DEADLINE_MARK);
+            return byIndex >= 0 && text[end - 1] == ')' && hasVisible(text, content, byIndex, false)
+                    && hasVisible(text, byIndex + DEADLINE_MARK.length, end - 1, false);
+        }
+        case 'E': {
+            int fromIndex = lastIndexOf(text, content, end, EVENT_MARK);
+            if (fromIndex < 0 || text[end - 1] != ')') {
+                return false;
+            }
+            int timeStart = fromIndex + EVENT_MARK.length;
+            int toIndex = lastIndexOf(text, timeStart, end - 1, EVENT_END_MARK);
+            return toIndex >= 0 && hasVisible(text, content, fromIndex, false)
+                    && hasVisible(text, timeStart, toIndex, false)
+                    && hasVisible(text, toIndex + EVENT_END_MARK.length, end - 1, false);
+        }
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Checks the range has a visible ASCII character, and no '/' unless allowed
+     */
+    private static boolean hasVisible(byte[] text, int start, int end, boolean allowsSlash) {
+        boolean hasVisible = false;
+        for (int i = start; i < end; i++) {
+            if (text[i] == '/' && !allowsSlash) {
+                return false;
+            }
+            hasVisible |= text[i] > ' ' && text[i] < 0x7f;
+        }
+        return hasVisible;
+    }
+
+    /**
+     * Returns the position of the last occurrence of the mark within the range, or -1 if there is none
+     */
+    private static int lastIndexOf(byte[] text, int start, int end, byte[] mark) {
+        for (int i = end - mark.length; i >= start; i--) {
+            int matched = 0;
+            while (matched < mark.length && text[i + matched] == mark[matched]) {
+                matched++;
+            }
+            if (matched == mark.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBlank(byte[] text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text[i] > ' ' || text[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
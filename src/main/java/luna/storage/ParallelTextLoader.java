@@ -0,0 +1,193 @@
+package luna.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import luna.task.Task;
+
+/**
+ * Loads large text data files by splitting them into line-aligned chunks that are parsed in parallel
+ * on a ForkJoinPool and reassembled in file order.
+ */
+final class ParallelTextLoader {
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final int SCAN_BYTES = 8 * 1024;
+
+    private ParallelTextLoader() {
+    }
+
+    /**
+     * Appends the tasks in the text file to the list in file order and returns the journal sequence in
+     * its header. Counts the lines that are not valid tasks in skippedLines.
+     */
+    static long load(Path path, ArrayList<Task> tasks, LongAdder skippedLines) throws IOException {
+        assert tasks != null : "Tasks to load into should not be null";
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            long start = 0;
+            long snapshotSequence = 0;
+            long firstLineEnd = findLineEnd(channel, 0, size);
+            byte[] firstLine = read(channel, 0, (int) Math.min(firstLineEnd, SCAN_BYTES));
+            long headerSequence = TaskJournal.parseHeader(new String(firstLine, StandardCharsets.UTF_8).trim());
+            if (headerSequence >= 0) {
+                snapshotSequence = headerSequence;
+                start = firstLineEnd;
+            }
+
+            long[] boundaries = splitIntoChunks(channel, start, size);
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            List<Task>[] results = new List[boundaries.length - 1];
+            try {
+                ForkJoinPool.commonPool().invoke(new ParseChunks(channel, boundaries, results, skippedLines, 0,
+                        results.length));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            int total = 0;
+            for (List<Task> chunk : results) {
+                total += chunk.size();
+            }
+            tasks.ensureCapacity(tasks.size() + total);
+            for (List<Task> chunk : results) {
+                tasks.addAll(chunk);
+            }
+            return snapshotSequence;
+        }
+    }
+
+    /**
+     * Returns chunk boundaries where every boundary after the first falls just past a line break
+     */
+    private static long[] splitIntoChunks(FileChannel channel, long start, long size) throws IOException {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(start);
+        long next = start + CHUNK_BYTES;
+        while (next < size) {
+            long lineEnd = findLineEnd(channel, next, size);
+            if (lineEnd >= size) {
+                break;
+            }
+            boundaries.add(lineEnd);
+            next = lineEnd + CHUNK_BYTES;
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position just past the first line break at or after the position, or the file size
+     */
+    private static long findLineEnd(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Parses every line in the chunk, skipping lines that are not valid tasks
+     */
+    private static List<Task> parseChunk(byte[] bytes, LongAdder skippedLines) {
+        List<Task> tasks = new ArrayList<>(bytes.length / 40);
+        int lineStart = 0;
+        for (int i = 0; i <= bytes.length; i++) {
+            if (i < bytes.length && bytes[i] != '\n') {
+                continue;
+            }
+            int lineEnd = i;
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > lineStart) {
+                String line = new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                Task task = Storage.parseTaskFromFile(line);
+                // task can be null if parsing fails - this is expected behavior
+                if (task != null) {
+                    tasks.add(task);
+                } else if (!line.isBlank()) {
+                    skippedLines.increment();
+                }
+            }
+            lineStart = i + 1;
+        }
+        return tasks;
+    }
+
+    /**
+     * Splits a range of chunks in half until a single chunk remains, which is then parsed
+     */
+    private static class ParseChunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final List<Task>[] results;
+        private final LongAdder skippedLines;
+        private final int from;
+        private final int to;
+
+        ParseChunks(FileChannel channel, long[] boundaries, List<Task>[] results, LongAdder skippedLines,
+                int from, int to) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.results = results;
+            this.skippedLines = skippedLines;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParseChunks(channel, boundaries, results, skippedLines, from, mid),
+                        new ParseChunks(channel, boundaries, results, skippedLines, mid, to));
+                return;
+            }
+
+            long start = boundaries[from];
+            int length = (int) (boundaries[from + 1] - start);
+            try {
+                results[from] = parseChunk(read(channel, start, length), skippedLines);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
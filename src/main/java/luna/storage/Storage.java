@@ -1,37 +1,163 @@
 package luna.storage;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
+import java.util.concurrent.atomic.LongAdder;
 
 import luna.exception.LunaException;
+import luna.jfr.StorageLoadEvent;
+import luna.jfr.StorageSaveEvent;
 import luna.task.DeadlineTask;
 import luna.task.EventTask;
 import luna.task.Task;
 import luna.task.ToDoTask;
+import luna.task.UnparsedTasks;
 
 /**
- * Deals with loading tasks from the file and saving tasks in the file
+ * Deals with loading tasks from the file and saving tasks in the file. Task lists handed to it may be
+ * written later in the background, so they must not change afterwards, as lists from TaskList.getTasks()
+ * never do
  */
 public class Storage {
+    private static final long DEFAULT_COMPACTION_THRESHOLD_BYTES = 1024 * 1024;
+    private static final long DEFAULT_PARALLEL_LOAD_THRESHOLD_BYTES = 8 * 1024 * 1024;
+    private static final String JOURNAL_PROPERTY = "luna.storage.journal";
+    private static final String FORMAT_PROPERTY = "luna.storage.format";
+    private static final String PARALLEL_LOAD_PROPERTY = "luna.storage.parallelLoadThreshold";
+    private static final String DURABILITY_PROPERTY = "luna.storage.durability";
+    private static final String LAZY_LOAD_PROPERTY = "luna.storage.lazyLoad";
+    private static final long MAX_LAZY_LOAD_BYTES = Integer.MAX_VALUE - 8;
+
     private String filePath;
+    private boolean isJournalEnabled;
+    private boolean isLazyLoadEnabled = false;
+    private DataFormat dataFormat = DataFormat.TEXT;
+    private Durability durability = Durability.FSYNC_COMMAND;
+    private BackgroundWriter writer;
+    private TaskJournal journal;
+    private long compactionThresholdBytes = DEFAULT_COMPACTION_THRESHOLD_BYTES;
+    private long parallelLoadThresholdBytes = DEFAULT_PARALLEL_LOAD_THRESHOLD_BYTES;
+
+    // Snapshot writes are serialised so an older background compaction never overwrites a newer save
+    private final Object snapshotLock = new Object();
+    private long writtenSnapshotSequence = -1;
+    private volatile boolean isCompactionPending = false;
+    // Set when the data file is in a newer format, which saving in this one would destroy
+    private boolean isSavingRefused = false;
 
     /**
      * Constructor that creates a Storage instance with the specified file path
      */
     public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructor that creates a Storage instance that optionally journals each mutation
+     * instead of rewriting the whole file
+     */
+    public Storage(String filePath, boolean isJournalEnabled) {
         assert filePath != null : "File path should not be null";
         assert !filePath.trim().isEmpty() : "File path should not be empty";
 
         this.filePath = filePath;
+        this.isJournalEnabled = isJournalEnabled;
+        this.journal = new TaskJournal(Paths.get(filePath + ".journal"));
 
         assert this.filePath.equals(filePath) : "File path should be set correctly";
     }
 
+    /**
+     * Creates a Storage configured from the luna.storage.* system properties
+     */
+    public static Storage fromSystemProperties(String filePath) {
+        Storage storage = new Storage(filePath, Boolean.getBoolean(JOURNAL_PROPERTY));
+        String format = System.getProperty(FORMAT_PROPERTY);
+        if (format != null && format.equalsIgnoreCase("binary")) {
+            storage.setDataFormat(DataFormat.BINARY);
+        }
+        storage.setParallelLoadThreshold(Long.getLong(PARALLEL_LOAD_PROPERTY, DEFAULT_PARALLEL_LOAD_THRESHOLD_BYTES));
+        storage.setLazyLoad(Boolean.getBoolean(LAZY_LOAD_PROPERTY));
+
+        // Interactive use defaults to background writes so commands never wait on the disk
+        String durability = System.getProperty(DURABILITY_PROPERTY, "async");
+        try {
+            storage.setDurability(Durability.valueOf(durability.toUpperCase(Locale.ROOT).replace('-', '_')));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown durability " + durability + ", using async");
+            storage.setDurability(Durability.ASYNC);
+        }
+        return storage;
+    }
+
+    /**
+     * Sets how eagerly changes are written; FSYNC_COMMAND is used unless another level is chosen
+     */
+    public void setDurability(Durability durability) {
+        assert durability != null : "Durability should not be null";
+        // The writer was made for the old level, so it is stopped rather than left parked
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        this.durability = durability;
+    }
+
+    /**
+     * Sets the format used for subsequent saves; loading detects the format of the existing file
+     */
+    public void setDataFormat(DataFormat dataFormat) {
+        assert dataFormat != null : "Data format should not be null";
+        this.dataFormat = dataFormat;
+    }
+
+    /**
+     * Sets the text file size from which loading splits the file into chunks parsed in parallel
+     */
+    public void setParallelLoadThreshold(long thresholdBytes) {
+        assert thresholdBytes >= 0 : "Parallel load threshold should not be negative";
+        this.parallelLoadThresholdBytes = thresholdBytes;
+    }
+
+    /**
+     * Sets whether loadUnparsed indexes the lines of a text file instead of leaving loading to load
+     */
+    public void setLazyLoad(boolean isLazyLoadEnabled) {
+        this.isLazyLoadEnabled = isLazyLoadEnabled;
+    }
+
+    /**
+     * Sets the journal size after which the snapshot is rewritten in the background
+     */
+    public void setCompactionThreshold(long thresholdBytes) {
+        assert thresholdBytes > 0 : "Compaction threshold should be positive";
+        this.compactionThresholdBytes = thresholdBytes;
+    }
+
+    public boolean isJournalEnabled() {
+        return isJournalEnabled;
+    }
+
+    /**
+     * Checks if every change would save all tasks but is held back until flushed, in which case callers
+     * may skip recording changes and save once before flushing
+     */
+    public boolean isSavingDeferred() {
+        return durability == Durability.NONE && !isJournalEnabled;
+    }
+
     /**
      * Loads tasks from the storage file
      * @return ArrayList of tasks loaded from file
@@ -42,30 +168,43 @@ public class Storage {
         ArrayList<Task> tasks = new ArrayList<>();
         assert tasks != null : "Tasks list should be initialized";
 
+        StorageLoadEvent event = new StorageLoadEvent();
+        event.begin();
+        String format = "none";
+        long fileSize = 0;
+        LongAdder skippedLines = new LongAdder();
         try {
-            if (!Files.exists(Paths.get(filePath))) {
-                assert tasks.isEmpty() : "Empty task list should be returned for non-existent file";
+            Path path = Paths.get(filePath);
+            if (!Files.exists(path)) {
+                replayJournal(tasks, 0);
                 return tasks; // Return empty list if no file exists
             }
 
-            Scanner fileScanner = new Scanner(new File(filePath));
-            assert fileScanner != null : "File scanner should be created successfully";
-
-            while (fileScanner.hasNextLine()) {
-                String line = fileScanner.nextLine();
-                assert line != null : "Read line should not be null";
-
-                Task task = parseTaskFromFile(line);
-                // task can be null if parsing fails - this is expected behavior
-                if (task != null) {
-                    int oldSize = tasks.size();
-                    tasks.add(task);
-                    assert tasks.size() == oldSize + 1 : "Task should be added to list";
+            long snapshotSequence;
+            fileSize = Files.size(path);
+            if (BinaryTaskCodec.isBinary(path)) {
+                format = "binary";
+                snapshotSequence = BinaryTaskCodec.decode(path, tasks);
+                if (snapshotSequence < 0) {
+                    recoverFromCorruptFile(path, tasks);
+                    return tasks;
                 }
+            } else if (fileSize >= parallelLoadThresholdBytes) {
+                format = "parallel text";
+                snapshotSequence = ParallelTextLoader.load(path, tasks, skippedLines);
+            } else {
+                format = "text";
+                snapshotSequence = loadText(path, tasks, skippedLines);
             }
-            fileScanner.close();
+            replayJournal(tasks, snapshotSequence);
+        } catch (BinaryTaskCodec.UnsupportedVersionException e) {
+            isSavingRefused = true;
+            System.out.println("Error loading tasks: " + e.getMessage() + " from a newer Luna, so changes will not"
+                    + " be saved over it");
         } catch (IOException e) {
             System.out.println("Error loading tasks: " + e.getMessage());
+        } finally {
+            event.complete(format, fileSize, tasks.size(), skippedLines.sum());
         }
 
         assert tasks != null : "Returned tasks list should never be null";
@@ -73,41 +212,393 @@ public class Storage {
     }
 
     /**
-     * Saves tasks to the storage file
-     * @param tasks ArrayList of tasks to save
+     * Loads the tasks in the storage file without parsing them, if lazy loading is on and the file is
+     * in the text format with no journal records newer than it
+     * @return the unparsed tasks, or null if the tasks should be loaded with load instead
      */
-    public void save(ArrayList<Task> tasks) {
-        assert tasks != null : "Tasks list should not be null when saving";
-        assert filePath != null : "File path should not be null when saving";
+    public UnparsedTasks loadUnparsed() {
+        if (!isLazyLoadEnabled || (journal.exists() && !isJournalEnabled)) {
+            return null;
+        }
 
+        StorageLoadEvent event = new StorageLoadEvent();
+        event.begin();
         try {
-            // Create data directory if it doesn't exist
-            File file = new File(filePath);
-            File parentDir = file.getParentFile();
-            if (parentDir != null && !parentDir.exists()) {
-                boolean created = parentDir.mkdirs();
-                assert created || parentDir.exists() : "Parent directory should exist after creation";
+            Path path = Paths.get(filePath);
+            if (!Files.exists(path) || Files.size(path) > MAX_LAZY_LOAD_BYTES || BinaryTaskCodec.isBinary(path)) {
+                return null;
+            }
+
+            byte[] text = Files.readAllBytes(path);
+            long snapshotSequence = Math.max(0, LazyTextLoader.headerSequence(text));
+            if (journal.hasRecordsAfter(snapshotSequence)) {
+                return null;
             }
+            LongAdder skippedLines = new LongAdder();
+            UnparsedTasks tasks = LazyTextLoader.index(text, skippedLines);
+            // Nothing is left to apply, but replaying sets where the journal continues from
+            journal.replay(new ArrayList<>(), snapshotSequence);
+            writtenSnapshotSequence = snapshotSequence;
+            event.complete("lazy text", text.length, tasks.size(), skippedLines.sum());
+            return tasks;
+        } catch (IOException e) {
+            // load reports the error when it reads the file again
+            return null;
+        }
+    }
+
+    /**
+     * Reads tasks in the human-readable text format, returning the journal sequence in its header and
+     * counting the lines that are not valid tasks in skippedLines
+     */
+    private static long loadText(Path path, ArrayList<Task> tasks, LongAdder skippedLines) throws IOException {
+        Scanner fileScanner = new Scanner(path.toFile());
+        assert fileScanner != null : "File scanner should be created successfully";
+
+        long snapshotSequence = 0;
+        boolean isFirstLine = true;
+        while (fileScanner.hasNextLine()) {
+            String line = fileScanner.nextLine();
+            assert line != null : "Read line should not be null";
 
-            FileWriter writer = new FileWriter(filePath);
-            assert writer != null : "File writer should be created successfully";
+            if (isFirstLine) {
+                isFirstLine = false;
+                long headerSequence = TaskJournal.parseHeader(line);
+                if (headerSequence >= 0) {
+                    snapshotSequence = headerSequence;
+                    continue;
+                }
+            }
 
-            for (Task task : tasks) {
-                assert task != null : "Task in list should not be null";
-                String toString = task.toString();
-                assert toString != null : "Task view should not be null";
-                writer.write(toString + "\n");
+            Task task = parseTaskFromFile(line);
+            // task can be null if parsing fails - this is expected behavior
+            if (task != null) {
+                int oldSize = tasks.size();
+                tasks.add(task);
+                assert tasks.size() == oldSize + 1 : "Task should be added to list";
+            } else if (!line.isBlank()) {
+                skippedLines.increment();
             }
+        }
+        fileScanner.close();
+        return snapshotSequence;
+    }
+
+    /**
+     * Imports tasks from a file in the human-readable text format
+     */
+    public ArrayList<Task> importText(String textFilePath) throws LunaException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        try {
+            loadText(Paths.get(textFilePath), tasks, new LongAdder());
+        } catch (IOException e) {
+            throw new LunaException("Could not import " + textFilePath + ": " + e.getMessage());
+        }
+        return tasks;
+    }
+
+    /**
+     * Exports tasks to a file in the human-readable text format, regardless of the storage format
+     */
+    public void exportText(String textFilePath, List<Task> tasks) throws LunaException {
+        try {
+            Files.write(Paths.get(textFilePath), serialize(tasks), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new LunaException("Could not export " + textFilePath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps copies of a truncated or corrupt data file and its journal, then saves the tasks recovered
+     * from the file, dropping the journal since its records cannot be placed after tasks that may be missing
+     */
+    private void recoverFromCorruptFile(Path path, ArrayList<Task> tasks) throws IOException {
+        Path corruptPath = path.resolveSibling(path.getFileName() + ".corrupt");
+        Files.copy(path, corruptPath, StandardCopyOption.REPLACE_EXISTING);
+        Path journalPath = Paths.get(filePath + ".journal");
+        if (journal.exists()) {
+            Files.copy(journalPath, journalPath.resolveSibling(journalPath.getFileName() + ".corrupt"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        System.out.println("Error loading tasks: data file is truncated or corrupt, keeping a copy in "
+                + corruptPath);
+
+        // Replaying into a throwaway list only finds where the journal ends, so the snapshot replaces it
+        journal.replay(new ArrayList<>(), 0);
+        writeSnapshot(tasks, journal.getLastSequence(), true);
+    }
+
+    /**
+     * Replays journal records newer than the snapshot, folding them back into a plain file
+     * when journaling has since been turned off
+     */
+    private void replayJournal(ArrayList<Task> tasks, long snapshotSequence) throws IOException {
+        journal.replay(tasks, snapshotSequence);
+        writtenSnapshotSequence = snapshotSequence;
+
+        if (!isJournalEnabled && journal.exists()) {
+            // The snapshot must be on disk before the journal it replaces is dropped
+            writeSnapshot(tasks, journal.getLastSequence(), true);
+        }
+    }
+
+    /**
+     * Saves tasks to the storage file, unless it was found in a newer format when loading
+     * @param tasks List of tasks to save
+     */
+    public void save(List<Task> tasks) {
+        assert tasks != null : "Tasks list should not be null when saving";
+        assert filePath != null : "File path should not be null when saving";
+
+        if (isSavingRefused) {
+            return;
+        }
+        long sequence = journal.getLastSequence();
+        if (durability == Durability.FSYNC_COMMAND) {
+            writeSnapshot(tasks, sequence, true);
+        } else {
+            // Tasks are only ever changed in place by marking, which replays idempotently over the snapshot
+            writer().submitSnapshot(tasks, sequence);
+        }
+    }
+
+    /**
+     * Persists a newly appended task
+     */
+    public void recordAdded(List<Task> tasks, Task task) {
+        assert task != null : "Added task should not be null";
+        if (!isJournalEnabled) {
+            save(tasks);
+            return;
+        }
+        appendToJournal(tasks, TaskJournal.ADD, task.toString());
+    }
+
+    /**
+     * Persists a task inserted at the given index
+     */
+    public void recordInserted(List<Task> tasks, int index, Task task) {
+        assert index >= 0 : "Inserted index should be non-negative";
+        assert task != null : "Inserted task should not be null";
+        if (!isJournalEnabled) {
+            save(tasks);
+            return;
+        }
+        appendToJournal(tasks, TaskJournal.INSERT, index + " " + task.toString());
+    }
+
+    /**
+     * Persists a change in the done status of the task at the given index
+     */
+    public void recordMarked(List<Task> tasks, int index, boolean isDone) {
+        assert index >= 0 : "Marked index should be non-negative";
+        if (!isJournalEnabled) {
+            save(tasks);
+            return;
+        }
+        appendToJournal(tasks, TaskJournal.MARK, index + " " + (isDone ? "1" : "0"));
+    }
+
+    /**
+     * Persists the deletion of the task that was at the given index
+     */
+    public void recordDeleted(List<Task> tasks, int index) {
+        assert index >= 0 : "Deleted index should be non-negative";
+        if (!isJournalEnabled) {
+            save(tasks);
+            return;
+        }
+        appendToJournal(tasks, TaskJournal.DELETE, String.valueOf(index));
+    }
+
+    /**
+     * Persists a change in the done status of the tasks at the strictly increasing indices as one record
+     */
+    public void recordMarkedAll(List<Task> tasks, int[] indices, boolean isDone) {
+        assert indices.length > 0 : "There should be at least one marked index";
+        if (!isJournalEnabled) {
+            save(tasks);
+            return;
+        }
+        appendToJournal(tasks, TaskJournal.MARK_ALL, (isDone ? "1" : "0") + " " + TaskJournal.formatIndices(indices));
+    }
+
+    /**
+     * Persists the deletion of the tasks that were at the strictly increasing indices as one record
+     */
+    public void recordDeletedAll(List<Task> tasks, int[] indices) {
+        assert indices.length > 0 : "There should be at least one deleted index";
+        if (!isJournalEnabled) {
+            save(tasks);
+            return;
+        }
+        appendToJournal(tasks, TaskJournal.DELETE_ALL, TaskJournal.formatIndices(indices));
+    }
+
+    /**
+     * Blocks until every change recorded so far has been written
+     */
+    public void flush() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes any pending changes and closes the journal
+     */
+    public void close() {
+        if (writer != null) {
             writer.close();
+            writer = null;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error closing journal: " + e.getMessage());
+        }
+    }
+
+    private BackgroundWriter writer() {
+        if (writer == null) {
+            writer = new BackgroundWriter(this, durability);
+        }
+        return writer;
+    }
+
+    private void appendToJournal(List<Task> tasks, char op, String payload) {
+        if (isSavingRefused) {
+            return;
+        }
+        String record = journal.newRecord(op, payload);
+        long sequence = journal.getLastSequence();
+        if (durability == Durability.FSYNC_COMMAND) {
+            if (!writeRecords(List.of(record), true)) {
+                // Fall back to a full rewrite so the mutation is not lost
+                writeSnapshot(tasks, sequence, true);
+                return;
+            }
+        } else {
+            writer().submitRecord(record, tasks, sequence);
+        }
+
+        if (journal.size() >= compactionThresholdBytes && !isCompactionPending) {
+            // Compaction is never needed for durability, so it always happens in the background
+            isCompactionPending = true;
+            writer().submitSnapshot(tasks, journal.getLastSequence());
+        }
+    }
+
+    /**
+     * Appends journal records, returning false if they could not be written, in which case the caller
+     * should save a snapshot containing them instead
+     */
+    boolean writeRecords(List<String> records, boolean isForced) {
+        try {
+            journal.write(records, isForced);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error writing journal, saving all tasks instead: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Encodes the tasks and atomically replaces the snapshot file with them
+     */
+    void writeSnapshot(List<Task> tasks, long sequence, boolean isForced) {
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        try {
+            byte[] snapshot = encodeSnapshot(tasks, sequence);
+            writeSnapshot(snapshot, sequence, isForced);
+            event.complete(tasks.size(), snapshot.length, dataFormat.name().toLowerCase(Locale.ROOT), isForced);
         } catch (IOException e) {
             System.out.println("Error saving tasks: " + e.getMessage());
         }
     }
 
+    /**
+     * Writes the snapshot to a temporary file that is renamed over the data file, so a crash never
+     * leaves a half-written file, then drops the journal records the snapshot now contains
+     */
+    private void writeSnapshot(byte[] snapshot, long sequence, boolean isForced) {
+        synchronized (snapshotLock) {
+            isCompactionPending = false;
+            if (sequence < writtenSnapshotSequence) {
+                return;
+            }
+            try {
+                Path path = Paths.get(filePath);
+                Path parentDir = path.toAbsolutePath().getParent();
+                if (parentDir != null) {
+                    Files.createDirectories(parentDir);
+                }
+
+                Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+                try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer bytes = ByteBuffer.wrap(snapshot);
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                    if (isForced) {
+                        channel.force(true);
+                    }
+                }
+                moveAtomically(tempPath, path);
+                writtenSnapshotSequence = sequence;
+                journal.discardUpTo(sequence);
+            } catch (IOException e) {
+                System.out.println("Error saving tasks: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Encodes the tasks in the configured data format, headed by the journal sequence they include
+     */
+    private byte[] encodeSnapshot(List<Task> tasks, long sequence) throws IOException {
+        if (dataFormat == DataFormat.BINARY) {
+            return BinaryTaskCodec.encode(tasks, sequence);
+        }
+
+        StringBuilder text = new StringBuilder(tasks.size() * 48);
+        // Folding a journal needs the header too, or a crash before the journal is dropped replays it twice
+        if (isJournalEnabled || sequence > 0) {
+            text.append(TaskJournal.header(sequence)).append('\n');
+        }
+        for (Task task : tasks) {
+            assert task != null : "Task in list should not be null";
+            text.append(task.toString()).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> serialize(List<Task> tasks) {
+        List<String> lines = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            assert task != null : "Task in list should not be null";
+            lines.add(task.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Renames the source over the target, atomically where the file system supports it
+     */
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     /**
      * Parses a task from toString format stored in file
      */
-    private static Task parseTaskFromFile(String line) {
+    static Task parseTaskFromFile(String line) {
         if (line == null || line.trim().isEmpty()) {
             return null;
         }
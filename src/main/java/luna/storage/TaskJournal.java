@@ -0,0 +1,349 @@
+package luna.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import luna.task.Task;
+
+/**
+ * Append-only log of task list mutations that is replayed over the snapshot file on load.
+ * Each record is a single line of the form "SEQUENCE OP PAYLOAD".
+ */
+class TaskJournal {
+    static final char ADD = 'A';
+    static final char INSERT = 'I';
+    static final char MARK = 'M';
+    static final char DELETE = 'D';
+    static final char MARK_ALL = 'N';
+    static final char DELETE_ALL = 'X';
+
+    private static final String HEADER_PREFIX = "#journal ";
+
+    private final Path journalPath;
+    private FileChannel channel;
+    private long lastSequence;
+    private long sizeInBytes;
+
+    /**
+     * Creates a journal backed by the given file
+     */
+    TaskJournal(Path journalPath) {
+        assert journalPath != null : "Journal path should not be null";
+        this.journalPath = journalPath;
+    }
+
+    /**
+     * Returns the snapshot header line recording that all records up to the sequence are included
+     */
+    static String header(long sequence) {
+        return HEADER_PREFIX + sequence;
+    }
+
+    /**
+     * Returns the sequence number in a snapshot header line, or -1 if the line is not a header
+     */
+    static long parseHeader(String line) {
+        if (line == null || !line.startsWith(HEADER_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(line.substring(HEADER_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    boolean exists() {
+        return Files.exists(journalPath);
+    }
+
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    synchronized long size() {
+        return sizeInBytes;
+    }
+
+    /**
+     * Replays every record newer than the snapshot sequence onto the loaded tasks
+     */
+    synchronized void replay(ArrayList<Task> tasks, long snapshotSequence) throws IOException {
+        assert tasks != null : "Tasks to replay onto should not be null";
+
+        lastSequence = Math.max(lastSequence, snapshotSequence);
+        if (!exists()) {
+            return;
+        }
+
+        List<String> records = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+        for (String record : records) {
+            sizeInBytes += record.getBytes(StandardCharsets.UTF_8).length + 1;
+            long sequence = parseSequence(record);
+            // A torn final record from a crash has no valid sequence and is skipped
+            if (sequence <= snapshotSequence) {
+                continue;
+            }
+            lastSequence = Math.max(lastSequence, sequence);
+            applyRecord(tasks, record);
+        }
+    }
+
+    /**
+     * Checks if the journal holds any record newer than the snapshot sequence
+     */
+    synchronized boolean hasRecordsAfter(long snapshotSequence) throws IOException {
+        if (!exists()) {
+            return false;
+        }
+        for (String record : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+            if (parseSequence(record) > snapshotSequence) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Assigns the next sequence number to a mutation and returns its record, which is not yet written
+     */
+    synchronized String newRecord(char op, String payload) {
+        assert payload != null : "Journal payload should not be null";
+        return ++lastSequence + " " + op + " " + payload;
+    }
+
+    /**
+     * Appends the records in a single write, forcing them to disk if requested
+     */
+    synchronized void write(List<String> records, boolean isForced) throws IOException {
+        assert records != null : "Journal records should not be null";
+        if (records.isEmpty()) {
+            return;
+        }
+
+        StringBuilder batch = new StringBuilder();
+        for (String record : records) {
+            batch.append(record).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            if (channel == null) {
+                Path parentDir = journalPath.toAbsolutePath().getParent();
+                if (parentDir != null) {
+                    Files.createDirectories(parentDir);
+                }
+                channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            int length = bytes.remaining();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (isForced) {
+                channel.force(false);
+            }
+            sizeInBytes += length;
+        } catch (IOException e) {
+            // The next write opens the file again rather than reusing a channel that failed
+            closeChannel();
+            throw e;
+        }
+    }
+
+    /**
+     * Drops every record already contained in a snapshot written at the given sequence
+     */
+    synchronized void discardUpTo(long sequence) throws IOException {
+        closeChannel();
+        if (!exists()) {
+            sizeInBytes = 0;
+            return;
+        }
+
+        List<String> remaining = new ArrayList<>();
+        long remainingBytes = 0;
+        for (String record : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+            if (parseSequence(record) > sequence) {
+                remaining.add(record);
+                remainingBytes += record.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        }
+
+        if (remaining.isEmpty()) {
+            Files.deleteIfExists(journalPath);
+        } else {
+            Path tempPath = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+            Files.write(tempPath, remaining, StandardCharsets.UTF_8);
+            Storage.moveAtomically(tempPath, journalPath);
+        }
+        sizeInBytes = remainingBytes;
+    }
+
+    /**
+     * Closes the journal file, keeping its contents
+     */
+    synchronized void close() throws IOException {
+        closeChannel();
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Returns the sequence number at the start of a record, or -1 if it has none
+     */
+    private static long parseSequence(String record) {
+        int space = record.indexOf(' ');
+        if (space <= 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(record.substring(0, space));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Formats strictly increasing indices compactly, with runs of consecutive indices as "FIRST-LAST"
+     * and the rest separated by commas
+     */
+    static String formatIndices(int[] indices) {
+        StringBuilder text = new StringBuilder();
+        int start = 0;
+        while (start < indices.length) {
+            int end = start;
+            while (end + 1 < indices.length && indices[end + 1] == indices[end] + 1) {
+                end++;
+            }
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(indices[start]);
+            if (end > start) {
+                text.append('-').append(indices[end]);
+            }
+            start = end + 1;
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads indices written by formatIndices
+     */
+    private static int[] parseIndices(String text) {
+        String[] runs = text.split(",");
+        int count = 0;
+        int[][] bounds = new int[runs.length][];
+        for (int i = 0; i < runs.length; i++) {
+            int dash = runs[i].indexOf('-');
+            int first = Integer.parseInt(dash < 0 ? runs[i] : runs[i].substring(0, dash));
+            int last = dash < 0 ? first : Integer.parseInt(runs[i].substring(dash + 1));
+            bounds[i] = new int[] {first, last};
+            count += Math.max(0, last - first + 1);
+        }
+
+        int[] indices = new int[count];
+        int next = 0;
+        for (int[] run : bounds) {
+            for (int index = run[0]; index <= run[1]; index++) {
+                indices[next++] = index;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Removes the tasks at the strictly increasing indices in one compacting pass, or none of them if
+     * any index is out of range
+     */
+    private static void removeAll(ArrayList<Task> tasks, int[] indices) {
+        for (int i = 0; i < indices.length; i++) {
+            boolean isInOrder = i == 0 || indices[i - 1] < indices[i];
+            if (!isInOrder || indices[i] < 0 || indices[i] >= tasks.size()) {
+                return;
+            }
+        }
+
+        int kept = 0;
+        int next = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            if (next < indices.length && indices[next] == i) {
+                next++;
+            } else {
+                tasks.set(kept++, tasks.get(i));
+            }
+        }
+        tasks.subList(kept, tasks.size()).clear();
+    }
+
+    /**
+     * Applies one record to the tasks, skipping records that are malformed or out of range
+     */
+    private static void applyRecord(ArrayList<Task> tasks, String record) {
+        String[] parts = record.split(" ", 3);
+        if (parts.length < 3 || parts[1].length() != 1) {
+            return;
+        }
+
+        try {
+            switch (parts[1].charAt(0)) {
+            case ADD:
+                Task task = Storage.parseTaskFromFile(parts[2]);
+                if (task != null) {
+                    tasks.add(task);
+                }
+                break;
+            case INSERT:
+                String[] insertArgs = parts[2].split(" ", 2);
+                int insertIndex = Integer.parseInt(insertArgs[0]);
+                Task inserted = insertArgs.length < 2 ? null : Storage.parseTaskFromFile(insertArgs[1]);
+                if (inserted != null && insertIndex >= 0 && insertIndex <= tasks.size()) {
+                    tasks.add(insertIndex, inserted);
+                }
+                break;
+            case MARK:
+                String[] markArgs = parts[2].split(" ");
+                int markIndex = Integer.parseInt(markArgs[0]);
+                if (markArgs.length >= 2 && markIndex >= 0 && markIndex < tasks.size()) {
+                    tasks.get(markIndex).markDone(markArgs[1].equals("1"));
+                }
+                break;
+            case DELETE:
+                int deleteIndex = Integer.parseInt(parts[2].trim());
+                if (deleteIndex >= 0 && deleteIndex < tasks.size()) {
+                    tasks.remove(deleteIndex);
+                }
+                break;
+            case MARK_ALL:
+                String[] markAllArgs = parts[2].split(" ");
+                if (markAllArgs.length >= 2) {
+                    for (int index : parseIndices(markAllArgs[1])) {
+                        if (index >= 0 && index < tasks.size()) {
+                            tasks.get(index).markDone(markAllArgs[0].equals("1"));
+                        }
+                    }
+                }
+                break;
+            case DELETE_ALL:
+                removeAll(tasks, parseIndices(parts[2].trim()));
+                break;
+            default:
+                break;
+            }
+        } catch (NumberFormatException e) {
+            // Skip records with unreadable indices
+        }
+    }
+}
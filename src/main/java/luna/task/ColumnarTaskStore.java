@@ -0,0 +1,571 @@
+package luna.task;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import luna.exception.LunaException;
+
+/**
+ * Keeps tasks as columns of primitives instead of objects: ids, type bytes, due dates as epoch days or
+ * seconds, a done BitSet, and descriptions and other text as length-prefixed UTF-8 in a byte arena.
+ * Task objects are made only when a task is read, and only the most recently used are cached.
+ *
+ * <p>The columns are split into chunks of up to CHUNK_CAPACITY tasks. Like TaskTree nodes, chunks
+ * remember the edit token of the store that created them, so a snapshot copies only the chunk
+ * directory and each change afterwards copies only the chunk it touches.
+ */
+final class ColumnarTaskStore implements TaskStore {
+    static final int CHUNK_CAPACITY = 1024;
+    private static final int CACHE_CAPACITY = 4096;
+
+    private static final byte TODO = 0;
+    private static final byte DEADLINE_DATE = 1;
+    private static final byte DEADLINE_DATE_TIME = 2;
+    private static final byte DEADLINE_TEXT = 3;
+    private static final byte EVENT = 4;
+
+    private Chunk[] chunks;
+    // The position in the list of the first task of each chunk
+    private int[] chunkStarts;
+    private int chunkCount = 0;
+    private int size = 0;
+    private Object edit = new Object();
+    private final TaskCache cache = new TaskCache(CACHE_CAPACITY);
+
+    ColumnarTaskStore() {
+        this.chunks = new Chunk[4];
+        this.chunkStarts = new int[4];
+    }
+
+    private ColumnarTaskStore(ColumnarTaskStore other) {
+        this.chunks = Arrays.copyOf(other.chunks, Math.max(4, other.chunkCount));
+        this.chunkStarts = Arrays.copyOf(other.chunkStarts, this.chunks.length);
+        this.chunkCount = other.chunkCount;
+        this.size = other.size;
+    }
+
+    /**
+     * Builds a store holding the tasks in order in O(n)
+     */
+    static ColumnarTaskStore of(List<Task> tasks) {
+        assert tasks != null : "Tasks to build from should not be null";
+
+        ColumnarTaskStore store = new ColumnarTaskStore();
+        for (Task task : tasks) {
+            assert task != null : "Task in list should not be null";
+            store.insert(store.size, task);
+        }
+        return store;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int chunkIndex = chunkIndexOf(index);
+        Chunk chunk = chunks[chunkIndex];
+        int row = index - chunkStarts[chunkIndex];
+        Task task = cache.get(chunk.ids[row]);
+        if (task == null) {
+            task = chunk.materialize(row);
+            cache.put(task.getId(), task, edit);
+        }
+        return task;
+    }
+
+    @Override
+    public int indexOfId(long id) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            Chunk chunk = chunks[middle];
+            if (chunk.ids[chunk.count - 1] < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        if (chunkCount == 0) {
+            return -1;
+        }
+        int row = Arrays.binarySearch(chunks[low].ids, 0, chunks[low].count, id);
+        return row < 0 ? -1 : chunkStarts[low] + row;
+    }
+
+    @Override
+    public int scanForId(long id) {
+        for (int i = 0; i < chunkCount; i++) {
+            Chunk chunk = chunks[i];
+            for (int row = 0; row < chunk.count; row++) {
+                if (chunk.ids[row] == id) {
+                    return chunkStarts[i] + row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Task markDone(int index, boolean isDone) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int chunkIndex = chunkIndexOf(index);
+        Chunk chunk = editableChunk(chunkIndex);
+        int row = index - chunkStarts[chunkIndex];
+        chunk.done.set(row, isDone);
+
+        Task task = cache.getOwned(chunk.ids[row], edit);
+        if (task != null) {
+            task.markDone(isDone);
+        } else {
+            task = chunk.materialize(row);
+            cache.put(task.getId(), task, edit);
+        }
+        return task;
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        assert index >= 0 && index <= size : "Index should be within bounds";
+        assert task != null : "Task to insert should not be null";
+
+        if (index == size && (chunkCount == 0 || chunks[chunkCount - 1].count == CHUNK_CAPACITY)) {
+            addChunk(chunkCount, new Chunk(edit), size);
+        }
+        int chunkIndex = index == size ? chunkCount - 1 : chunkIndexOf(index);
+        if (chunks[chunkIndex].count == CHUNK_CAPACITY) {
+            splitChunk(chunkIndex);
+            if (index - chunkStarts[chunkIndex] > chunks[chunkIndex].count) {
+                chunkIndex++;
+            }
+        }
+
+        Chunk chunk = editableChunk(chunkIndex);
+        chunk.insertRow(index - chunkStarts[chunkIndex], task);
+        for (int i = chunkIndex + 1; i < chunkCount; i++) {
+            chunkStarts[i]++;
+        }
+        size++;
+        cache.put(task.getId(), task, edit);
+    }
+
+    @Override
+    public Task remove(int index) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int chunkIndex = chunkIndexOf(index);
+        Chunk chunk = editableChunk(chunkIndex);
+        int row = index - chunkStarts[chunkIndex];
+        Task removed = takeFromCache(chunk, row);
+
+        chunk.removeRow(row);
+        for (int i = chunkIndex + 1; i < chunkCount; i++) {
+            chunkStarts[i]--;
+        }
+        if (chunk.count == 0) {
+            removeChunk(chunkIndex);
+        }
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes the tasks at the strictly increasing positions in one pass that copies the columns of
+     * the rest into new chunks, and returns them in order
+     */
+    @Override
+    public Task[] removeAll(int[] indices) {
+        Task[] removed = new Task[indices.length];
+        ColumnarTaskStore rest = new ColumnarTaskStore();
+        rest.edit = edit;
+        int position = 0;
+        int next = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            Chunk chunk = chunks[i];
+            for (int row = 0; row < chunk.count; row++) {
+                if (next < indices.length && indices[next] == position) {
+                    removed[next++] = takeFromCache(chunk, row);
+                } else {
+                    rest.appendRowFrom(chunk, row);
+                }
+                position++;
+            }
+        }
+        assert next == indices.length : "Every position to remove should be within bounds";
+
+        chunks = rest.chunks;
+        chunkStarts = rest.chunkStarts;
+        chunkCount = rest.chunkCount;
+        size = rest.size;
+        return removed;
+    }
+
+    /**
+     * Returns a store that shares every chunk with this one. Both stores copy shared chunks from then
+     * on, so changes to either one are invisible to the other.
+     */
+    @Override
+    public ColumnarTaskStore snapshot() {
+        edit = new Object();
+        return new ColumnarTaskStore(this);
+    }
+
+    @Override
+    public List<Task> asList() {
+        return new TaskStoreView(snapshot());
+    }
+
+    @Override
+    public boolean keepsTasks() {
+        return false;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int chunkIndex = 0;
+            private int row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return chunkIndex < chunkCount;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Chunk chunk = chunks[chunkIndex];
+                Task cached = cache.get(chunk.ids[row]);
+                // Scans make tasks without caching them, so one search does not push out every other task
+                Task task = cached != null ? cached : chunk.materialize(row);
+                if (++row == chunk.count) {
+                    chunkIndex++;
+                    row = 0;
+                }
+                return task;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached task at the row of the chunk, or makes one, and forgets it
+     */
+    private Task takeFromCache(Chunk chunk, int row) {
+        long id = chunk.ids[row];
+        Task task = cache.get(id);
+        cache.remove(id);
+        return task != null ? task : chunk.materialize(row);
+    }
+
+    /**
+     * Copies the task at the row of another store's chunk to the end of this store without making it
+     */
+    private void appendRowFrom(Chunk source, int row) {
+        if (chunkCount == 0 || chunks[chunkCount - 1].count == CHUNK_CAPACITY) {
+            addChunk(chunkCount, new Chunk(edit), size);
+        }
+        chunks[chunkCount - 1].appendRowFrom(source, row);
+        size++;
+    }
+
+    /**
+     * Returns the index of the chunk holding the position
+     */
+    private int chunkIndexOf(int index) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunkStarts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the chunk itself if this store created it, or puts a copy owned by this store in its place
+     */
+    private Chunk editableChunk(int chunkIndex) {
+        Chunk chunk = chunks[chunkIndex];
+        if (chunk.edit != edit) {
+            chunk = chunk.copy(edit);
+            chunks[chunkIndex] = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Splits a full chunk into two chunks of half its tasks each
+     */
+    private void splitChunk(int chunkIndex) {
+        Chunk full = chunks[chunkIndex];
+        Chunk first = new Chunk(edit);
+        Chunk second = new Chunk(edit);
+        int half = full.count / 2;
+        for (int row = 0; row < full.count; row++) {
+            (row < half ? first : second).appendRowFrom(full, row);
+        }
+        chunks[chunkIndex] = first;
+        addChunk(chunkIndex + 1, second, chunkStarts[chunkIndex] + half);
+    }
+
+    private void addChunk(int chunkIndex, Chunk chunk, int start) {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            chunkStarts = Arrays.copyOf(chunkStarts, chunkCount * 2);
+        }
+        System.arraycopy(chunks, chunkIndex, chunks, chunkIndex + 1, chunkCount - chunkIndex);
+        System.arraycopy(chunkStarts, chunkIndex, chunkStarts, chunkIndex + 1, chunkCount - chunkIndex);
+        chunks[chunkIndex] = chunk;
+        chunkStarts[chunkIndex] = start;
+        chunkCount++;
+    }
+
+    private void removeChunk(int chunkIndex) {
+        System.arraycopy(chunks, chunkIndex + 1, chunks, chunkIndex, chunkCount - chunkIndex - 1);
+        System.arraycopy(chunkStarts, chunkIndex + 1, chunkStarts, chunkIndex, chunkCount - chunkIndex - 1);
+        chunks[--chunkCount] = null;
+    }
+
+    /**
+     * The columns of up to CHUNK_CAPACITY consecutive tasks
+     */
+    private static class Chunk {
+        private final Object edit;
+        private final long[] ids = new long[CHUNK_CAPACITY];
+        private final byte[] types = new byte[CHUNK_CAPACITY];
+        // Epoch days or seconds of deadlines with a parsed due date
+        private final long[] dues = new long[CHUNK_CAPACITY];
+        // Where the text fields of each task start in the arena
+        private final int[] textStarts = new int[CHUNK_CAPACITY];
+        private final BitSet done = new BitSet(CHUNK_CAPACITY);
+        private byte[] arena = new byte[256];
+        private int arenaLength = 0;
+        // Bytes of the arena that belong to tasks since removed
+        private int garbageLength = 0;
+        private int count = 0;
+
+        Chunk(Object edit) {
+            this.edit = edit;
+        }
+
+        /**
+         * Returns a copy owned by another store, leaving out the text of removed tasks
+         */
+        Chunk copy(Object edit) {
+            Chunk copy = new Chunk(edit);
+            for (int row = 0; row < count; row++) {
+                copy.appendRowFrom(this, row);
+            }
+            return copy;
+        }
+
+        void insertRow(int row, Task task) {
+            assert count < CHUNK_CAPACITY : "Chunk should have room for the task";
+
+            shiftRows(row, 1);
+            ids[row] = task.getId();
+            done.set(row, task.isDone());
+            textStarts[row] = arenaLength;
+            if (task instanceof DeadlineTask) {
+                encodeDeadline(row, (DeadlineTask) task);
+            } else if (task instanceof EventTask) {
+                EventTask event = (EventTask) task;
+                types[row] = EVENT;
+                appendText(task.getDescription());
+                appendText(event.getStartTime());
+                appendText(event.getEndTime());
+            } else {
+                types[row] = TODO;
+                appendText(task.getDescription());
+            }
+        }
+
+        void removeRow(int row) {
+            garbageLength += textLength(row);
+            shiftRows(row + 1, -1);
+            if (garbageLength > 4096 && garbageLength > arenaLength / 2) {
+                compact();
+            }
+        }
+
+        void appendRowFrom(Chunk source, int row) {
+            assert count < CHUNK_CAPACITY : "Chunk should have room for the task";
+
+            int length = source.textLength(row);
+            ensureArenaCapacity(length);
+            System.arraycopy(source.arena, source.textStarts[row], arena, arenaLength, length);
+            ids[count] = source.ids[row];
+            types[count] = source.types[row];
+            dues[count] = source.dues[row];
+            done.set(count, source.done.get(row));
+            textStarts[count] = arenaLength;
+            arenaLength += length;
+            count++;
+        }
+
+        /**
+         * Makes a task object from the columns of the row
+         */
+        Task materialize(int row) {
+            int[] position = {textStarts[row]};
+            String description = readText(position);
+            Task task;
+            try {
+                switch (types[row]) {
+                case DEADLINE_DATE:
+                    task = new DeadlineTask(description, LocalDate.ofEpochDay(dues[row]));
+                    break;
+                case DEADLINE_DATE_TIME:
+                    task = new DeadlineTask(description, LocalDateTime.ofEpochSecond(dues[row], 0, ZoneOffset.UTC));
+                    break;
+                case DEADLINE_TEXT:
+                    task = new DeadlineTask(description, readText(position));
+                    break;
+                case EVENT:
+                    String startTime = readText(position);
+                    task = new EventTask(description, startTime, readText(position));
+                    break;
+                default:
+                    task = new ToDoTask(description);
+                    break;
+                }
+            } catch (LunaException e) {
+                throw new AssertionError("Stored tasks should always be valid", e);
+            }
+            task.setId(ids[row]);
+            task.markDone(done.get(row));
+            return task;
+        }
+
+        private void encodeDeadline(int row, DeadlineTask deadline) {
+            LocalDateTime endDateTime = deadline.getEndDateTime();
+            LocalDate endDate = deadline.getEndDate();
+            appendText(deadline.getDescription());
+            if (endDateTime != null && endDateTime.getNano() == 0) {
+                types[row] = DEADLINE_DATE_TIME;
+                dues[row] = endDateTime.toEpochSecond(ZoneOffset.UTC);
+            } else if (endDate != null) {
+                types[row] = DEADLINE_DATE;
+                dues[row] = endDate.toEpochDay();
+            } else {
+                types[row] = DEADLINE_TEXT;
+                appendText(deadline.getOriginalEndTime());
+            }
+        }
+
+        /**
+         * Moves the rows from the given one onwards by the distance, keeping their text where it is
+         */
+        private void shiftRows(int fromRow, int distance) {
+            int moved = count - fromRow;
+            System.arraycopy(ids, fromRow, ids, fromRow + distance, moved);
+            System.arraycopy(types, fromRow, types, fromRow + distance, moved);
+            System.arraycopy(dues, fromRow, dues, fromRow + distance, moved);
+            System.arraycopy(textStarts, fromRow, textStarts, fromRow + distance, moved);
+            if (distance > 0) {
+                for (int row = count - 1; row >= fromRow; row--) {
+                    done.set(row + distance, done.get(row));
+                }
+            } else {
+                for (int row = fromRow; row < count; row++) {
+                    done.set(row + distance, done.get(row));
+                }
+                done.clear(count + distance, count);
+            }
+            count += distance;
+        }
+
+        /**
+         * Rewrites the arena without the text of removed tasks
+         */
+        private void compact() {
+            byte[] compacted = new byte[Math.max(256, arenaLength - garbageLength)];
+            int length = 0;
+            for (int row = 0; row < count; row++) {
+                int textLength = textLength(row);
+                System.arraycopy(arena, textStarts[row], compacted, length, textLength);
+                textStarts[row] = length;
+                length += textLength;
+            }
+            arena = compacted;
+            arenaLength = length;
+            garbageLength = 0;
+        }
+
+        /**
+         * Returns the number of arena bytes taken by the text fields of the row
+         */
+        private int textLength(int row) {
+            int fieldCount = types[row] == EVENT ? 3 : types[row] == DEADLINE_TEXT ? 2 : 1;
+            int[] position = {textStarts[row]};
+            for (int i = 0; i < fieldCount; i++) {
+                int length = readLength(position);
+                position[0] += length;
+            }
+            return position[0] - textStarts[row];
+        }
+
+        /**
+         * Appends the text as UTF-8 after its length in 7-bit groups, low group first
+         */
+        private void appendText(String text) {
+            byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+            ensureArenaCapacity(encoded.length + 5);
+            int length = encoded.length;
+            while (length >= 0x80) {
+                arena[arenaLength++] = (byte) (length | 0x80);
+                length >>>= 7;
+            }
+            arena[arenaLength++] = (byte) length;
+            System.arraycopy(encoded, 0, arena, arenaLength, encoded.length);
+            arenaLength += encoded.length;
+        }
+
+        /**
+         * Reads the text at the position and moves the position past it
+         */
+        private String readText(int[] position) {
+            int length = readLength(position);
+            String text = new String(arena, position[0], length, StandardCharsets.UTF_8);
+            position[0] += length;
+            return text;
+        }
+
+        private int readLength(int[] position) {
+            int length = 0;
+            int shift = 0;
+            byte next;
+            do {
+                next = arena[position[0]++];
+                length |= (next & 0x7F) << shift;
+                shift += 7;
+            } while (next < 0);
+            return length;
+        }
+
+        private void ensureArenaCapacity(int extra) {
+            if (arenaLength + extra > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package luna.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.Temporal;
+
+/**
+ * Recognises the date formats accepted by deadlines in a single pass over the characters, without
+ * regular expressions or intermediate strings.
+ *
+ * <p>Inputs with the right shape but unusual field values (e.g. Feb 30 or 2400) are handed to the cached
+ * formatter for that format, so results are always identical to parsing with the formatter directly.
+ */
+final class DateTimeLexer {
+    static final DateTimeFormatter DISPLAY_DATE_TIME = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mma");
+    static final DateTimeFormatter DISPLAY_DATE = DateTimeFormatter.ofPattern("MMM dd yyyy");
+
+    private static final DateTimeFormatter ISO_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private static final DateTimeFormatter SLASH_DATE_TIME = DateTimeFormatter.ofPattern("d/M/yyyy HHmm");
+    private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter SLASH_DATE = DateTimeFormatter.ofPattern("d/M/yyyy");
+    private static final String[] MONTH_ABBREVIATIONS = new String[12];
+    private static final String AM;
+    private static final String PM;
+
+    // Month and AM/PM texts come from the same locale as the formatters, so both paths agree
+    static {
+        DateTimeFormatter month = DateTimeFormatter.ofPattern("MMM");
+        for (int i = 0; i < 12; i++) {
+            MONTH_ABBREVIATIONS[i] = LocalDate.of(2000, i + 1, 1).format(month);
+        }
+        DateTimeFormatter meridiem = DateTimeFormatter.ofPattern("a");
+        AM = LocalTime.MIDNIGHT.format(meridiem);
+        PM = LocalTime.NOON.format(meridiem);
+    }
+
+    private DateTimeLexer() {
+    }
+
+    /**
+     * Parses a date with an optional time in any supported format, ignoring surrounding whitespace
+     * @return a LocalDateTime, a LocalDate, or null if the text is not a supported date
+     */
+    static Temporal parse(String text) {
+        assert text != null : "Text to parse should not be null";
+
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        // The fourth and fifth characters alone tell the candidate formats apart
+        if (end - start > 4 && text.charAt(start + 3) == ' ') {
+            return parseDisplay(text, start, end);
+        }
+        if (end - start > 4 && text.charAt(start + 4) == '-') {
+            return parseIso(text, start, end);
+        }
+        return parseSlash(text, start, end);
+    }
+
+    /**
+     * Parses "MMM dd yyyy" or "MMM dd yyyy, h:mma"
+     */
+    private static Temporal parseDisplay(String text, int start, int end) {
+        int length = end - start;
+        if ((length != 11 && length != 19 && length != 20)
+                || !isWord(text, start, 3) || !isDigits(text, start + 4, 2)
+                || text.charAt(start + 6) != ' ' || !isDigits(text, start + 7, 4)) {
+            return null;
+        }
+
+        int month = monthOf(text, start);
+        int day = digits(text, start + 4, 2);
+        int year = digits(text, start + 7, 4);
+        if (length == 11) {
+            return isValidDate(year, month, day)
+                    ? LocalDate.of(year, month, day)
+                    : parseSlowly(text, start, end, DISPLAY_DATE, false);
+        }
+
+        // ", h:mma" with a one or two digit hour
+        int hourLength = length - 18;
+        int colon = start + 13 + hourLength;
+        if (text.charAt(start + 11) != ',' || text.charAt(start + 12) != ' '
+                || !isDigits(text, start + 13, hourLength) || text.charAt(colon) != ':'
+                || !isDigits(text, colon + 1, 2) || text.charAt(end - 1) != 'M') {
+            return null;
+        }
+        char meridiem = text.charAt(end - 2);
+        if (meridiem != 'A' && meridiem != 'P') {
+            return null;
+        }
+
+        int hour = digits(text, start + 13, hourLength);
+        int minute = digits(text, colon + 1, 2);
+        boolean isPm = meridiem == 'P';
+        if (!isValidDate(year, month, day) || hour < 1 || hour > 12 || minute > 59
+                || !text.regionMatches(end - 2, isPm ? PM : AM, 0, 2)) {
+            return parseSlowly(text, start, end, DISPLAY_DATE_TIME, true);
+        }
+        int hourOfDay = hour % 12 + (isPm ? 12 : 0);
+        return LocalDateTime.of(year, month, day, hourOfDay, minute);
+    }
+
+    /**
+     * Parses "yyyy-MM-dd" or "yyyy-MM-dd HHmm"
+     */
+    private static Temporal parseIso(String text, int start, int end) {
+        int length = end - start;
+        if ((length != 10 && length != 15)
+                || !isDigits(text, start, 4) || !isDigits(text, start + 5, 2)
+                || text.charAt(start + 7) != '-' || !isDigits(text, start + 8, 2)) {
+            return null;
+        }
+
+        int year = digits(text, start, 4);
+        int month = digits(text, start + 5, 2);
+        int day = digits(text, start + 8, 2);
+        if (length == 10) {
+            return isValidDate(year, month, day)
+                    ? LocalDate.of(year, month, day)
+                    : parseSlowly(text, start, end, ISO_DATE, false);
+        }
+
+        if (text.charAt(start + 10) != ' ' || !isDigits(text, start + 11, 4)) {
+            return null;
+        }
+        return toDateTime(text, start, end, year, month, day, start + 11, ISO_DATE_TIME);
+    }
+
+    /**
+     * Parses "d/M/yyyy" or "d/M/yyyy HHmm" with one or two digit days and months
+     */
+    private static Temporal parseSlash(String text, int start, int end) {
+        int daySlash = indexOfSlash(text, start, end);
+        if (daySlash < 0) {
+            return null;
+        }
+        int monthSlash = indexOfSlash(text, daySlash + 1, end);
+        if (monthSlash < 0) {
+            return null;
+        }
+
+        int yearStart = monthSlash + 1;
+        int length = end - yearStart;
+        if ((length != 4 && length != 9) || !isDigits(text, yearStart, 4)) {
+            return null;
+        }
+
+        int day = digits(text, start, daySlash - start);
+        int month = digits(text, daySlash + 1, monthSlash - daySlash - 1);
+        int year = digits(text, yearStart, 4);
+        if (length == 4) {
+            return isValidDate(year, month, day)
+                    ? LocalDate.of(year, month, day)
+                    : parseSlowly(text, start, end, SLASH_DATE, false);
+        }
+
+        if (text.charAt(yearStart + 4) != ' ' || !isDigits(text, yearStart + 5, 4)) {
+            return null;
+        }
+        return toDateTime(text, start, end, year, month, day, yearStart + 5, SLASH_DATE_TIME);
+    }
+
+    /**
+     * Returns the position of the slash ending a one or two digit field that starts at the position
+     */
+    private static int indexOfSlash(String text, int from, int end) {
+        for (int i = from; i < end && i <= from + 2; i++) {
+            char c = text.charAt(i);
+            if (c == '/') {
+                return i > from ? i : -1;
+            }
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static Temporal toDateTime(String text, int start, int end, int year, int month, int day,
+            int timeStart, DateTimeFormatter formatter) {
+        int hour = digits(text, timeStart, 2);
+        int minute = digits(text, timeStart + 2, 2);
+        if (!isValidDate(year, month, day) || hour > 23 || minute > 59) {
+            return parseSlowly(text, start, end, formatter, true);
+        }
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    /**
+     * Defers to the formatter for inputs whose field values need its resolving rules
+     */
+    private static Temporal parseSlowly(String text, int start, int end, DateTimeFormatter formatter,
+            boolean hasTime) {
+        String trimmed = text.substring(start, end);
+        try {
+            return hasTime ? LocalDateTime.parse(trimmed, formatter) : LocalDate.parse(trimmed, formatter);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        return day <= 28 || day <= Month.of(month).length(Year.isLeap(year));
+    }
+
+    /**
+     * Returns the month number of the abbreviation at the position, or 0 if it is not one
+     */
+    private static int monthOf(String text, int start) {
+        for (int i = 0; i < MONTH_ABBREVIATIONS.length; i++) {
+            String month = MONTH_ABBREVIATIONS[i];
+            if (month.length() == 3 && text.regionMatches(start, month, 0, 3)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isDigits(String text, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWord(String text, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            boolean isWordChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (c >= '0' && c <= '9') || c == '_';
+            if (!isWordChar) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(String text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+}
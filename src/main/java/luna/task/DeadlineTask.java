@@ -1,8 +1,8 @@
 package luna.task;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.temporal.Temporal;
 
 import luna.exception.LunaException;
 
@@ -43,6 +43,64 @@ public class DeadlineTask extends ToDoTask {
             : "At least original end time should be preserved";
     }
 
+    /**
+     * Constructs a DeadlineTask from an already separated description and end time
+     * Throws LunaException if description or endTime is missing
+     */
+    public DeadlineTask(String description, String endTime) throws LunaException {
+        super(description);
+
+        assert endTime != null : "End time should not be null";
+
+        this.taskType = "D";
+        this.originalEndTime = endTime;
+
+        if (originalEndTime.isBlank()) {
+            throw new LunaException("Please provide end time for deadline with /by");
+        }
+
+        parseDateTime(originalEndTime);
+    }
+
+    /**
+     * Constructs a DeadlineTask due at the given date and time without any parsing
+     */
+    public DeadlineTask(String description, LocalDateTime endDateTime) throws LunaException {
+        super(description);
+
+        assert endDateTime != null : "End date time should not be null";
+
+        this.taskType = "D";
+        this.endDateTime = endDateTime;
+        this.hasTime = true;
+        this.originalEndTime = endDateTime.format(DateTimeLexer.DISPLAY_DATE_TIME);
+    }
+
+    /**
+     * Constructs a DeadlineTask due on the given date without any parsing
+     */
+    public DeadlineTask(String description, LocalDate endDate) throws LunaException {
+        super(description);
+
+        assert endDate != null : "End date should not be null";
+
+        this.taskType = "D";
+        this.endDate = endDate;
+        this.hasTime = false;
+        this.originalEndTime = endDate.format(DateTimeLexer.DISPLAY_DATE);
+    }
+
+    /**
+     * Creates a copy of another DeadlineTask without parsing its due date again
+     */
+    protected DeadlineTask(DeadlineTask other) {
+        super(other);
+        this.endDateTime = other.endDateTime;
+        this.endDate = other.endDate;
+        this.originalEndTime = other.originalEndTime;
+        this.hasTime = other.hasTime;
+    }
+
     private static String parseDescription(String input) {
         assert input != null : "Input should not be null when parsing description";
 
@@ -52,7 +110,18 @@ public class DeadlineTask extends ToDoTask {
         assert description != null : "Parsed description should not be null";
 
         // Remove only trailing whitespace, preserve leading spaces as per test expectations
-        return description.replaceAll("\\s+$", "");
+        int end = description.length();
+        while (end > 0 && isRegexWhitespace(description.charAt(end - 1))) {
+            end--;
+        }
+        return description.substring(0, end);
+    }
+
+    /**
+     * Checks for the whitespace characters matched by \s in regular expressions
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     private static String parseEndTime(String input) {
@@ -73,87 +142,59 @@ public class DeadlineTask extends ToDoTask {
     private void parseDateTime(String dateTimeStr) {
         assert dateTimeStr != null : "DateTime string should not be null";
 
-        if (dateTimeStr == null || dateTimeStr.trim().isEmpty()) {
-            this.hasTime = false;
+        Temporal parsed = DateTimeLexer.parse(dateTimeStr);
+        if (parsed instanceof LocalDateTime) {
+            this.endDateTime = (LocalDateTime) parsed;
+            this.hasTime = true;
+            assert endDateTime != null : "Parsed endDateTime should not be null";
+            assert hasTime : "hasTime should be true when endDateTime is set";
             return;
         }
-
-        String trimmed = dateTimeStr.trim();
-        assert trimmed != null : "Trimmed string should not be null";
-        assert !trimmed.isEmpty() : "Trimmed string should not be empty";
-
-        try {
-            // Try to parse already formatted dates (for loading from file)
-            // Format: "MMM dd yyyy, h:mma" (e.g., "Dec 02 2019, 6:00PM")
-            if (trimmed.matches("\\w{3} \\d{2} \\d{4}, \\d{1,2}:\\d{2}[AP]M")) {
-                this.endDateTime = LocalDateTime.parse(trimmed, DateTimeFormatter.ofPattern("MMM dd yyyy, h:mma"));
-                this.hasTime = true;
-                assert endDateTime != null : "Parsed endDateTime should not be null";
-                assert hasTime : "hasTime should be true when endDateTime is set";
-                return;
-            }
-            // Format: "MMM dd yyyy" (e.g., "Dec 02 2019")
-            if (trimmed.matches("\\w{3} \\d{2} \\d{4}")) {
-                this.endDate = LocalDate.parse(trimmed, DateTimeFormatter.ofPattern("MMM dd yyyy"));
-                this.hasTime = false;
-                assert endDate != null : "Parsed endDate should not be null";
-                assert !hasTime : "hasTime should be false when only endDate is set";
-                return;
-            }
-            // Try yyyy-mm-dd HHmm (e.g., 2019-12-02 1800)
-            if (trimmed.matches("\\d{4}-\\d{2}-\\d{2} \\d{4}")) {
-                this.endDateTime = LocalDateTime.parse(trimmed, DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm"));
-                this.hasTime = true;
-                assert endDateTime != null : "Parsed endDateTime should not be null";
-                assert hasTime : "hasTime should be true when endDateTime is set";
-                return;
-            }
-            // Try d/M/yyyy HHmm (e.g., 2/12/2019 1800)
-            if (trimmed.matches("\\d{1,2}/\\d{1,2}/\\d{4} \\d{4}")) {
-                this.endDateTime = LocalDateTime.parse(trimmed, DateTimeFormatter.ofPattern("d/M/yyyy HHmm"));
-                this.hasTime = true;
-                assert endDateTime != null : "Parsed endDateTime should not be null";
-                assert hasTime : "hasTime should be true when endDateTime is set";
-                return;
-            }
-            // Try yyyy-mm-dd (date only)
-            if (trimmed.matches("\\d{4}-\\d{2}-\\d{2}")) {
-                this.endDate = LocalDate.parse(trimmed, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                this.hasTime = false;
-                assert endDate != null : "Parsed endDate should not be null";
-                assert !hasTime : "hasTime should be false when only endDate is set";
-                return;
-            }
-            // Try d/M/yyyy (date only)
-            if (trimmed.matches("\\d{1,2}/\\d{1,2}/\\d{4}")) {
-                this.endDate = LocalDate.parse(trimmed, DateTimeFormatter.ofPattern("d/M/yyyy"));
-                this.hasTime = false;
-                assert endDate != null : "Parsed endDate should not be null";
-                assert !hasTime : "hasTime should be false when only endDate is set";
-                return;
-            }
-        } catch (DateTimeParseException e) {
-            // Fall back to treating as plain text
+        if (parsed instanceof LocalDate) {
+            this.endDate = (LocalDate) parsed;
+            this.hasTime = false;
+            assert endDate != null : "Parsed endDate should not be null";
+            assert !hasTime : "hasTime should be false when only endDate is set";
+            return;
         }
         // Could not parse as date/time, keep as original text
         this.hasTime = false;
         assert !hasTime : "hasTime should be false when parsing fails";
     }
 
+    /**
+     * Returns the parsed due date and time, or null if the deadline has no time component
+     */
+    public LocalDateTime getEndDateTime() {
+        return hasTime ? endDateTime : null;
+    }
+
+    /**
+     * Returns the parsed due date, or null if the deadline has a time component or was not a date
+     */
+    public LocalDate getEndDate() {
+        return hasTime ? null : endDate;
+    }
+
+    public String getOriginalEndTime() {
+        return originalEndTime;
+    }
+
     @Override
-    public String toString() {
+    public void appendTo(Appendable out) throws IOException {
+        super.appendTo(out);
+        out.append(" (by: ");
         if (hasTime && endDateTime != null) {
             // Format with time: "MMM dd yyyy, h:mma" (e.g., "Dec 02 2019, 6:00PM")
-            String formattedDate = endDateTime.format(DateTimeFormatter.ofPattern("MMM dd yyyy, h:mma"));
-            return super.toString() + " (by: " + formattedDate + ")";
+            DateTimeLexer.DISPLAY_DATE_TIME.formatTo(endDateTime, out);
         } else if (!hasTime && endDate != null) {
             // Format date only: "MMM dd yyyy" (e.g., "Dec 02 2019")
-            String formattedDate = endDate.format(DateTimeFormatter.ofPattern("MMM dd yyyy"));
-            return super.toString() + " (by: " + formattedDate + ")";
+            DateTimeLexer.DISPLAY_DATE.formatTo(endDate, out);
         } else {
             // Fall back to original string if parsing failed
-            return super.toString() + " (by: " + originalEndTime + ")";
+            out.append(originalEndTime);
         }
+        out.append(')');
     }
 
     /**
@@ -161,15 +202,6 @@ public class DeadlineTask extends ToDoTask {
      */
     @Override
     public Task copy() {
-        try {
-            // Reconstruct the original input string
-            String originalInput = this.description + " /by " + this.originalEndTime;
-            DeadlineTask copy = new DeadlineTask(originalInput);
-            copy.markDone(this.isDone);
-            return copy;
-        } catch (LunaException e) {
-            // This should not happen for valid existing tasks
-            throw new RuntimeException("Failed to copy DeadlineTask", e);
-        }
+        return new DeadlineTask(this);
     }
 }
@@ -1,4 +1,6 @@
 package luna.task;
+import java.io.IOException;
+
 import luna.exception.LunaException;
 
 /**
@@ -38,6 +40,36 @@ public class EventTask extends ToDoTask {
         assert !endTime.isBlank() : "End time should not be blank after validation";
     }
 
+    /**
+     * Constructs EventTask from an already separated description, start time and end time
+     * Throws LunaException if description, startTime, or endTime is missing
+     */
+    public EventTask(String description, String startTime, String endTime) throws LunaException {
+        super(description);
+
+        assert startTime != null : "Start time should not be null";
+        assert endTime != null : "End time should not be null";
+
+        this.taskType = "E";
+        if (startTime.isBlank()) {
+            throw new LunaException("Please provide start time and /from for event");
+        }
+        if (endTime.isBlank()) {
+            throw new LunaException("Please provide end time and /to for event");
+        }
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    /**
+     * Creates a copy of another EventTask without parsing its fields again
+     */
+    protected EventTask(EventTask other) {
+        super(other);
+        this.startTime = other.startTime;
+        this.endTime = other.endTime;
+    }
+
     private static String parseDescription(String input) {
         assert input != null : "Input should not be null when parsing description";
 
@@ -92,9 +124,18 @@ public class EventTask extends ToDoTask {
         return "";
     }
 
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public String getEndTime() {
+        return endTime;
+    }
+
     @Override
-    public String toString() {
-        return super.toString() + " (from: " + startTime + " to: " + endTime + ")";
+    public void appendTo(Appendable out) throws IOException {
+        super.appendTo(out);
+        out.append(" (from: ").append(startTime).append(" to: ").append(endTime).append(')');
     }
 
     /**
@@ -102,15 +143,6 @@ public class EventTask extends ToDoTask {
      */
     @Override
     public Task copy() {
-        try {
-            // Reconstruct the original input string
-            String originalInput = this.description + " /from " + this.startTime + " /to " + this.endTime;
-            EventTask copy = new EventTask(originalInput);
-            copy.markDone(this.isDone);
-            return copy;
-        } catch (LunaException e) {
-            // This should not happen for valid existing tasks
-            throw new RuntimeException("Failed to copy EventTask", e);
-        }
+        return new EventTask(this);
     }
 }
@@ -0,0 +1,423 @@
+package luna.task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Keeps the tasks loaded from a text data file as the positions of their lines in the file's bytes, and
+ * parses a line only when its task is read. Parsed tasks go in a bounded cache, so a session that touches
+ * a few tasks of a large file never makes the rest. Tasks added later are kept as the lines they would
+ * be saved as.
+ *
+ * <p>The positions are split into blocks that are copied on write as in ColumnarTaskStore, and the bytes
+ * of the file are never changed, so snapshots share both.
+ */
+final class LazyTaskStore implements TaskStore {
+    static final int BLOCK_CAPACITY = 1024;
+    private static final int CACHE_CAPACITY = 4096;
+
+    private final byte[] text;
+    private final Function<String, Task> parser;
+    private Block[] blocks;
+    // The position in the list of the first task of each block
+    private int[] blockStarts;
+    private int blockCount = 0;
+    private int size = 0;
+    private Object edit = new Object();
+    private final TaskCache cache = new TaskCache(CACHE_CAPACITY);
+
+    private LazyTaskStore(byte[] text, Function<String, Task> parser) {
+        this.text = text;
+        this.parser = parser;
+        this.blocks = new Block[4];
+        this.blockStarts = new int[4];
+    }
+
+    private LazyTaskStore(LazyTaskStore other) {
+        this.text = other.text;
+        this.parser = other.parser;
+        this.blocks = Arrays.copyOf(other.blocks, Math.max(4, other.blockCount));
+        this.blockStarts = Arrays.copyOf(other.blockStarts, this.blocks.length);
+        this.blockCount = other.blockCount;
+        this.size = other.size;
+    }
+
+    /**
+     * Builds a store over the unparsed tasks in O(n) without parsing any, numbering them from id 1
+     */
+    static LazyTaskStore of(UnparsedTasks tasks) {
+        assert tasks != null : "Unparsed tasks should not be null";
+
+        LazyTaskStore store = new LazyTaskStore(tasks.text, tasks.parser);
+        for (int i = 0; i < tasks.count; i++) {
+            if (store.blockCount == 0 || store.blocks[store.blockCount - 1].count == BLOCK_CAPACITY) {
+                store.addBlock(store.blockCount, new Block(store.edit), store.size);
+            }
+            store.blocks[store.blockCount - 1].appendRow(i + 1, tasks.lineStarts[i], null, tasks.done.get(i));
+            store.size++;
+        }
+        return store;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int blockIndex = blockIndexOf(index);
+        Block block = blocks[blockIndex];
+        int row = index - blockStarts[blockIndex];
+        Task task = cache.get(block.ids[row]);
+        if (task == null) {
+            task = parse(block, row);
+            cache.put(task.getId(), task, edit);
+        }
+        return task;
+    }
+
+    @Override
+    public int indexOfId(long id) {
+        if (blockCount == 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            Block block = blocks[middle];
+            if (block.ids[block.count - 1] < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int row = Arrays.binarySearch(blocks[low].ids, 0, blocks[low].count, id);
+        return row < 0 ? -1 : blockStarts[low] + row;
+    }
+
+    @Override
+    public int scanForId(long id) {
+        for (int i = 0; i < blockCount; i++) {
+            Block block = blocks[i];
+            for (int row = 0; row < block.count; row++) {
+                if (block.ids[row] == id) {
+                    return blockStarts[i] + row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Task markDone(int index, boolean isDone) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int blockIndex = blockIndexOf(index);
+        Block block = editableBlock(blockIndex);
+        int row = index - blockStarts[blockIndex];
+        block.done[row] = isDone;
+
+        Task task = cache.getOwned(block.ids[row], edit);
+        if (task != null) {
+            task.markDone(isDone);
+        } else {
+            task = parse(block, row);
+            cache.put(task.getId(), task, edit);
+        }
+        return task;
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        assert index >= 0 && index <= size : "Index should be within bounds";
+        assert task != null : "Task to insert should not be null";
+
+        if (index == size && (blockCount == 0 || blocks[blockCount - 1].count == BLOCK_CAPACITY)) {
+            addBlock(blockCount, new Block(edit), size);
+        }
+        int blockIndex = index == size ? blockCount - 1 : blockIndexOf(index);
+        if (blocks[blockIndex].count == BLOCK_CAPACITY) {
+            splitBlock(blockIndex);
+            if (index - blockStarts[blockIndex] > blocks[blockIndex].count) {
+                blockIndex++;
+            }
+        }
+
+        editableBlock(blockIndex).insertRow(index - blockStarts[blockIndex], task);
+        for (int i = blockIndex + 1; i < blockCount; i++) {
+            blockStarts[i]++;
+        }
+        size++;
+        cache.put(task.getId(), task, edit);
+    }
+
+    @Override
+    public Task remove(int index) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int blockIndex = blockIndexOf(index);
+        Block block = editableBlock(blockIndex);
+        int row = index - blockStarts[blockIndex];
+        Task removed = takeFromCache(block, row);
+
+        block.removeRow(row);
+        for (int i = blockIndex + 1; i < blockCount; i++) {
+            blockStarts[i]--;
+        }
+        if (block.count == 0) {
+            removeBlock(blockIndex);
+        }
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes the tasks at the strictly increasing positions in one pass that copies the rows of the
+     * rest into new blocks, and returns them in order
+     */
+    @Override
+    public Task[] removeAll(int[] indices) {
+        Task[] removed = new Task[indices.length];
+        Block[] oldBlocks = blocks;
+        int oldBlockCount = blockCount;
+        blocks = new Block[4];
+        blockStarts = new int[4];
+        blockCount = 0;
+        size = 0;
+
+        int position = 0;
+        int next = 0;
+        for (int i = 0; i < oldBlockCount; i++) {
+            Block block = oldBlocks[i];
+            for (int row = 0; row < block.count; row++) {
+                if (next < indices.length && indices[next] == position) {
+                    removed[next++] = takeFromCache(block, row);
+                } else {
+                    if (blockCount == 0 || blocks[blockCount - 1].count == BLOCK_CAPACITY) {
+                        addBlock(blockCount, new Block(edit), size);
+                    }
+                    blocks[blockCount - 1].appendRow(block.ids[row], block.lineStarts[row], block.lines[row],
+                            block.done[row]);
+                    size++;
+                }
+                position++;
+            }
+        }
+        assert next == indices.length : "Every position to remove should be within bounds";
+        return removed;
+    }
+
+    /**
+     * Returns a store that shares every block with this one. Both stores copy shared blocks from then
+     * on, so changes to either one are invisible to the other.
+     */
+    @Override
+    public LazyTaskStore snapshot() {
+        edit = new Object();
+        return new LazyTaskStore(this);
+    }
+
+    @Override
+    public List<Task> asList() {
+        return new TaskStoreView(snapshot());
+    }
+
+    @Override
+    public boolean keepsTasks() {
+        return false;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int blockIndex = 0;
+            private int row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return blockIndex < blockCount;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Block block = blocks[blockIndex];
+                Task cached = cache.get(block.ids[row]);
+                // Scans parse tasks without caching them, so one search does not push out every other task
+                Task task = cached != null ? cached : parse(block, row);
+                if (++row == block.count) {
+                    blockIndex++;
+                    row = 0;
+                }
+                return task;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached task at the row of the block, or parses one, and forgets it
+     */
+    private Task takeFromCache(Block block, int row) {
+        long id = block.ids[row];
+        Task task = cache.get(id);
+        cache.remove(id);
+        return task != null ? task : parse(block, row);
+    }
+
+    /**
+     * Parses the line of the row into a task with the row's id and done flag
+     */
+    private Task parse(Block block, int row) {
+        String line = block.lines[row] != null ? block.lines[row] : lineAt(block.lineStarts[row]);
+        Task task = parser.apply(line);
+        // Loading indexes only lines that parse, and added tasks are kept as the lines they are saved as
+        assert task != null : "A stored line should always parse";
+        task.setId(block.ids[row]);
+        task.markDone(block.done[row]);
+        return task;
+    }
+
+    /**
+     * Returns the line of the text starting at the position, without its line break
+     */
+    private String lineAt(int start) {
+        int end = start;
+        while (end < text.length && text[end] != '\n') {
+            end++;
+        }
+        if (end > start && text[end - 1] == '\r') {
+            end--;
+        }
+        return new String(text, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the index of the block holding the position
+     */
+    private int blockIndexOf(int index) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (blockStarts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the block itself if this store created it, or puts a copy owned by this store in its place
+     */
+    private Block editableBlock(int blockIndex) {
+        Block block = blocks[blockIndex];
+        if (block.edit != edit) {
+            block = block.copy(edit, 0, block.count);
+            blocks[blockIndex] = block;
+        }
+        return block;
+    }
+
+    /**
+     * Splits a full block into two blocks of half its rows each
+     */
+    private void splitBlock(int blockIndex) {
+        Block full = blocks[blockIndex];
+        int half = full.count / 2;
+        blocks[blockIndex] = full.copy(edit, 0, half);
+        addBlock(blockIndex + 1, full.copy(edit, half, full.count), blockStarts[blockIndex] + half);
+    }
+
+    private void addBlock(int blockIndex, Block block, int start) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            blockStarts = Arrays.copyOf(blockStarts, blockCount * 2);
+        }
+        System.arraycopy(blocks, blockIndex, blocks, blockIndex + 1, blockCount - blockIndex);
+        System.arraycopy(blockStarts, blockIndex, blockStarts, blockIndex + 1, blockCount - blockIndex);
+        blocks[blockIndex] = block;
+        blockStarts[blockIndex] = start;
+        blockCount++;
+    }
+
+    private void removeBlock(int blockIndex) {
+        System.arraycopy(blocks, blockIndex + 1, blocks, blockIndex, blockCount - blockIndex - 1);
+        System.arraycopy(blockStarts, blockIndex + 1, blockStarts, blockIndex, blockCount - blockIndex - 1);
+        blocks[--blockCount] = null;
+    }
+
+    /**
+     * The ids, done flags and lines of up to BLOCK_CAPACITY consecutive tasks. A task from the file has
+     * the position of its line, and a task added since has the line itself.
+     */
+    private static class Block {
+        private final Object edit;
+        private final long[] ids = new long[BLOCK_CAPACITY];
+        private final int[] lineStarts = new int[BLOCK_CAPACITY];
+        private final String[] lines = new String[BLOCK_CAPACITY];
+        private final boolean[] done = new boolean[BLOCK_CAPACITY];
+        private int count = 0;
+
+        Block(Object edit) {
+            this.edit = edit;
+        }
+
+        /**
+         * Returns a block owned by another store with the rows from start up to end
+         */
+        Block copy(Object edit, int start, int end) {
+            Block copy = new Block(edit);
+            int length = end - start;
+            System.arraycopy(ids, start, copy.ids, 0, length);
+            System.arraycopy(lineStarts, start, copy.lineStarts, 0, length);
+            System.arraycopy(lines, start, copy.lines, 0, length);
+            System.arraycopy(done, start, copy.done, 0, length);
+            copy.count = length;
+            return copy;
+        }
+
+        void appendRow(long id, int lineStart, String line, boolean isDone) {
+            assert count < BLOCK_CAPACITY : "Block should have room for the row";
+            ids[count] = id;
+            lineStarts[count] = lineStart;
+            lines[count] = line;
+            done[count] = isDone;
+            count++;
+        }
+
+        void insertRow(int row, Task task) {
+            assert count < BLOCK_CAPACITY : "Block should have room for the task";
+            shiftRows(row, 1);
+            ids[row] = task.getId();
+            lineStarts[row] = -1;
+            lines[row] = task.toString();
+            done[row] = task.isDone();
+        }
+
+        void removeRow(int row) {
+            shiftRows(row + 1, -1);
+            lines[count] = null;
+        }
+
+        private void shiftRows(int fromRow, int distance) {
+            int moved = count - fromRow;
+            System.arraycopy(ids, fromRow, ids, fromRow + distance, moved);
+            System.arraycopy(lineStarts, fromRow, lineStarts, fromRow + distance, moved);
+            System.arraycopy(lines, fromRow, lines, fromRow + distance, moved);
+            System.arraycopy(done, fromRow, done, fromRow + distance, moved);
+            count += distance;
+        }
+    }
+}
@@ -0,0 +1,711 @@
+package luna.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import luna.exception.LunaException;
+
+/**
+ * Keeps tasks as encoded records in a direct buffer outside the Java heap, or in a buffer mapped from a
+ * file in the directory named by the luna.tasks.arenaDir system property, so that a large list gives the
+ * garbage collector almost nothing to trace. Only a directory of record offsets and done flags stays on
+ * the heap, in blocks that are copied on write as in ColumnarTaskStore.
+ *
+ * <p>Records never change once written, so snapshots share the arena. The space of a removed task is
+ * put on a free list only if it was written after the last snapshot, which each record tells by the
+ * generation stamped on it; any other removed record may still be read by a snapshot. Once most of the
+ * arena is free or removed, the live records are compacted into a new arena and the old one is left to
+ * the snapshots still reading it.
+ */
+final class OffHeapTaskStore implements TaskStore {
+    static final int BLOCK_CAPACITY = 1024;
+    private static final int CACHE_CAPACITY = 4096;
+    private static final int MIN_ARENA_CAPACITY = 1 << 16;
+    private static final int MAX_ARENA_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final String ARENA_DIRECTORY_PROPERTY = "luna.tasks.arenaDir";
+
+    // A record is its size, the generation it was written in, the task's id, due date and type, then its
+    // text fields, padded to a multiple of 8 bytes
+    private static final int GENERATION_OFFSET = 4;
+    private static final int ID_OFFSET = 8;
+    private static final int DUE_OFFSET = 16;
+    private static final int TYPE_OFFSET = 24;
+    private static final int HEADER_LENGTH = 25;
+
+    private static final byte TODO = 0;
+    private static final byte DEADLINE_DATE = 1;
+    private static final byte DEADLINE_DATE_TIME = 2;
+    private static final byte DEADLINE_TEXT = 3;
+    private static final byte EVENT = 4;
+
+    private ByteBuffer arena;
+    // Snapshots share the arena of the store they came from, and move to their own before any change
+    private boolean ownsArena;
+    private int arenaLength = 0;
+    private int generation = 0;
+    // Offsets of free records by their size
+    private final Map<Integer, ArrayDeque<Integer>> freeRecords = new HashMap<>();
+    private int freeLength = 0;
+    // Bytes of removed records that a snapshot may still read
+    private int retiredLength = 0;
+
+    private Block[] blocks;
+    // The position in the list of the first task of each block
+    private int[] blockStarts;
+    private int blockCount = 0;
+    private int size = 0;
+    private Object edit = new Object();
+    private final TaskCache cache = new TaskCache(CACHE_CAPACITY);
+
+    OffHeapTaskStore() {
+        this.arena = allocateArena(MIN_ARENA_CAPACITY);
+        this.ownsArena = true;
+        this.blocks = new Block[4];
+        this.blockStarts = new int[4];
+    }
+
+    private OffHeapTaskStore(OffHeapTaskStore other) {
+        this.arena = other.arena;
+        this.ownsArena = false;
+        this.blocks = Arrays.copyOf(other.blocks, Math.max(4, other.blockCount));
+        this.blockStarts = Arrays.copyOf(other.blockStarts, this.blocks.length);
+        this.blockCount = other.blockCount;
+        this.size = other.size;
+    }
+
+    /**
+     * Builds a store holding the tasks in order in O(n)
+     */
+    static OffHeapTaskStore of(List<Task> tasks) {
+        assert tasks != null : "Tasks to build from should not be null";
+
+        OffHeapTaskStore store = new OffHeapTaskStore();
+        for (Task task : tasks) {
+            assert task != null : "Task in list should not be null";
+            store.insert(store.size, task);
+        }
+        return store;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int blockIndex = blockIndexOf(index);
+        long entry = blocks[blockIndex].entries[index - blockStarts[blockIndex]];
+        Task task = cache.get(idOf(entry));
+        if (task == null) {
+            task = materialize(entry);
+            cache.put(task.getId(), task, edit);
+        }
+        return task;
+    }
+
+    @Override
+    public int indexOfId(long id) {
+        if (blockCount == 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            Block block = blocks[middle];
+            if (idOf(block.entries[block.count - 1]) < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        Block block = blocks[low];
+        int first = 0;
+        int last = block.count - 1;
+        while (first <= last) {
+            int middle = (first + last) >>> 1;
+            long middleId = idOf(block.entries[middle]);
+            if (middleId < id) {
+                first = middle + 1;
+            } else if (middleId > id) {
+                last = middle - 1;
+            } else {
+                return blockStarts[low] + middle;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int scanForId(long id) {
+        for (int i = 0; i < blockCount; i++) {
+            Block block = blocks[i];
+            for (int row = 0; row < block.count; row++) {
+                if (idOf(block.entries[row]) == id) {
+                    return blockStarts[i] + row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Task markDone(int index, boolean isDone) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int blockIndex = blockIndexOf(index);
+        Block block = editableBlock(blockIndex);
+        int row = index - blockStarts[blockIndex];
+        long entry = (block.entries[row] & ~1L) | (isDone ? 1 : 0);
+        block.entries[row] = entry;
+
+        Task task = cache.getOwned(idOf(entry), edit);
+        if (task != null) {
+            task.markDone(isDone);
+        } else {
+            task = materialize(entry);
+            cache.put(task.getId(), task, edit);
+        }
+        return task;
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        assert index >= 0 && index <= size : "Index should be within bounds";
+        assert task != null : "Task to insert should not be null";
+
+        long entry = entryOf(writeRecord(task), task.isDone());
+        if (index == size && (blockCount == 0 || blocks[blockCount - 1].count == BLOCK_CAPACITY)) {
+            addBlock(blockCount, new Block(edit), size);
+        }
+        int blockIndex = index == size ? blockCount - 1 : blockIndexOf(index);
+        if (blocks[blockIndex].count == BLOCK_CAPACITY) {
+            splitBlock(blockIndex);
+            if (index - blockStarts[blockIndex] > blocks[blockIndex].count) {
+                blockIndex++;
+            }
+        }
+
+        editableBlock(blockIndex).insertRow(index - blockStarts[blockIndex], entry);
+        for (int i = blockIndex + 1; i < blockCount; i++) {
+            blockStarts[i]++;
+        }
+        size++;
+        cache.put(task.getId(), task, edit);
+    }
+
+    @Override
+    public Task remove(int index) {
+        assert index >= 0 && index < size : "Index should be within bounds";
+
+        int blockIndex = blockIndexOf(index);
+        Block block = editableBlock(blockIndex);
+        int row = index - blockStarts[blockIndex];
+        long entry = block.entries[row];
+        Task removed = takeFromCache(entry);
+
+        block.removeRow(row);
+        for (int i = blockIndex + 1; i < blockCount; i++) {
+            blockStarts[i]--;
+        }
+        if (block.count == 0) {
+            removeBlock(blockIndex);
+        }
+        size--;
+        release(entry);
+        compactIfMostlyGarbage();
+        return removed;
+    }
+
+    /**
+     * Removes the tasks at the strictly increasing positions in one pass that copies the entries of the
+     * rest into new blocks, and returns them in order
+     */
+    @Override
+    public Task[] removeAll(int[] indices) {
+        Task[] removed = new Task[indices.length];
+        Block[] oldBlocks = blocks;
+        int oldBlockCount = blockCount;
+        blocks = new Block[4];
+        blockStarts = new int[4];
+        blockCount = 0;
+        size = 0;
+
+        int position = 0;
+        int next = 0;
+        for (int i = 0; i < oldBlockCount; i++) {
+            Block block = oldBlocks[i];
+            for (int row = 0; row < block.count; row++) {
+                long entry = block.entries[row];
+                if (next < indices.length && indices[next] == position) {
+                    removed[next++] = takeFromCache(entry);
+                    release(entry);
+                } else {
+                    appendEntry(entry);
+                }
+                position++;
+            }
+        }
+        assert next == indices.length : "Every position to remove should be within bounds";
+        compactIfMostlyGarbage();
+        return removed;
+    }
+
+    /**
+     * Returns a store that shares the arena and every block with this one. Both stores copy shared
+     * blocks from then on, and the snapshot copies the arena before its first change.
+     */
+    @Override
+    public OffHeapTaskStore snapshot() {
+        edit = new Object();
+        generation++;
+        return new OffHeapTaskStore(this);
+    }
+
+    @Override
+    public List<Task> asList() {
+        return new TaskStoreView(snapshot());
+    }
+
+    @Override
+    public boolean keepsTasks() {
+        return false;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private int blockIndex = 0;
+            private int row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return blockIndex < blockCount;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long entry = blocks[blockIndex].entries[row];
+                Task cached = cache.get(idOf(entry));
+                // Scans make tasks without caching them, so one search does not push out every other task
+                Task task = cached != null ? cached : materialize(entry);
+                if (++row == blocks[blockIndex].count) {
+                    blockIndex++;
+                    row = 0;
+                }
+                return task;
+            }
+        };
+    }
+
+    private static long entryOf(int offset, boolean isDone) {
+        return ((long) offset << 1) | (isDone ? 1 : 0);
+    }
+
+    private static int offsetOf(long entry) {
+        return (int) (entry >>> 1);
+    }
+
+    private long idOf(long entry) {
+        return arena.getLong(offsetOf(entry) + ID_OFFSET);
+    }
+
+    /**
+     * Returns the cached task of the entry, or makes one, and forgets it
+     */
+    private Task takeFromCache(long entry) {
+        long id = idOf(entry);
+        Task task = cache.get(id);
+        cache.remove(id);
+        return task != null ? task : materialize(entry);
+    }
+
+    /**
+     * Makes a task object from the record of the entry
+     */
+    private Task materialize(long entry) {
+        int offset = offsetOf(entry);
+        int[] position = {offset + HEADER_LENGTH};
+        String description = readText(position);
+        long due = arena.getLong(offset + DUE_OFFSET);
+        Task task;
+        try {
+            switch (arena.get(offset + TYPE_OFFSET)) {
+            case DEADLINE_DATE:
+                task = new DeadlineTask(description, LocalDate.ofEpochDay(due));
+                break;
+            case DEADLINE_DATE_TIME:
+                task = new DeadlineTask(description, LocalDateTime.ofEpochSecond(due, 0, ZoneOffset.UTC));
+                break;
+            case DEADLINE_TEXT:
+                task = new DeadlineTask(description, readText(position));
+                break;
+            case EVENT:
+                String startTime = readText(position);
+                task = new EventTask(description, startTime, readText(position));
+                break;
+            default:
+                task = new ToDoTask(description);
+                break;
+            }
+        } catch (LunaException e) {
+            throw new AssertionError("Stored tasks should always be valid", e);
+        }
+        task.setId(arena.getLong(offset + ID_OFFSET));
+        task.markDone((entry & 1) != 0);
+        return task;
+    }
+
+    /**
+     * Encodes the task into a record in the arena and returns its offset
+     */
+    private int writeRecord(Task task) {
+        byte type = TODO;
+        long due = 0;
+        String[] fields;
+        if (task instanceof DeadlineTask) {
+            DeadlineTask deadline = (DeadlineTask) task;
+            LocalDateTime endDateTime = deadline.getEndDateTime();
+            LocalDate endDate = deadline.getEndDate();
+            fields = new String[] {task.getDescription()};
+            if (endDateTime != null && endDateTime.getNano() == 0) {
+                type = DEADLINE_DATE_TIME;
+                due = endDateTime.toEpochSecond(ZoneOffset.UTC);
+            } else if (endDate != null) {
+                type = DEADLINE_DATE;
+                due = endDate.toEpochDay();
+            } else {
+                type = DEADLINE_TEXT;
+                fields = new String[] {task.getDescription(), deadline.getOriginalEndTime()};
+            }
+        } else if (task instanceof EventTask) {
+            EventTask event = (EventTask) task;
+            type = EVENT;
+            fields = new String[] {task.getDescription(), event.getStartTime(), event.getEndTime()};
+        } else {
+            fields = new String[] {task.getDescription()};
+        }
+
+        byte[][] encoded = new byte[fields.length][];
+        int length = HEADER_LENGTH;
+        for (int i = 0; i < fields.length; i++) {
+            encoded[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+            length += lengthOfLength(encoded[i].length) + encoded[i].length;
+        }
+        int recordSize = (length + 7) & ~7;
+
+        ensureOwnArena();
+        int offset = allocate(recordSize);
+        arena.putInt(offset, recordSize);
+        arena.putInt(offset + GENERATION_OFFSET, generation);
+        arena.putLong(offset + ID_OFFSET, task.getId());
+        arena.putLong(offset + DUE_OFFSET, due);
+        arena.put(offset + TYPE_OFFSET, type);
+        int position = offset + HEADER_LENGTH;
+        for (byte[] field : encoded) {
+            int fieldLength = field.length;
+            while (fieldLength >= 0x80) {
+                arena.put(position++, (byte) (fieldLength | 0x80));
+                fieldLength >>>= 7;
+            }
+            arena.put(position++, (byte) fieldLength);
+            arena.put(position, field);
+            position += field.length;
+        }
+        return offset;
+    }
+
+    private static int lengthOfLength(int length) {
+        int bytes = 1;
+        while (length >= 0x80) {
+            length >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads the text at the position and moves the position past it
+     */
+    private String readText(int[] position) {
+        int length = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = arena.get(position[0]++);
+            length |= (next & 0x7F) << shift;
+            shift += 7;
+        } while (next < 0);
+        byte[] bytes = new byte[length];
+        arena.get(position[0], bytes);
+        position[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the offset of a free record of the size, growing or compacting the arena if there is none
+     */
+    private int allocate(int recordSize) {
+        ArrayDeque<Integer> free = freeRecords.get(recordSize);
+        if (free != null && !free.isEmpty()) {
+            freeLength -= recordSize;
+            return free.pop();
+        }
+        if (arenaLength + recordSize > arena.capacity()) {
+            if (isMostlyGarbage()) {
+                compact(recordSize);
+            } else {
+                grow(recordSize);
+            }
+        }
+        int offset = arenaLength;
+        arenaLength += recordSize;
+        return offset;
+    }
+
+    /**
+     * Frees the record of a removed entry if no snapshot can read it
+     */
+    private void release(long entry) {
+        if (!ownsArena) {
+            return;
+        }
+        int offset = offsetOf(entry);
+        int recordSize = arena.getInt(offset);
+        if (arena.getInt(offset + GENERATION_OFFSET) == generation) {
+            freeRecords.computeIfAbsent(recordSize, unused -> new ArrayDeque<>()).push(offset);
+            freeLength += recordSize;
+        } else {
+            retiredLength += recordSize;
+        }
+    }
+
+    /**
+     * Compacts the arena once most of it holds no live record, so removing tasks gives memory back
+     */
+    private void compactIfMostlyGarbage() {
+        if (ownsArena && arena.capacity() > MIN_ARENA_CAPACITY && isMostlyGarbage()) {
+            compact(0);
+        }
+    }
+
+    private boolean isMostlyGarbage() {
+        return freeLength + retiredLength > arenaLength / 2;
+    }
+
+    private void ensureOwnArena() {
+        if (!ownsArena) {
+            compact(0);
+        }
+    }
+
+    /**
+     * Copies the arena into one twice as large, leaving the old one to any snapshots reading it
+     */
+    private void grow(int recordSize) {
+        ByteBuffer grown = allocateArena(capacityFor((long) arenaLength + recordSize));
+        grown.put(0, arena, 0, arenaLength);
+        arena = grown;
+    }
+
+    /**
+     * Copies the live records into a new arena owned by this store with room for another record of the
+     * size, and points every entry at the copies
+     */
+    private void compact(int recordSize) {
+        long liveLength = 0;
+        for (int i = 0; i < blockCount; i++) {
+            for (int row = 0; row < blocks[i].count; row++) {
+                liveLength += arena.getInt(offsetOf(blocks[i].entries[row]));
+            }
+        }
+        ByteBuffer old = arena;
+        arena = allocateArena(capacityFor(liveLength + recordSize));
+        ownsArena = true;
+        arenaLength = 0;
+        freeRecords.clear();
+        freeLength = 0;
+        retiredLength = 0;
+
+        for (int i = 0; i < blockCount; i++) {
+            Block block = editableBlock(i);
+            for (int row = 0; row < block.count; row++) {
+                int offset = offsetOf(block.entries[row]);
+                int copySize = old.getInt(offset);
+                arena.put(arenaLength, old, offset, copySize);
+                arena.putInt(arenaLength + GENERATION_OFFSET, generation);
+                block.entries[row] = entryOf(arenaLength, (block.entries[row] & 1) != 0);
+                arenaLength += copySize;
+            }
+        }
+    }
+
+    /**
+     * Returns the capacity of a new arena for records of the given total length, leaving as much room again
+     */
+    private static int capacityFor(long length) {
+        if (length > MAX_ARENA_CAPACITY) {
+            throw new IllegalStateException("Tasks need more than " + MAX_ARENA_CAPACITY + " bytes off the heap");
+        }
+        return (int) Math.min(MAX_ARENA_CAPACITY, Math.max(MIN_ARENA_CAPACITY, length * 2));
+    }
+
+    /**
+     * Allocates a buffer outside the heap, mapped from a temporary file if luna.tasks.arenaDir is set
+     */
+    private static ByteBuffer allocateArena(int capacity) {
+        String directory = System.getProperty(ARENA_DIRECTORY_PROPERTY);
+        if (directory != null) {
+            try {
+                return mapTemporaryFile(new File(directory), capacity).order(ByteOrder.nativeOrder());
+            } catch (IOException e) {
+                System.out.println("Error mapping tasks to a file in " + directory + ", keeping them in memory: "
+                        + e.getMessage());
+            }
+        }
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer mapTemporaryFile(File directory, int capacity) throws IOException {
+        File file = File.createTempFile("luna-tasks", ".arena", directory);
+        try (RandomAccessFile access = new RandomAccessFile(file, "rw")) {
+            access.setLength(capacity);
+            return access.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } finally {
+            // The mapping stays valid once the file is closed and, where the system allows it, deleted
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Appends the entry to the end of this store, in a new block if the last one is full
+     */
+    private void appendEntry(long entry) {
+        if (blockCount == 0 || blocks[blockCount - 1].count == BLOCK_CAPACITY) {
+            addBlock(blockCount, new Block(edit), size);
+        }
+        Block block = blocks[blockCount - 1];
+        block.entries[block.count++] = entry;
+        size++;
+    }
+
+    /**
+     * Returns the index of the block holding the position
+     */
+    private int blockIndexOf(int index) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (blockStarts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the block itself if this store created it, or puts a copy owned by this store in its place
+     */
+    private Block editableBlock(int blockIndex) {
+        Block block = blocks[blockIndex];
+        if (block.edit != edit) {
+            block = block.copy(edit);
+            blocks[blockIndex] = block;
+        }
+        return block;
+    }
+
+    /**
+     * Splits a full block into two blocks of half its entries each
+     */
+    private void splitBlock(int blockIndex) {
+        Block full = blocks[blockIndex];
+        int half = full.count / 2;
+        Block first = new Block(edit);
+        Block second = new Block(edit);
+        System.arraycopy(full.entries, 0, first.entries, 0, half);
+        System.arraycopy(full.entries, half, second.entries, 0, full.count - half);
+        first.count = half;
+        second.count = full.count - half;
+        blocks[blockIndex] = first;
+        addBlock(blockIndex + 1, second, blockStarts[blockIndex] + half);
+    }
+
+    private void addBlock(int blockIndex, Block block, int start) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+            blockStarts = Arrays.copyOf(blockStarts, blockCount * 2);
+        }
+        System.arraycopy(blocks, blockIndex, blocks, blockIndex + 1, blockCount - blockIndex);
+        System.arraycopy(blockStarts, blockIndex, blockStarts, blockIndex + 1, blockCount - blockIndex);
+        blocks[blockIndex] = block;
+        blockStarts[blockIndex] = start;
+        blockCount++;
+    }
+
+    private void removeBlock(int blockIndex) {
+        System.arraycopy(blocks, blockIndex + 1, blocks, blockIndex, blockCount - blockIndex - 1);
+        System.arraycopy(blockStarts, blockIndex + 1, blockStarts, blockIndex, blockCount - blockIndex - 1);
+        blocks[--blockCount] = null;
+    }
+
+    /**
+     * The entries of up to BLOCK_CAPACITY consecutive tasks, each the offset of its record shifted left by
+     * one with the done flag in the lowest bit
+     */
+    private static class Block {
+        private final Object edit;
+        private final long[] entries = new long[BLOCK_CAPACITY];
+        private int count = 0;
+
+        Block(Object edit) {
+            this.edit = edit;
+        }
+
+        Block copy(Object edit) {
+            Block copy = new Block(edit);
+            System.arraycopy(entries, 0, copy.entries, 0, count);
+            copy.count = count;
+            return copy;
+        }
+
+        void insertRow(int row, long entry) {
+            assert count < BLOCK_CAPACITY : "Block should have room for the entry";
+            System.arraycopy(entries, row, entries, row + 1, count - row);
+            entries[row] = entry;
+            count++;
+        }
+
+        void removeRow(int row) {
+            System.arraycopy(entries, row + 1, entries, row, count - row - 1);
+            count--;
+        }
+    }
+}
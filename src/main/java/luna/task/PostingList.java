@@ -0,0 +1,158 @@
+package luna.task;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sorted list of the sequence numbers of the tasks containing one token
+ */
+final class PostingList {
+    private int[] sequences;
+    // Positions up to length hold sequence numbers, some of them removed but not compacted away yet
+    private int length;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    PostingList() {
+        this.sequences = new int[4];
+    }
+
+    /**
+     * Adds a sequence number unless it is already present, keeping the list sorted
+     */
+    void add(int sequence) {
+        // Tasks are usually added with the largest sequence number so far
+        if (length == 0 || sequences[length - 1] < sequence) {
+            append(sequence);
+            return;
+        }
+        int position = Arrays.binarySearch(sequences, 0, length, sequence);
+        if (position >= 0) {
+            if (removed.get(position)) {
+                removed.clear(position);
+                removedCount--;
+            }
+            return;
+        }
+
+        // Shifting would move the removal marks too, so drop them first
+        compact();
+        position = -Arrays.binarySearch(sequences, 0, length, sequence) - 1;
+        if (length == sequences.length) {
+            sequences = Arrays.copyOf(sequences, length * 2);
+        }
+        System.arraycopy(sequences, position, sequences, position + 1, length - position);
+        sequences[position] = sequence;
+        length++;
+    }
+
+    private void append(int sequence) {
+        if (length == sequences.length) {
+            sequences = Arrays.copyOf(sequences, length * 2);
+        }
+        sequences[length++] = sequence;
+    }
+
+    /**
+     * Removes a sequence number if present, only marking it removed until half the list is, so that
+     * removing is not linear in the size of the list
+     */
+    void remove(int sequence) {
+        int position = Arrays.binarySearch(sequences, 0, length, sequence);
+        if (position < 0 || removed.get(position)) {
+            return;
+        }
+        removed.set(position);
+        removedCount++;
+        if (removedCount * 2 > length) {
+            compact();
+        }
+    }
+
+    /**
+     * Drops the sequence numbers marked removed
+     */
+    private void compact() {
+        if (removedCount == 0) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            if (!removed.get(i)) {
+                sequences[kept++] = sequences[i];
+            }
+        }
+        length = kept;
+        removed.clear();
+        removedCount = 0;
+    }
+
+    boolean contains(int sequence) {
+        int position = Arrays.binarySearch(sequences, 0, length, sequence);
+        return position >= 0 && !removed.get(position);
+    }
+
+    int size() {
+        return length - removedCount;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the sequence numbers present in every list, probing the larger lists from the smallest
+     */
+    static int[] intersect(PostingList[] lists) {
+        assert lists.length > 0 : "There should be at least one list to intersect";
+
+        PostingList[] sorted = lists.clone();
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.size(), b.size()));
+        PostingList smallest = sorted[0];
+
+        int[] result = new int[smallest.size()];
+        int count = 0;
+        for (int i = 0; i < smallest.length; i++) {
+            if (smallest.removed.get(i)) {
+                continue;
+            }
+            int sequence = smallest.sequences[i];
+            boolean isInAll = true;
+            for (int j = 1; j < sorted.length && isInAll; j++) {
+                isInAll = sorted[j].contains(sequence);
+            }
+            if (isInAll) {
+                result[count++] = sequence;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns the sequence numbers present in any of the lists, sorted and without duplicates
+     */
+    static int[] union(Iterable<PostingList> lists) {
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size();
+        }
+        int[] result = new int[total];
+        int count = 0;
+        for (PostingList list : lists) {
+            for (int i = 0; i < list.length; i++) {
+                if (!list.removed.get(i)) {
+                    result[count++] = list.sequences[i];
+                }
+            }
+        }
+        Arrays.sort(result);
+
+        int distinct = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+}
@@ -1,4 +1,6 @@
 package luna.task;
+import java.io.IOException;
+
 /**
  * Task with a description and completion status.
  */
@@ -6,6 +8,7 @@ package luna.task;
 public abstract class Task {
     protected String description;
     protected boolean isDone;
+    private long id;
 
     /**
      * Creates a task with the specified description and sets its status to not done.
@@ -21,6 +24,17 @@ public abstract class Task {
         assert !this.isDone : "New task should be marked as not done";
     }
 
+    /**
+     * Creates a task with the same description and status as another task
+     */
+    protected Task(Task other) {
+        assert other != null : "Task to copy should not be null";
+
+        this.description = other.description;
+        this.isDone = other.isDone;
+        this.id = other.id;
+    }
+
     /**
      * Marks the task as done or not done
      */
@@ -33,6 +47,23 @@ public abstract class Task {
         return this.isDone;
     }
 
+    public String getDescription() {
+        return this.description;
+    }
+
+    /**
+     * Returns the id given to the task by the task list holding it, or 0 if it has none yet. Ids are not
+     * saved with the task, so they only last for the session.
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    void setId(long id) {
+        assert id > 0 : "Task ids should be positive";
+        this.id = id;
+    }
+
     public String getStatusIcon() {
         String icon = (isDone ? "X" : " ");
         assert icon != null : "Status icon should never be null";
@@ -40,9 +71,22 @@ public abstract class Task {
         return icon;
     }
 
+    /**
+     * Writes the task as toString shows it to out, field by field, without building the whole string
+     */
+    public void appendTo(Appendable out) throws IOException {
+        out.append('[').append(isDone ? 'X' : ' ').append("] ").append(description);
+    }
+
     @Override
-    public String toString() {
-        return String.format("[%s] %s", this.getStatusIcon(), description);
+    public final String toString() {
+        StringBuilder text = new StringBuilder();
+        try {
+            appendTo(text);
+        } catch (IOException e) {
+            throw new AssertionError("StringBuilder should never throw IOException", e);
+        }
+        return text.toString();
     }
 
     /**
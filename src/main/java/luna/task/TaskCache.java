@@ -0,0 +1,66 @@
+package luna.task;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache, by id, of the task objects that a store which does not keep task objects has been
+ * given or has made, so that reading a task twice returns the same object and a task the store still
+ * owns can be changed in place. The least recently used tasks are dropped first.
+ *
+ * <p>Synchronized, since threads reading the same snapshot share its cache.
+ */
+final class TaskCache {
+    private final Map<Long, Entry> entries;
+
+    /**
+     * Creates a cache that holds at most the given number of tasks
+     */
+    TaskCache(int capacity) {
+        assert capacity > 0 : "Cache capacity should be positive";
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached task with the id, or null if there is none
+     */
+    synchronized Task get(long id) {
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.task;
+    }
+
+    /**
+     * Returns the cached task with the id if it was cached under the edit token, so that no snapshot
+     * made since can see it, or null otherwise
+     */
+    synchronized Task getOwned(long id, Object edit) {
+        Entry entry = entries.get(id);
+        return entry != null && entry.edit == edit ? entry.task : null;
+    }
+
+    /**
+     * Caches the task under the edit token of the store that may change it in place
+     */
+    synchronized void put(long id, Task task, Object edit) {
+        entries.put(id, new Entry(task, edit));
+    }
+
+    synchronized void remove(long id) {
+        entries.remove(id);
+    }
+
+    private static class Entry {
+        private final Task task;
+        private final Object edit;
+
+        Entry(Task task, Object edit) {
+            this.task = task;
+            this.edit = edit;
+        }
+    }
+}
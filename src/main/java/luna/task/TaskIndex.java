@@ -0,0 +1,391 @@
+package luna.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import luna.jfr.SearchExecutedEvent;
+
+/**
+ * Inverted indexes from the lower-cased words and trigrams of task descriptions to the tasks
+ * containing them. Words answer whole-word queries; trigrams narrow substring queries down to a few
+ * candidates before the final contains check.
+ *
+ * <p>Every indexed task gets a sequence number in list order, so results sorted by sequence number
+ * come out in the same order as the task list.
+ */
+final class TaskIndex {
+    private static final int GRAM_LENGTH = 3;
+    // Search modes reported to Flight Recorder
+    private static final String CONTAINS = "contains";
+    private static final String ALL_WORDS = "all words";
+    private static final String ANY_WORD = "any word";
+    private static final int MAX_SEQUENCES = Integer.MAX_VALUE - 8;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final TrigramTable trigramPostings = new TrigramTable();
+    private final Map<Task, Entry> entriesByTask = new IdentityHashMap<>();
+    private Entry[] entriesBySequence = new Entry[16];
+    private int nextSequence = 0;
+
+    /**
+     * Indexes a task added to the end of the list
+     */
+    void add(Task task) {
+        assert task != null : "Task to index should not be null";
+
+        if (nextSequence == entriesBySequence.length) {
+            makeRoomForSequence();
+        }
+        index(task, nextSequence++);
+    }
+
+    /**
+     * Indexes a task inserted between two neighbouring tasks, either of which is null at the ends of
+     * the list. Returns false, leaving the index unchanged, if no sequence number between those of the
+     * neighbours is free.
+     */
+    boolean insert(Task task, Task previous, Task next) {
+        assert task != null : "Task to index should not be null";
+
+        if (next == null) {
+            add(task);
+            return true;
+        }
+        int previousSequence = previous == null ? -1 : entriesByTask.get(previous).sequence;
+        int nextSequenceAfter = entriesByTask.get(next).sequence;
+        if (nextSequenceAfter - previousSequence < 2) {
+            return false;
+        }
+        index(task, (previousSequence + nextSequenceAfter) >>> 1);
+        return true;
+    }
+
+    private void index(Task task, int sequence) {
+        assert !entriesByTask.containsKey(task) : "Task should not be indexed twice";
+        assert entriesBySequence[sequence] == null : "Sequence number should be free";
+
+        Entry entry = new Entry(sequence, task, task.getDescription().toLowerCase());
+        entriesBySequence[entry.sequence] = entry;
+        entriesByTask.put(task, entry);
+
+        for (String word : splitWords(entry.text)) {
+            postings.computeIfAbsent(word, key -> new PostingList()).add(entry.sequence);
+        }
+        for (int i = 0; i + GRAM_LENGTH <= entry.text.length(); i++) {
+            trigramPostings.getOrCreate(trigram(entry.text, i)).add(entry.sequence);
+        }
+    }
+
+    /**
+     * Removes a task from the index
+     */
+    void remove(Task task) {
+        Entry entry = entriesByTask.remove(task);
+        assert entry != null : "Removed task should have been indexed";
+
+        entriesBySequence[entry.sequence] = null;
+        for (String word : splitWords(entry.text)) {
+            PostingList list = postings.get(word);
+            if (list == null) {
+                continue;
+            }
+            list.remove(entry.sequence);
+            if (list.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+        for (int i = 0; i + GRAM_LENGTH <= entry.text.length(); i++) {
+            PostingList list = trigramPostings.get(trigram(entry.text, i));
+            if (list != null) {
+                list.remove(entry.sequence);
+            }
+        }
+    }
+
+    /**
+     * Points the index at a copy that has taken the place of an indexed task
+     */
+    void replace(Task task, Task copy) {
+        Entry entry = entriesByTask.remove(task);
+        assert entry != null : "Replaced task should have been indexed";
+        assert entry.text.equals(copy.getDescription().toLowerCase()) : "Copy should have the same description";
+
+        entry.task = copy;
+        entriesByTask.put(copy, entry);
+    }
+
+    /**
+     * Finds tasks whose lower-cased description contains the lower-cased phrase
+     */
+    ArrayList<Task> findContaining(String phrase) {
+        SearchExecutedEvent event = new SearchExecutedEvent();
+        event.begin();
+        String query = phrase.toLowerCase();
+        int[] candidates = query.length() >= GRAM_LENGTH
+                ? findTrigramCandidates(query)
+                : findWordCandidates(query);
+
+        ArrayList<Task> result = new ArrayList<>();
+        for (int sequence : candidates) {
+            Entry entry = entriesBySequence[sequence];
+            if (entry.text.contains(query)) {
+                result.add(entry.task);
+            }
+        }
+        event.complete(CONTAINS, true, phrase.length(), result.size(), candidates.length);
+        return result;
+    }
+
+    /**
+     * Finds tasks containing every one of the words
+     */
+    ArrayList<Task> findAll(List<String> words) {
+        SearchExecutedEvent event = new SearchExecutedEvent();
+        event.begin();
+        List<String> queryWords = toQueryWords(words);
+        PostingList[] lists = new PostingList[queryWords.size()];
+        long scanned = 0;
+        boolean isEveryWordFound = !queryWords.isEmpty();
+        for (int i = 0; i < lists.length && isEveryWordFound; i++) {
+            lists[i] = postings.get(queryWords.get(i));
+            isEveryWordFound = lists[i] != null;
+            scanned += isEveryWordFound ? lists[i].size() : 0;
+        }
+
+        ArrayList<Task> result = isEveryWordFound ? toTasks(PostingList.intersect(lists)) : new ArrayList<>();
+        event.complete(ALL_WORDS, true, queryLength(words), result.size(), scanned);
+        return result;
+    }
+
+    /**
+     * Finds tasks containing at least one of the words
+     */
+    ArrayList<Task> findAny(List<String> words) {
+        SearchExecutedEvent event = new SearchExecutedEvent();
+        event.begin();
+        List<PostingList> lists = new ArrayList<>();
+        long scanned = 0;
+        for (String word : toQueryWords(words)) {
+            PostingList list = postings.get(word);
+            if (list != null) {
+                lists.add(list);
+                scanned += list.size();
+            }
+        }
+
+        ArrayList<Task> result = toTasks(PostingList.union(lists));
+        event.complete(ANY_WORD, true, queryLength(words), result.size(), scanned);
+        return result;
+    }
+
+    /**
+     * Finds tasks like findContaining but by checking every task, for lists that change too soon after
+     * being searched to repay building an index
+     */
+    static ArrayList<Task> scanContaining(Iterable<Task> tasks, String phrase) {
+        SearchExecutedEvent event = new SearchExecutedEvent();
+        event.begin();
+        String query = phrase.toLowerCase();
+        ArrayList<Task> result = new ArrayList<>();
+        long scanned = 0;
+        for (Task task : tasks) {
+            scanned++;
+            if (task.getDescription().toLowerCase().contains(query)) {
+                result.add(task);
+            }
+        }
+        event.complete(CONTAINS, false, phrase.length(), result.size(), scanned);
+        return result;
+    }
+
+    /**
+     * Finds tasks like findAll but by checking every task
+     */
+    static ArrayList<Task> scanAll(Iterable<Task> tasks, List<String> words) {
+        SearchExecutedEvent event = new SearchExecutedEvent();
+        event.begin();
+        List<String> queryWords = toQueryWords(words);
+        ArrayList<Task> result = new ArrayList<>();
+        long scanned = 0;
+        if (!queryWords.isEmpty()) {
+            for (Task task : tasks) {
+                scanned++;
+                if (splitWords(task.getDescription().toLowerCase()).containsAll(queryWords)) {
+                    result.add(task);
+                }
+            }
+        }
+        event.complete(ALL_WORDS, false, queryLength(words), result.size(), scanned);
+        return result;
+    }
+
+    /**
+     * Finds tasks like findAny but by checking every task
+     */
+    static ArrayList<Task> scanAny(Iterable<Task> tasks, List<String> words) {
+        SearchExecutedEvent event = new SearchExecutedEvent();
+        event.begin();
+        List<String> queryWords = toQueryWords(words);
+        ArrayList<Task> result = new ArrayList<>();
+        long scanned = 0;
+        for (Task task : tasks) {
+            scanned++;
+            if (!Collections.disjoint(splitWords(task.getDescription().toLowerCase()), queryWords)) {
+                result.add(task);
+            }
+        }
+        event.complete(ANY_WORD, false, queryLength(words), result.size(), scanned);
+        return result;
+    }
+
+    /**
+     * Returns the tasks containing every trigram of the query, which include all tasks containing it
+     */
+    private int[] findTrigramCandidates(String query) {
+        PostingList[] lists = new PostingList[query.length() - GRAM_LENGTH + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = trigramPostings.get(trigram(query, i));
+            if (lists[i] == null || lists[i].isEmpty()) {
+                return new int[0];
+            }
+        }
+        return PostingList.intersect(lists);
+    }
+
+    /**
+     * Returns the tasks with a word containing the longest word piece of a query too short for trigrams
+     */
+    private int[] findWordCandidates(String query) {
+        String longestPiece = "";
+        for (String piece : splitWords(query)) {
+            if (piece.length() > longestPiece.length()) {
+                longestPiece = piece;
+            }
+        }
+        if (longestPiece.isEmpty()) {
+            // Without letters or digits there is no word to narrow the search by
+            return allSequences();
+        }
+
+        // Any occurrence of the query puts its longest piece inside a single word
+        List<PostingList> lists = new ArrayList<>();
+        for (Map.Entry<String, PostingList> posting : postings.entrySet()) {
+            if (posting.getKey().contains(longestPiece)) {
+                lists.add(posting.getValue());
+            }
+        }
+        return PostingList.union(lists);
+    }
+
+    /**
+     * Grows the sequence table, or renumbers the tasks in list order when most sequence numbers belong
+     * to deleted tasks
+     */
+    private void makeRoomForSequence() {
+        if (entriesByTask.size() * 2 > nextSequence && nextSequence < MAX_SEQUENCES) {
+            int capacity = (int) Math.min((long) nextSequence * 2, MAX_SEQUENCES);
+            entriesBySequence = Arrays.copyOf(entriesBySequence, capacity);
+            return;
+        }
+
+        Entry[] entries = Arrays.copyOf(entriesBySequence, nextSequence);
+        for (Entry entry : entries) {
+            if (entry != null) {
+                remove(entry.task);
+            }
+        }
+        nextSequence = 0;
+        for (Entry entry : entries) {
+            if (entry != null) {
+                add(entry.task);
+            }
+        }
+    }
+
+    /**
+     * Splits text into its words, the maximal runs of letters and digits
+     */
+    private static List<String> splitWords(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the length of the words as typed, separated by single spaces
+     */
+    private static int queryLength(List<String> words) {
+        int length = words.size() - 1;
+        for (String word : words) {
+            length += word.length();
+        }
+        return length;
+    }
+
+    /**
+     * Lower-cases the words and splits them the same way descriptions are, so "Book," finds "book"
+     */
+    private static List<String> toQueryWords(List<String> words) {
+        List<String> queryWords = new ArrayList<>();
+        for (String word : words) {
+            queryWords.addAll(splitWords(word.toLowerCase()));
+        }
+        return queryWords;
+    }
+
+    /**
+     * Packs the three characters starting at the position into one key
+     */
+    private static long trigram(String text, int position) {
+        return ((long) text.charAt(position) << 32) | ((long) text.charAt(position + 1) << 16)
+                | text.charAt(position + 2);
+    }
+
+    private ArrayList<Task> toTasks(int[] sequences) {
+        ArrayList<Task> result = new ArrayList<>(sequences.length);
+        for (int sequence : sequences) {
+            result.add(entriesBySequence[sequence].task);
+        }
+        return result;
+    }
+
+    private int[] allSequences() {
+        int[] sequences = new int[entriesByTask.size()];
+        int count = 0;
+        for (int sequence = 0; sequence < nextSequence; sequence++) {
+            if (entriesBySequence[sequence] != null) {
+                sequences[count++] = sequence;
+            }
+        }
+        return sequences;
+    }
+
+    /**
+     * An indexed task with its lower-cased description
+     */
+    private static class Entry {
+        private final int sequence;
+        private final String text;
+        private Task task;
+
+        Entry(int sequence, Task task, String text) {
+            this.sequence = sequence;
+            this.task = task;
+            this.text = text;
+        }
+    }
+}
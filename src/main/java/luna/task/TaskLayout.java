@@ -0,0 +1,45 @@
+package luna.task;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Represents how a task list holds its tasks in memory
+ */
+public enum TaskLayout {
+    /** Task objects in a persistent tree, with indexes that make searches and id lookups fast */
+    TREE,
+    /** Task fields in primitive columns, several times smaller, with task objects made when read */
+    COLUMNAR,
+    /** Task records in a buffer outside the Java heap, for lists large enough to slow garbage collection */
+    OFF_HEAP;
+
+    private static final String LAYOUT_PROPERTY = "luna.tasks.layout";
+
+    /**
+     * Returns the layout named by the luna.tasks.layout system property, or TREE if it is not set
+     */
+    public static TaskLayout fromSystemProperties() {
+        String layout = System.getProperty(LAYOUT_PROPERTY, "tree");
+        try {
+            return valueOf(layout.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown task layout " + layout + ", using tree");
+            return TREE;
+        }
+    }
+
+    /**
+     * Creates a store of this layout holding the tasks in order
+     */
+    TaskStore newStore(List<Task> tasks) {
+        switch (this) {
+        case COLUMNAR:
+            return ColumnarTaskStore.of(tasks);
+        case OFF_HEAP:
+            return OffHeapTaskStore.of(tasks);
+        default:
+            return TaskTree.of(tasks);
+        }
+    }
+}
@@ -1,52 +1,104 @@
 package luna.task;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import luna.exception.LunaException;
 
 /**
- * Encapsulates task list operations
+ * Encapsulates task list operations. By default tasks are kept in a persistent tree, so copies share
+ * their structure with the original and cost O(1), while each change costs O(log n). The COLUMNAR
+ * and OFF_HEAP layouts keep only the tasks' fields, in arrays or outside the heap, for lists too large
+ * to keep as objects, and search them by scanning, as does a list of tasks loaded without parsing.
+ *
+ * <p>Every task gets an id that stays the same while other tasks are added or deleted. Ids increase
+ * along the list, so the tree also finds the position of an id in O(log n).
  */
 public class TaskList {
-    private ArrayList<Task> tasks;
+    private TaskStore tasks;
+    private long nextId = 1;
+    // Only an insertion that cannot keep its task's id in order clears this, making id lookups linear
+    private boolean isOrderedById = true;
+
+    // Built on the first search and kept up to date by every change made through this class afterwards,
+    // for stores that keep their task objects
+    private TaskIndex searchIndex;
+    // Built on the first lookup by id and kept up to date the same way, for the same stores
+    private Map<Long, Task> tasksById;
+    // Only set on snapshots, which are never changed and may be read by several threads at once
+    private List<Task> readOnlyView;
 
     /**
-     * Default constructor that creates an empty task list
+     * Default constructor that creates an empty task list in the layout chosen by system properties
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this(List.of(), TaskLayout.fromSystemProperties());
         assert tasks != null : "Tasks list should be initialized";
-        assert tasks.isEmpty() : "New task list should be empty";
+        assert tasks.size() == 0 : "New task list should be empty";
     }
 
     /**
-     * Constructor that creates a task list with existing tasks
+     * Constructor that creates a task list with existing tasks in the layout chosen by system properties
      */
-    public TaskList(ArrayList<Task> tasks) {
+    public TaskList(List<Task> tasks) {
+        this(tasks, TaskLayout.fromSystemProperties());
+    }
+
+    /**
+     * Constructor that creates a task list with existing tasks in the given layout
+     */
+    public TaskList(List<Task> tasks, TaskLayout layout) {
         assert tasks != null : "Input tasks list should not be null";
-        this.tasks = tasks;
-        assert this.tasks == tasks : "Tasks list should be set correctly";
+        assert layout != null : "Layout should not be null";
+
+        long lastId = 0;
+        for (Task task : tasks) {
+            if (task.getId() <= lastId) {
+                task.setId(lastId + 1);
+            }
+            lastId = task.getId();
+        }
+        this.nextId = lastId + 1;
+        this.tasks = layout.newStore(tasks);
+        assert this.tasks.size() == tasks.size() : "Tasks list should be set correctly";
     }
 
     /**
-     * Copy constructor that creates a new TaskList with copies of all tasks
+     * Constructor that creates a task list over tasks loaded from a text file without parsing them, each
+     * parsed only once it is read
+     */
+    public TaskList(UnparsedTasks tasks) {
+        assert tasks != null : "Unparsed tasks should not be null";
+
+        this.tasks = LazyTaskStore.of(tasks);
+        this.nextId = tasks.size() + 1;
+        assert this.tasks.size() == tasks.size() : "Tasks list should be set correctly";
+    }
+
+    /**
+     * Copy constructor that creates a new TaskList with the same tasks in O(1). Tasks are copied lazily
+     * when either list changes them, so changes to one list never show in the other.
      */
     public TaskList(TaskList other) {
         assert other != null : "Other TaskList should not be null";
 
-        this.tasks = new ArrayList<>();
-        for (Task task : other.tasks) {
-            this.tasks.add(task.copy()); // Create deep copy of each task
-        }
+        this.tasks = other.tasks.snapshot();
+        this.nextId = other.nextId;
+        this.isOrderedById = other.isOrderedById;
+        // The indexes are not copied, since rebuilding them after an undo is cheaper than cloning them
+        // for every undo snapshot
 
         assert this.tasks.size() == other.tasks.size() : "Copied TaskList should have same size";
     }
 
     /**
-     * Returns the underlying task list
+     * Returns a read-only view of the current tasks that later changes to this list do not affect
      */
-    public ArrayList<Task> getTasks() {
+    public List<Task> getTasks() {
         assert tasks != null : "Tasks list should never be null";
-        return tasks;
+        return readOnlyView != null ? readOnlyView : tasks.asList();
     }
 
     /**
@@ -54,18 +106,44 @@ public class TaskList {
      */
     public void add(Task task) {
         assert task != null : "Task to add should not be null";
+        checkWritable();
 
         int oldSize = tasks.size();
-        tasks.add(task);
+        giveId(oldSize, task);
+        tasks.insert(oldSize, task);
+        if (searchIndex != null) {
+            searchIndex.add(task);
+        }
 
         assert tasks.size() == oldSize + 1 : "Task list size should increase by 1 after adding";
-        assert tasks.contains(task) : "Task list should contain the added task";
+        assert tasks.get(oldSize).getId() == task.getId() : "Task list should contain the added task";
+    }
+
+    /**
+     * Inserts a task at the given index, shifting later tasks back by one
+     */
+    public void insert(int index, Task task) {
+        assert task != null : "Task to insert should not be null";
+        checkWritable();
+        assert index >= 0 && index <= tasks.size() : "Index should be within bounds";
+
+        giveId(index, task);
+        tasks.insert(index, task);
+        if (searchIndex != null) {
+            Task previous = index > 0 ? tasks.get(index - 1) : null;
+            Task next = index + 1 < tasks.size() ? tasks.get(index + 1) : null;
+            if (!searchIndex.insert(task, previous, next)) {
+                // Without a free sequence number between its neighbours, results would leave list order
+                searchIndex = null;
+            }
+        }
     }
 
     /**
      * Removes a task at the given index
      */
     public Task remove(int index) {
+        checkWritable();
         assert index >= 0 : "Index should be non-negative";
         assert index < tasks.size() : "Index should be within bounds";
 
@@ -74,6 +152,7 @@ public class TaskList {
 
         assert removed != null : "Removed task should not be null";
         assert tasks.size() == oldSize - 1 : "Task list size should decrease by 1 after removal";
+        unindex(removed);
 
         return removed;
     }
@@ -105,16 +184,22 @@ public class TaskList {
      */
     public void markTask(int index, boolean isDone) throws LunaException {
         assert tasks != null : "Tasks list should not be null";
+        checkWritable();
 
         if (index < 0 || index >= tasks.size()) {
             throw new LunaException("Task index is out of bounds");
         }
 
-        Task task = tasks.get(index);
+        Task shared = tasks.get(index);
+        boolean oldStatus = shared.isDone();
+        Task task = tasks.markDone(index, isDone);
         assert task != null : "Task at valid index should not be null";
-
-        boolean oldStatus = task.isDone();
-        task.markDone(isDone);
+        if (task != shared && searchIndex != null) {
+            searchIndex.replace(shared, task);
+        }
+        if (task != shared && tasksById != null) {
+            tasksById.put(task.getId(), task);
+        }
 
         assert task.isDone() == isDone : "Task status should be updated correctly";
         assert task.isDone() != oldStatus || oldStatus == isDone : "Task status should change unless already set";
@@ -125,6 +210,7 @@ public class TaskList {
      */
     public Task deleteTask(int index) throws LunaException {
         assert tasks != null : "Tasks list should not be null";
+        checkWritable();
 
         if (index < 0 || index >= tasks.size()) {
             throw new LunaException("Task index is out of bounds");
@@ -135,10 +221,100 @@ public class TaskList {
 
         assert removed != null : "Removed task should not be null";
         assert tasks.size() == oldSize - 1 : "Task list size should decrease by 1";
+        unindex(removed);
 
         return removed;
     }
 
+    /**
+     * Marks the tasks at the strictly increasing indices as done or undone, changing none of them if
+     * any index is out of bounds
+     */
+    public void markTasks(int[] indices, boolean isDone) throws LunaException {
+        checkIndices(indices);
+        for (int index : indices) {
+            markTask(index, isDone);
+        }
+    }
+
+    /**
+     * Deletes the tasks at the strictly increasing indices and returns them in order, deleting none of
+     * them if any index is out of bounds
+     */
+    public List<Task> deleteTasks(int[] indices) throws LunaException {
+        checkWritable();
+        checkIndices(indices);
+
+        int oldSize = tasks.size();
+        Task[] removed;
+        // Deleting one at a time costs O(log n) each, so past about n / log n deletions one O(n) pass wins
+        if (indices.length < oldSize / 32) {
+            removed = new Task[indices.length];
+            for (int i = indices.length - 1; i >= 0; i--) {
+                removed[i] = tasks.remove(indices[i]);
+                unindex(removed[i]);
+            }
+        } else {
+            removed = tasks.removeAll(indices);
+            // Removing many tasks from posting lists one by one costs more than rebuilding the index
+            searchIndex = null;
+            if (tasksById != null) {
+                for (Task task : removed) {
+                    tasksById.remove(task.getId());
+                }
+            }
+        }
+
+        assert tasks.size() == oldSize - indices.length : "Task list size should decrease by the deleted count";
+        return Arrays.asList(removed);
+    }
+
+    /**
+     * Inserts the tasks so that each ends up at the matching index of the strictly increasing indices
+     */
+    public void insertAll(int[] indices, List<Task> insertedTasks) {
+        assert indices.length == insertedTasks.size() : "Every task to insert should have an index";
+
+        for (int i = 0; i < indices.length; i++) {
+            insert(indices[i], insertedTasks.get(i));
+        }
+    }
+
+    /**
+     * Returns the task with the given id, or null if there is none
+     */
+    public Task getById(long id) {
+        if (!tasks.keepsTasks()) {
+            int index = indexOfId(id);
+            return index < 0 ? null : tasks.get(index);
+        }
+        return tasksById().get(id);
+    }
+
+    /**
+     * Returns the index of the task with the given id, or -1 if there is none
+     */
+    public int indexOfId(long id) {
+        if (!tasks.keepsTasks()) {
+            return isOrderedById ? tasks.indexOfId(id) : tasks.scanForId(id);
+        }
+        if (!tasksById().containsKey(id)) {
+            return -1;
+        }
+        if (isOrderedById) {
+            return tasks.indexOfId(id);
+        }
+
+        int index = 0;
+        for (Task task : tasks) {
+            if (task.getId() == id) {
+                return index;
+            }
+            index++;
+        }
+        throw new AssertionError("Task with a known id should be in the list");
+    }
+
     /**
      * Finds tasks that contain the given keyword in their description
      */
@@ -146,15 +322,9 @@ public class TaskList {
         assert keyword != null : "Search keyword should not be null";
         assert tasks != null : "Tasks list should not be null";
 
-        ArrayList<Task> matchingTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            assert task != null : "Task in list should not be null";
-            assert task.description != null : "Task description should not be null";
-
-            if (task.description.toLowerCase().contains(keyword.toLowerCase())) {
-                matchingTasks.add(task);
-            }
-        }
+        ArrayList<Task> matchingTasks = isScanned()
+                ? TaskIndex.scanContaining(scanned(), keyword)
+                : searchIndex().findContaining(keyword);
 
         assert matchingTasks != null : "Matching tasks list should not be null";
         assert matchingTasks.size() <= tasks.size() : "Matching tasks should not exceed total tasks";
@@ -163,9 +333,120 @@ public class TaskList {
     }
 
     /**
-     * Creates a deep copy of this TaskList for undo functionality
+     * Finds tasks whose description contains every one of the words, ignoring case
+     */
+    public ArrayList<Task> findTasksWithAllWords(List<String> words) {
+        assert words != null && !words.isEmpty() : "There should be at least one word to search for";
+        return isScanned() ? TaskIndex.scanAll(scanned(), words) : searchIndex().findAll(words);
+    }
+
+    /**
+     * Finds tasks whose description contains at least one of the words, ignoring case
+     */
+    public ArrayList<Task> findTasksWithAnyWord(List<String> words) {
+        assert words != null && !words.isEmpty() : "There should be at least one word to search for";
+        return isScanned() ? TaskIndex.scanAny(scanned(), words) : searchIndex().findAny(words);
+    }
+
+    /**
+     * Creates a copy of this TaskList for undo functionality
      */
     public TaskList copy() {
         return new TaskList(this);
     }
+
+    /**
+     * Returns an unchangeable copy in O(1) that any number of threads may read at once. It searches by
+     * checking every task, since an index would have to be rebuilt for each snapshot.
+     */
+    public TaskList snapshot() {
+        TaskList snapshot = new TaskList(this);
+        snapshot.readOnlyView = snapshot.tasks.asList();
+        return snapshot;
+    }
+
+    /**
+     * Keeps the id of the task about to be inserted at the index if it is free and in order, as for a
+     * task restored by undo, and otherwise gives it the next new id
+     */
+    private void giveId(int index, Task task) {
+        long id = task.getId();
+        boolean canKeepId;
+        if (isOrderedById) {
+            long previousId = index > 0 ? tasks.get(index - 1).getId() : 0;
+            long followingId = index < tasks.size() ? tasks.get(index).getId() : nextId;
+            canKeepId = id > previousId && id < followingId;
+        } else if (tasks.keepsTasks()) {
+            canKeepId = id > 0 && !tasksById().containsKey(id);
+        } else {
+            canKeepId = id > 0 && tasks.scanForId(id) < 0;
+        }
+
+        if (!canKeepId) {
+            id = nextId;
+            task.setId(id);
+            isOrderedById = isOrderedById && index == tasks.size();
+        }
+        nextId = Math.max(nextId, id + 1);
+        if (tasksById != null) {
+            tasksById.put(id, task);
+        }
+    }
+
+    /**
+     * Checks if searches scan every task rather than use the index, as for snapshots, which are never
+     * indexed, and stores that do not keep task objects for the index to hold
+     */
+    private boolean isScanned() {
+        return readOnlyView != null || !tasks.keepsTasks();
+    }
+
+    private Iterable<Task> scanned() {
+        return readOnlyView != null ? readOnlyView : tasks;
+    }
+
+    private void checkIndices(int[] indices) throws LunaException {
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] < 0 || indices[i] >= tasks.size()) {
+                throw new LunaException("Task index is out of bounds");
+            }
+            assert i == 0 || indices[i - 1] < indices[i] : "Indices should be strictly increasing";
+        }
+    }
+
+    private void checkWritable() {
+        if (readOnlyView != null) {
+            throw new UnsupportedOperationException("Task list snapshots cannot be changed");
+        }
+    }
+
+    // Synchronized since threads reading the same snapshot may all look up ids first
+    private synchronized Map<Long, Task> tasksById() {
+        if (tasksById == null) {
+            tasksById = new HashMap<>();
+            for (Task task : tasks) {
+                tasksById.put(task.getId(), task);
+            }
+        }
+        return tasksById;
+    }
+
+    private TaskIndex searchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new TaskIndex();
+            for (Task task : tasks) {
+                searchIndex.add(task);
+            }
+        }
+        return searchIndex;
+    }
+
+    private void unindex(Task removed) {
+        if (searchIndex != null) {
+            searchIndex.remove(removed);
+        }
+        if (tasksById != null) {
+            tasksById.remove(removed.getId());
+        }
+    }
 }
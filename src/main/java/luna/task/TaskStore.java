@@ -0,0 +1,76 @@
+package luna.task;
+
+import java.util.List;
+
+/**
+ * Holds the tasks of a TaskList in order. A store either keeps the task objects given to it, so that
+ * indexes may hold on to them, or keeps only their fields and makes task objects when they are read,
+ * in which case the list searches by scanning and looks ids up in the store instead.
+ *
+ * <p>Snapshots and views never see later changes to the store, and changes to a snapshot are never
+ * seen by the store it came from.
+ */
+interface TaskStore extends Iterable<Task> {
+    int size();
+
+    /**
+     * Returns the task at the position
+     */
+    Task get(int index);
+
+    /**
+     * Returns the position of the task with the id, assuming ids increase along the list, or -1 if no
+     * task has it
+     */
+    int indexOfId(long id);
+
+    /**
+     * Returns the position of the task with the id wherever it is, or -1 if no task has it
+     */
+    default int scanForId(long id) {
+        int index = 0;
+        for (Task task : this) {
+            if (task.getId() == id) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Marks the task at the position as done or not, changing the task object in place only if no
+     * snapshot can see it, and returns the task now at the position
+     */
+    Task markDone(int index, boolean isDone);
+
+    /**
+     * Inserts the task at the position, shifting later tasks back by one
+     */
+    void insert(int index, Task task);
+
+    /**
+     * Removes and returns the task at the position
+     */
+    Task remove(int index);
+
+    /**
+     * Removes the tasks at the strictly increasing positions and returns them in order
+     */
+    Task[] removeAll(int[] indices);
+
+    /**
+     * Returns a store with the same tasks that changes independently of this one
+     */
+    TaskStore snapshot();
+
+    /**
+     * Returns a read-only list of the current tasks that later changes to this store do not affect
+     */
+    List<Task> asList();
+
+    /**
+     * Checks if get returns the task objects given to the store, so that indexes may hold on to them
+     */
+    boolean keepsTasks();
+}
@@ -0,0 +1,35 @@
+package luna.task;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+
+/**
+ * Read-only list over a snapshot of a store that does not keep task objects, which no store changes any
+ * more
+ */
+class TaskStoreView extends AbstractList<Task> {
+    private final TaskStore store;
+
+    TaskStoreView(TaskStore store) {
+        assert store != null : "Store to view should not be null";
+        this.store = store;
+    }
+
+    @Override
+    public Task get(int index) {
+        if (index < 0 || index >= store.size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+        return store.get(index);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return store.iterator();
+    }
+}
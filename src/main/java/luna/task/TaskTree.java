@@ -0,0 +1,433 @@
+package luna.task;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Persistent sequence of tasks stored as an implicit treap, a randomly balanced binary tree ordered
+ * by list position. Snapshots share every node with the tree they came from and take O(1); each
+ * change afterwards copies only the O(log n) nodes on its path, and a task is copied before it is
+ * changed if a snapshot can still see it.
+ *
+ * <p>Nodes remember the edit token of the tree that created them. A tree changes its own nodes in
+ * place, so a tree that has never been snapshotted behaves like an ordinary mutable list.
+ */
+final class TaskTree implements TaskStore {
+    private Node root;
+    private Object edit = new Object();
+
+    TaskTree() {
+    }
+
+    private TaskTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds a tree holding the tasks in order in O(n)
+     */
+    static TaskTree of(List<Task> tasks) {
+        assert tasks != null : "Tasks to build from should not be null";
+
+        TaskTree tree = new TaskTree();
+        Builder builder = new Builder();
+        for (Task task : tasks) {
+            assert task != null : "Task in list should not be null";
+            builder.append(new Node(tree.edit, task, randomPriority(), true));
+        }
+        tree.root = builder.build();
+        return tree;
+    }
+
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    @Override
+    public Task get(int index) {
+        return nodeAt(root, index).task;
+    }
+
+    @Override
+    public int indexOfId(long id) {
+        Node node = root;
+        int index = 0;
+        while (node != null) {
+            long nodeId = node.task.getId();
+            if (id < nodeId) {
+                node = node.left;
+            } else if (id > nodeId) {
+                index += sizeOf(node.left) + 1;
+                node = node.right;
+            } else {
+                return index + sizeOf(node.left);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Task markDone(int index, boolean isDone) {
+        Task task = getWritable(index);
+        task.markDone(isDone);
+        return task;
+    }
+
+    /**
+     * Returns the task at the position after making sure it can be changed in place without any
+     * snapshot seeing the change
+     */
+    private Task getWritable(int index) {
+        assert index >= 0 && index < size() : "Index should be within bounds";
+
+        root = editable(root);
+        Node node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node.left = editable(node.left);
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node.right = editable(node.right);
+                node = node.right;
+            } else {
+                break;
+            }
+        }
+        if (!node.ownsTask) {
+            node.task = node.task.copy();
+            node.ownsTask = true;
+        }
+        return node.task;
+    }
+
+    @Override
+    public void insert(int index, Task task) {
+        assert index >= 0 && index <= size() : "Index should be within bounds";
+        assert task != null : "Task to insert should not be null";
+
+        root = insert(root, index, new Node(edit, task, randomPriority(), true));
+    }
+
+    @Override
+    public Task remove(int index) {
+        assert index >= 0 && index < size() : "Index should be within bounds";
+
+        Task[] removed = new Task[1];
+        root = remove(root, index, removed);
+        return removed[0];
+    }
+
+    /**
+     * Removes the tasks at the strictly increasing positions in one pass that rebuilds the tree in
+     * O(n), and returns them in order
+     */
+    @Override
+    public Task[] removeAll(int[] indices) {
+        Task[] removed = new Task[indices.length];
+        Builder builder = new Builder();
+        InOrderIterator nodes = new InOrderIterator(root);
+        int position = 0;
+        int next = 0;
+        while (nodes.hasNext()) {
+            Node node = nodes.nextNode();
+            if (next < indices.length && indices[next] == position) {
+                removed[next++] = node.task;
+            } else {
+                // Only a node this tree still changes in place can pass on its claim to the task
+                boolean ownsTask = node.edit == edit && node.ownsTask;
+                builder.append(new Node(edit, node.task, node.priority, ownsTask));
+            }
+            position++;
+        }
+        assert next == indices.length : "Every position to remove should be within bounds";
+
+        root = builder.build();
+        return removed;
+    }
+
+    /**
+     * Returns a tree with the same tasks that shares all nodes with this one. Both trees copy shared
+     * nodes from then on, so changes to either one are invisible to the other.
+     */
+    @Override
+    public TaskTree snapshot() {
+        edit = new Object();
+        return new TaskTree(root);
+    }
+
+    @Override
+    public List<Task> asList() {
+        edit = new Object();
+        return new View(root);
+    }
+
+    @Override
+    public boolean keepsTasks() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new InOrderIterator(root);
+    }
+
+    private Node insert(Node node, int index, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (inserted.priority > node.priority) {
+            Node[] parts = new Node[2];
+            split(node, index, parts);
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            inserted.update();
+            return inserted;
+        }
+
+        node = editable(node);
+        int leftSize = sizeOf(node.left);
+        if (index <= leftSize) {
+            node.left = insert(node.left, index, inserted);
+        } else {
+            node.right = insert(node.right, index - leftSize - 1, inserted);
+        }
+        node.size++;
+        return node;
+    }
+
+    private Node remove(Node node, int index, Task[] removed) {
+        int leftSize = sizeOf(node.left);
+        if (index == leftSize) {
+            removed[0] = node.task;
+            return merge(node.left, node.right);
+        }
+
+        node = editable(node);
+        if (index < leftSize) {
+            node.left = remove(node.left, index, removed);
+        } else {
+            node.right = remove(node.right, index - leftSize - 1, removed);
+        }
+        node.size--;
+        return node;
+    }
+
+    /**
+     * Splits the subtree into its first count tasks and the rest
+     */
+    private void split(Node node, int count, Node[] parts) {
+        if (node == null) {
+            parts[0] = null;
+            parts[1] = null;
+            return;
+        }
+
+        node = editable(node);
+        int leftSize = sizeOf(node.left);
+        if (count <= leftSize) {
+            split(node.left, count, parts);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+        } else {
+            split(node.right, count - leftSize - 1, parts);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+        }
+    }
+
+    /**
+     * Joins two subtrees where every task of the first comes before every task of the second
+     */
+    private Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first = editable(first);
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        second = editable(second);
+        second.left = merge(first, second.left);
+        second.update();
+        return second;
+    }
+
+    /**
+     * Returns the node itself if this tree created it, or a copy owned by this tree that shares its task
+     */
+    private Node editable(Node node) {
+        if (node == null || node.edit == edit) {
+            return node;
+        }
+        Node copy = new Node(edit, node.task, node.priority, false);
+        copy.left = node.left;
+        copy.right = node.right;
+        copy.size = node.size;
+        return copy;
+    }
+
+    private static Node nodeAt(Node node, int index) {
+        assert index >= 0 && index < sizeOf(node) : "Index should be within bounds";
+
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int randomPriority() {
+        return ThreadLocalRandom.current().nextInt();
+    }
+
+    /**
+     * A tree node holding one task, with the number of tasks in its subtree
+     */
+    private static class Node {
+        private final Object edit;
+        private final int priority;
+        private Task task;
+        private boolean ownsTask;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        Node(Object edit, Task task, int priority, boolean ownsTask) {
+            this.edit = edit;
+            this.task = task;
+            this.priority = priority;
+            this.ownsTask = ownsTask;
+        }
+
+        void update() {
+            size = 1 + sizeOf(left) + sizeOf(right);
+        }
+    }
+
+    /**
+     * Builds a tree from nodes appended in list order in O(n). Treaps are Cartesian trees, so only the
+     * right spine of the tree built so far needs to be kept.
+     */
+    private static class Builder {
+        private Node[] spine = new Node[64];
+        private int height = 0;
+
+        void append(Node node) {
+            Node last = null;
+            while (height > 0 && spine[height - 1].priority < node.priority) {
+                last = spine[--height];
+                last.update();
+            }
+            node.left = last;
+            if (height > 0) {
+                spine[height - 1].right = node;
+            }
+            if (height == spine.length) {
+                spine = Arrays.copyOf(spine, height * 2);
+            }
+            spine[height++] = node;
+        }
+
+        Node build() {
+            Node root = height > 0 ? spine[0] : null;
+            while (height > 0) {
+                spine[--height].update();
+            }
+            return root;
+        }
+    }
+
+    /**
+     * Walks a subtree in list order using a stack of pending ancestors
+     */
+    private static class InOrderIterator implements Iterator<Task> {
+        private Node[] stack = new Node[64];
+        private int height = 0;
+
+        InOrderIterator(Node root) {
+            pushLeftSpine(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return height > 0;
+        }
+
+        @Override
+        public Task next() {
+            return nextNode().task;
+        }
+
+        Node nextNode() {
+            if (height == 0) {
+                throw new NoSuchElementException();
+            }
+            Node node = stack[--height];
+            pushLeftSpine(node.right);
+            return node;
+        }
+
+        private void pushLeftSpine(Node node) {
+            while (node != null) {
+                if (height == stack.length) {
+                    stack = Arrays.copyOf(stack, height * 2);
+                }
+                stack[height++] = node;
+                node = node.left;
+            }
+        }
+    }
+
+    /**
+     * Read-only list over a subtree that no tree changes in place any more
+     */
+    private static class View extends AbstractList<Task> {
+        private final Node root;
+
+        View(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public Task get(int index) {
+            if (index < 0 || index >= sizeOf(root)) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+            }
+            return nodeAt(root, index).task;
+        }
+
+        @Override
+        public int size() {
+            return sizeOf(root);
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return new InOrderIterator(root);
+        }
+    }
+}
@@ -1,4 +1,6 @@
 package luna.task;
+import java.io.IOException;
+
 import luna.exception.LunaException;
 
 /**
@@ -25,9 +27,18 @@ public class ToDoTask extends Task {
         assert !description.isBlank() : "Description should not be blank after validation";
     }
 
+    /**
+     * Creates a copy of another ToDoTask without validating its fields again
+     */
+    protected ToDoTask(ToDoTask other) {
+        super(other);
+        this.taskType = other.taskType;
+    }
+
     @Override
-    public String toString() {
-        return "[" + taskType + "] " + super.toString();
+    public void appendTo(Appendable out) throws IOException {
+        out.append('[').append(taskType).append("] ");
+        super.appendTo(out);
     }
 
     /**
@@ -35,14 +46,6 @@ public class ToDoTask extends Task {
      */
     @Override
     public Task copy() {
-        try {
-            ToDoTask copy = new ToDoTask(this.description);
-            copy.markDone(this.isDone);
-            copy.taskType = this.taskType;
-            return copy;
-        } catch (LunaException e) {
-            // This should not happen for valid existing tasks
-            throw new RuntimeException("Failed to copy ToDoTask", e);
-        }
+        return new ToDoTask(this);
     }
 }
@@ -0,0 +1,75 @@
+package luna.task;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from packed trigrams to posting lists, avoiding a boxed key per lookup.
+ * Emptied posting lists are kept, since the set of trigrams in use stays small.
+ */
+final class TrigramTable {
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private PostingList[] values;
+    private int size;
+
+    TrigramTable() {
+        allocate(1024);
+    }
+
+    /**
+     * Returns the posting list of the trigram, or null if no task contains it
+     */
+    PostingList get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : null;
+    }
+
+    /**
+     * Returns the posting list of the trigram, creating an empty one if needed
+     */
+    PostingList getOrCreate(long key) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return values[slot];
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            grow();
+            slot = find(key);
+        }
+        keys[slot] = key;
+        values[slot] = new PostingList();
+        size++;
+        return values[slot];
+    }
+
+    private int find(long key) {
+        assert key != EMPTY : "Packed trigrams should never equal the empty marker";
+
+        int mask = keys.length - 1;
+        int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        PostingList[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new PostingList[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+}
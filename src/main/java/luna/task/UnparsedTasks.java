@@ -0,0 +1,37 @@
+package luna.task;
+
+import java.util.BitSet;
+import java.util.function.Function;
+
+/**
+ * Tasks read from a text data file but not parsed yet: the bytes of the file, where the line of each task
+ * starts, which tasks are done, and how to parse a line into a task once it is needed
+ */
+public final class UnparsedTasks {
+    final byte[] text;
+    final int[] lineStarts;
+    final int count;
+    final BitSet done;
+    final Function<String, Task> parser;
+
+    /**
+     * Creates unparsed tasks from the first count line starts, each the position of a line in the UTF-8
+     * text, and the parser accepting each of those lines
+     */
+    public UnparsedTasks(byte[] text, int[] lineStarts, int count, BitSet done, Function<String, Task> parser) {
+        assert text != null : "Text should not be null";
+        assert count >= 0 && count <= lineStarts.length : "Count should be within the line starts";
+        assert done != null : "Done flags should not be null";
+        assert parser != null : "Parser should not be null";
+
+        this.text = text;
+        this.lineStarts = lineStarts;
+        this.count = count;
+        this.done = done;
+        this.parser = parser;
+    }
+
+    public int size() {
+        return count;
+    }
+}
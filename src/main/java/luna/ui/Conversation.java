@@ -0,0 +1,130 @@
+package luna.ui;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Keeps the messages shown in the conversation view, holding at most a set number in memory. Older
+ * messages move to an on-disk transcript, and an entry at the top loads them back a page at a time.
+ */
+public class Conversation implements AutoCloseable {
+    private static final int PAGE_SIZE = 100;
+
+    // The list the view shows, whose first entry is the earlier-messages entry while any are on disk
+    private final List<Message> items;
+    private final int historyLimit;
+    private Transcript transcript;
+    // Number of messages before the first one in memory, all of which are in the transcript
+    private int firstInMemory = 0;
+
+    /**
+     * Creates a conversation that shows its messages in the given list and keeps at most the given
+     * number of them in memory
+     */
+    public Conversation(List<Message> items, int historyLimit) {
+        assert items != null && items.isEmpty() : "Items should be an empty list";
+        assert historyLimit > 0 : "History limit should be positive";
+
+        this.items = items;
+        this.historyLimit = historyLimit;
+    }
+
+    /**
+     * Adds a message to the end, moving the oldest ones to disk if there are too many in memory
+     */
+    public void add(Message message) {
+        assert message.getKind() != Message.Kind.EARLIER : "Earlier-messages entry is managed internally";
+
+        items.add(message);
+        // Trimming down to three quarters of the limit means trims happen rarely, each as one change
+        if (getInMemoryCount() > historyLimit) {
+            trimTo(historyLimit - historyLimit / 4);
+        }
+    }
+
+    /**
+     * Replaces a message, normally a pending reply, with another. Does nothing if it is not shown.
+     */
+    public void replace(Message message, Message replacement) {
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (items.get(i) == message) {
+                items.set(i, replacement);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Loads the page of messages just before the earliest one in memory back from disk
+     */
+    public void showEarlier() {
+        if (firstInMemory == 0) {
+            return;
+        }
+        int from = Math.max(0, firstInMemory - PAGE_SIZE);
+        List<Message> page;
+        try {
+            page = transcript.read(from, firstInMemory);
+        } catch (IOException e) {
+            System.out.println("Error reading earlier messages: " + e.getMessage());
+            return;
+        }
+
+        items.remove(0);
+        firstInMemory = from;
+        if (firstInMemory > 0) {
+            page.add(0, Message.earlier(firstInMemory));
+        }
+        items.addAll(0, page);
+    }
+
+    public int getInMemoryCount() {
+        return items.size() - (firstInMemory > 0 ? 1 : 0);
+    }
+
+    /**
+     * Deletes the transcript of earlier messages
+     */
+    @Override
+    public void close() {
+        if (transcript == null) {
+            return;
+        }
+        try {
+            transcript.close();
+        } catch (IOException e) {
+            System.out.println("Error deleting transcript: " + e.getMessage());
+        }
+    }
+
+    private void trimTo(int count) {
+        int offset = firstInMemory > 0 ? 1 : 0;
+        int toRemove = getInMemoryCount() - count;
+        int removed = 0;
+        try {
+            if (transcript == null) {
+                transcript = Transcript.createTemporary();
+            }
+            for (; removed < toRemove; removed++) {
+                Message message = items.get(offset + removed);
+                if (message.getKind() == Message.Kind.PENDING) {
+                    // Its reply has yet to replace it, so it stays shown along with everything after it
+                    break;
+                }
+                // Messages loaded back from disk are already in the transcript
+                if (firstInMemory + removed == transcript.size()) {
+                    transcript.append(message);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing transcript: " + e.getMessage());
+        }
+        if (removed == 0) {
+            return;
+        }
+
+        items.subList(0, offset + removed).clear();
+        firstInMemory += removed;
+        items.add(0, Message.earlier(firstInMemory));
+    }
+}
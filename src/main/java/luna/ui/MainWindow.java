@@ -1,42 +1,80 @@
 package luna.ui;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 import luna.Luna;
 /**
  * Controller for the main GUI.
  */
 public class MainWindow extends AnchorPane {
+    /** System property giving the most messages the conversation keeps in memory */
+    public static final String HISTORY_LIMIT_PROPERTY = "luna.gui.historyLimit";
+    private static final int DEFAULT_HISTORY_LIMIT = 500;
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<Message> conversationView;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
+    @FXML
+    private ProgressIndicator loadingIndicator;
 
+    // Only used on the command thread, and null until loaded or if loading failed
     private Luna luna;
+    private Conversation conversation;
+    // Runs commands one at a time in the order they were entered, keeping saves off the FX thread
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "luna-commands");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private Image userImage = new Image(this.getClass().getResourceAsStream("/images/DaUser.png"));
-    private Image lunaImage = new Image(this.getClass().getResourceAsStream("/images/DaLuna.png"));
+    // Decoded in the background, so they appear once ready instead of delaying the first frame
+    private Image userImage = new Image(this.getClass().getResource("/images/DaUser.png").toExternalForm(), true);
+    private Image lunaImage = new Image(this.getClass().getResource("/images/DaLuna.png").toExternalForm(), true);
 
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
+        int historyLimit = Math.max(1, Integer.getInteger(HISTORY_LIMIT_PROPERTY, DEFAULT_HISTORY_LIMIT));
+        conversation = new Conversation(conversationView.getItems(), historyLimit);
+        conversationView.setCellFactory(view -> new MessageCell(userImage, lunaImage, conversation::showEarlier));
     }
 
-    /** Injects the Luna instance */
-    public void setLuna(Luna d) {
-        luna = d;
-        // Show welcome message when Luna is set
+    /**
+     * Shows the welcome message and creates Luna on the command thread, showing progress until it is ready.
+     * Commands entered meanwhile wait behind it and run in order once the tasks are loaded.
+     */
+    public void load(Supplier<Luna> lunaFactory, StartupMetrics startupMetrics) {
         showWelcomeMessage();
+        loadingIndicator.setVisible(true);
+        commandExecutor.execute(() -> {
+            String error = null;
+            try {
+                luna = lunaFactory.get();
+            } catch (RuntimeException e) {
+                error = "Error loading tasks: " + e.getMessage();
+            }
+            String message = error;
+            Platform.runLater(() -> {
+                loadingIndicator.setVisible(false);
+                if (message != null) {
+                    conversation.add(Message.fromLuna(message));
+                }
+                startupMetrics.markInteractive();
+            });
+        });
     }
 
     /**
@@ -44,28 +82,64 @@ public class MainWindow extends AnchorPane {
      */
     private void showWelcomeMessage() {
         String welcomeMessage = "Hello, nice to meet you! I'm Luna\nWhat can I do for you?";
-        dialogContainer.getChildren().add(
-                DialogBox.getLunaDialog(welcomeMessage, lunaImage)
-        );
+        conversation.add(Message.fromLuna(welcomeMessage));
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Luna's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Adds two messages, one echoing user input and the other a pending reply, to the conversation. The
+     * command runs in the background and its reply replaces the pending message, so the user can keep
+     * entering commands meanwhile.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = luna.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getLunaDialog(response, lunaImage)
-        );
+        Message reply = Message.pending();
+        conversation.add(Message.fromUser(input));
+        conversation.add(reply);
+        conversationView.scrollTo(conversationView.getItems().size() - 1);
         userInput.clear();
 
-        // Check if the application should exit after processing the command
-        if (luna.shouldExit()) {
-            Platform.exit(); // Close the JavaFX application
+        commandExecutor.execute(() -> {
+            if (luna != null && luna.shouldExit()) {
+                // Commands entered after "bye" are dropped, since storage is already closed, but their
+                // pending replies still need resolving so they do not wait forever
+                Platform.runLater(() -> conversation.replace(reply,
+                        Message.fromLuna("Error: Luna has already said goodbye, so this command was not run")));
+                return;
+            }
+            String response;
+            try {
+                response = luna == null ? "Error: Tasks could not be loaded" : luna.getResponse(input);
+            } catch (RuntimeException e) {
+                response = "Error: " + e.getMessage();
+            }
+            String text = response;
+            boolean shouldExit = luna != null && luna.shouldExit();
+            Platform.runLater(() -> {
+                conversation.replace(reply, Message.fromLuna(text));
+                if (shouldExit) {
+                    Platform.exit(); // Close the JavaFX application
+                }
+            });
+        });
+    }
+
+    /**
+     * Waits for the commands already entered to finish, closes Luna and deletes the transcript, for when the
+     * window closes
+     */
+    public void shutdown() {
+        commandExecutor.execute(() -> {
+            if (luna != null) {
+                luna.close();
+            }
+        });
+        commandExecutor.shutdown();
+        try {
+            commandExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        conversation.close();
     }
 }
@@ -0,0 +1,66 @@
+package luna.ui;
+
+/**
+ * One entry in the conversation view: something the user said, a reply from Luna or one still being
+ * worked out, or the entry standing in for earlier messages that were moved to disk
+ */
+public final class Message {
+    /**
+     * What a message is, which decides how it is shown
+     */
+    public enum Kind {
+        USER, LUNA, PENDING, EARLIER
+    }
+
+    private final Kind kind;
+    private final String text;
+
+    private Message(Kind kind, String text) {
+        assert text != null : "Message text should not be null";
+        this.kind = kind;
+        this.text = text;
+    }
+
+    /**
+     * Creates a message the user entered
+     */
+    public static Message fromUser(String text) {
+        return new Message(Kind.USER, text);
+    }
+
+    /**
+     * Creates a reply from Luna
+     */
+    public static Message fromLuna(String text) {
+        return new Message(Kind.LUNA, text);
+    }
+
+    /**
+     * Creates a placeholder for a reply that has not arrived yet
+     */
+    public static Message pending() {
+        return new Message(Kind.PENDING, "...");
+    }
+
+    /**
+     * Creates the entry that loads earlier messages back from disk when clicked
+     */
+    static Message earlier(int count) {
+        return new Message(Kind.EARLIER, "Show " + count + " earlier messages");
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Checks if the message is shown on the user's side of the conversation
+     */
+    public boolean isFromUser() {
+        return kind == Kind.USER;
+    }
+}
@@ -0,0 +1,74 @@
+package luna.ui;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+
+/**
+ * Shows one message in the conversation view. The list view only creates enough cells to fill the
+ * window and reuses them as it scrolls, so each cell builds its nodes once and only changes their
+ * contents in updateItem.
+ */
+class MessageCell extends ListCell<Message> {
+    private static final double PICTURE_SIZE = 99.0;
+
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
+    private final HBox box = new HBox();
+    private final Image userImage;
+    private final Image lunaImage;
+
+    MessageCell(Image userImage, Image lunaImage, Runnable showEarlier) {
+        this.userImage = userImage;
+        this.lunaImage = lunaImage;
+
+        dialog.setWrapText(true);
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setPreserveRatio(true);
+        box.setPadding(new Insets(15, 5, 15, 5));
+
+        // Lets the cell follow the width of the list, so long messages wrap instead of scrolling sideways
+        setPrefWidth(0);
+        setOnMouseClicked(event -> {
+            if (getItem() != null && getItem().getKind() == Message.Kind.EARLIER) {
+                showEarlier.run();
+            }
+        });
+    }
+
+    @Override
+    protected void updateItem(Message message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+        if (isEmpty || message == null) {
+            setText(null);
+            setGraphic(null);
+            return;
+        }
+        if (message.getKind() == Message.Kind.EARLIER) {
+            setText(message.getText());
+            setGraphic(null);
+            setAlignment(Pos.CENTER);
+            return;
+        }
+
+        dialog.setText(message.getText());
+        if (message.isFromUser()) {
+            displayPicture.setImage(userImage);
+            box.getChildren().setAll(dialog, displayPicture);
+            box.setAlignment(Pos.TOP_RIGHT);
+        } else {
+            displayPicture.setImage(lunaImage);
+            box.getChildren().setAll(displayPicture, dialog);
+            box.setAlignment(Pos.TOP_LEFT);
+        }
+        setText(null);
+        setGraphic(box);
+    }
+}
@@ -0,0 +1,60 @@
+package luna.ui;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Measures how long the GUI takes from process start to showing its first frame, and to being ready
+ * to answer commands, and prints both once they are known
+ */
+public class StartupMetrics {
+    private final Instant start;
+    private Duration firstFrame;
+    private Duration interactive;
+
+    StartupMetrics(Instant start) {
+        this.start = start;
+    }
+
+    /**
+     * Creates metrics measured from when the process started, or from now if that is not known
+     */
+    public static StartupMetrics sinceProcessStart() {
+        return new StartupMetrics(ProcessHandle.current().info().startInstant().orElseGet(Instant::now));
+    }
+
+    /**
+     * Records that the window has laid out its first frame
+     */
+    public synchronized void markFirstFrame() {
+        if (firstFrame == null) {
+            firstFrame = Duration.between(start, Instant.now());
+            report();
+        }
+    }
+
+    /**
+     * Records that the tasks are loaded and commands are answered
+     */
+    public synchronized void markInteractive() {
+        if (interactive == null) {
+            interactive = Duration.between(start, Instant.now());
+            report();
+        }
+    }
+
+    public synchronized Duration getFirstFrame() {
+        return firstFrame;
+    }
+
+    public synchronized Duration getInteractive() {
+        return interactive;
+    }
+
+    private void report() {
+        if (firstFrame != null && interactive != null) {
+            System.out.println("Startup: first frame after " + firstFrame.toMillis() + " ms, interactive after "
+                    + interactive.toMillis() + " ms");
+        }
+    }
+}
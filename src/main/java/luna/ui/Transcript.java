@@ -0,0 +1,110 @@
+package luna.ui;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only file of the conversation messages that no longer fit in memory, one per line with
+ * newlines escaped. The offset of every line is kept, so any range of messages is read with one seek.
+ */
+class Transcript implements Closeable {
+    private final Path path;
+    private final RandomAccessFile file;
+    // offsets[i] is where message i starts, and offsets[size] is the end of the file
+    private long[] offsets = new long[64];
+    private int size = 0;
+
+    Transcript(Path path) throws IOException {
+        this.path = path;
+        this.file = new RandomAccessFile(path.toFile(), "rw");
+        this.file.setLength(0);
+    }
+
+    /**
+     * Creates a transcript in a temporary file that is deleted when it is closed
+     */
+    static Transcript createTemporary() throws IOException {
+        Path path = Files.createTempFile("luna-transcript", ".txt");
+        path.toFile().deleteOnExit();
+        return new Transcript(path);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a message said by the user or Luna
+     */
+    void append(Message message) throws IOException {
+        assert message.getKind() == Message.Kind.USER || message.getKind() == Message.Kind.LUNA
+                : "Only finished messages should be written to the transcript";
+
+        String line = (message.isFromUser() ? 'U' : 'L') + escape(message.getText()) + '\n';
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        file.seek(offsets[size]);
+        file.write(bytes);
+
+        if (size + 1 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[size + 1] = offsets[size] + bytes.length;
+        size++;
+    }
+
+    /**
+     * Reads back the messages from the first index up to but excluding the second
+     */
+    List<Message> read(int from, int to) throws IOException {
+        assert from >= 0 && from <= to && to <= size : "Range should be within the transcript";
+
+        byte[] bytes = new byte[(int) (offsets[to] - offsets[from])];
+        file.seek(offsets[from]);
+        file.readFully(bytes);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+
+        List<Message> messages = new ArrayList<>(to - from);
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            String body = unescape(text.substring(start + 1, end));
+            messages.add(text.charAt(start) == 'U' ? Message.fromUser(body) : Message.fromLuna(body));
+            start = end + 1;
+        }
+        return messages;
+    }
+
+    /**
+     * Closes and deletes the transcript file
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+        Files.deleteIfExists(path);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private static String unescape(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(++i);
+                result.append(escaped == 'n' ? '\n' : escaped);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package luna.ui;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Passes text on to another writer without its leading and trailing whitespace, as String.trim would,
+ * but without holding the text: only a run of whitespace is held back until it is known not to end it.
+ */
+class TrimmingWriter extends Writer {
+    private final Writer out;
+    private final StringBuilder heldWhitespace = new StringBuilder();
+    private boolean hasWritten = false;
+
+    /**
+     * Creates a writer that trims what it passes on to out
+     */
+    TrimmingWriter(Writer out) {
+        assert out != null : "Writer should not be null";
+        this.out = out;
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+        writeTrimmed(text, offset, offset + length);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        writeTrimmed(CharBuffer.wrap(chars), offset, offset + length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flushes without closing the writer underneath, which belongs to the caller
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void writeTrimmed(CharSequence text, int start, int end) throws IOException {
+        int first = start;
+        if (!hasWritten) {
+            while (first < end && text.charAt(first) <= ' ') {
+                first++;
+            }
+        }
+        int last = end;
+        while (last > first && text.charAt(last - 1) <= ' ') {
+            last--;
+        }
+        if (last > first) {
+            out.append(heldWhitespace);
+            heldWhitespace.setLength(0);
+            if (text instanceof String) {
+                out.write((String) text, first, last - first);
+            } else {
+                out.append(text, first, last);
+            }
+            hasWritten = true;
+        }
+        if (hasWritten) {
+            heldWhitespace.append(text, last, end);
+        }
+    }
+}
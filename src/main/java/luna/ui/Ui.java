@@ -1,5 +1,15 @@
 package luna.ui;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 import luna.task.Task;
@@ -8,17 +18,32 @@ import luna.task.Task;
  * Deals with interactions with the user
  */
 public class Ui {
+    private static final int CONSOLE_BUFFER_CHARS = 64 * 1024;
+
     private Scanner scanner;
     private StringBuilder output;
     private boolean isCaptureMode;
+    // Where output goes: the capture buffer, a streaming writer or the buffered console
+    private Appendable target;
+    private Writer console;
 
     /**
-     * Default constructor for console mode
+     * Default constructor for console mode, which buffers output and writes it to standard output
+     * when flushed, once per response, rather than once per fragment
      */
     public Ui() {
-        this.scanner = new Scanner(System.in);
+        this(System.in, standardOutput());
+    }
+
+    /**
+     * Constructor for console mode that reads commands from in and writes output to console
+     */
+    Ui(InputStream in, Writer console) {
+        this.scanner = new Scanner(in);
         this.output = new StringBuilder();
         this.isCaptureMode = false;
+        this.console = new BufferedWriter(console, CONSOLE_BUFFER_CHARS);
+        this.target = this.console;
     }
 
     /**
@@ -28,6 +53,11 @@ public class Ui {
         this.scanner = null;
         this.output = new StringBuilder();
         this.isCaptureMode = isCaptureMode;
+        this.target = output;
+        if (!isCaptureMode) {
+            this.console = new BufferedWriter(standardOutput(), CONSOLE_BUFFER_CHARS);
+            this.target = console;
+        }
 
         assert this.output != null : "Output buffer should be initialized";
         assert this.isCaptureMode == isCaptureMode : "Capture mode should be set correctly";
@@ -37,17 +67,76 @@ public class Ui {
         }
     }
 
+    /**
+     * Constructor for streaming mode, which writes output to the writer as it is produced, trimmed and
+     * formatted as in capture mode, instead of holding it. Failures to write are thrown as
+     * UncheckedIOException.
+     */
+    public Ui(Writer writer) {
+        this(true);
+        assert writer != null : "Writer should not be null";
+        this.target = new TrimmingWriter(writer);
+    }
+
+    /**
+     * Returns a writer straight to the standard output channel, bypassing the synchronized System.out
+     */
+    private static Writer standardOutput() {
+        return new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), Charset.defaultCharset());
+    }
+
     /**
      * Helper method to either print or capture output
      */
     private void addOutput(String text) {
         assert text != null : "Output text should not be null";
-        assert output != null : "Output buffer should not be null";
+        assert target != null : "Output target should not be null";
 
-        if (isCaptureMode) {
-            output.append(text);
-        } else {
-            System.out.print(text);
+        try {
+            target.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds the task as toString shows it, writing its fields straight to the output
+     */
+    private void addTask(Task task) {
+        try {
+            task.appendTo(target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds a numbered line for the task, followed by its id if asked to
+     */
+    private void addTaskLine(String indent, int number, String separator, Task task, boolean isShowingIds) {
+        addOutput(indent);
+        addOutput(Integer.toString(number));
+        addOutput(separator);
+        addTask(task);
+        if (isShowingIds) {
+            addOutput(" #");
+            addOutput(Long.toString(task.getId()));
+        }
+        addOutput("\n");
+    }
+
+    /**
+     * Writes the console output of the response so far to standard output. Does nothing in capture
+     * mode, and leaves flushing a streaming writer to its owner.
+     */
+    public void flush() {
+        if (console == null) {
+            return;
+        }
+        try {
+            console.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -94,6 +183,7 @@ public class Ui {
      * Reads the next line of user input
      */
     public String readCommand() {
+        flush();
         return scanner.nextLine();
     }
 
@@ -101,6 +191,7 @@ public class Ui {
      * Checks if there is more input available
      */
     public boolean hasMoreInput() {
+        flush();
         return scanner.hasNextLine();
     }
 
@@ -114,13 +205,40 @@ public class Ui {
     /**
      * Shows the list of tasks to the user
      */
-    public void showTaskList(ArrayList<Task> tasks) {
+    public void showTaskList(List<Task> tasks) {
+        showTaskList(tasks, false);
+    }
+
+    /**
+     * Shows the list of tasks to the user, each followed by its id if isShowingIds is true
+     */
+    public void showTaskList(List<Task> tasks, boolean isShowingIds) {
+        if (tasks.isEmpty()) {
+            addOutput("No tasks in your list yet!");
+        } else {
+            int number = 1;
+            for (Task task : tasks) {
+                addTaskLine("", number++, ". ", task, isShowingIds);
+            }
+        }
+        if (!isCaptureMode) {
+            addOutput("\n");
+        }
+    }
+
+    /**
+     * Shows one page of the list of tasks, from index from to index to, exclusive, numbered by their
+     * place in the whole list and followed by their ids if isShowingIds is true
+     */
+    public void showTaskPage(List<Task> tasks, int from, int to, int page, int pageCount, boolean isShowingIds) {
         if (tasks.isEmpty()) {
             addOutput("No tasks in your list yet!");
         } else {
-            for (int i = 0; i < tasks.size(); i++) {
-                addOutput((i + 1) + ". " + tasks.get(i).toString() + "\n");
+            int number = from + 1;
+            for (Task task : tasks.subList(from, to)) {
+                addTaskLine("", number++, ". ", task, isShowingIds);
             }
+            addPageFooter("tasks", tasks.size(), from, to, page, pageCount);
         }
         if (!isCaptureMode) {
             addOutput("\n");
@@ -132,7 +250,9 @@ public class Ui {
      */
     public void showTaskAdded(Task task, int totalTasks) {
         addOutput(" The following task has been added:\n");
-        addOutput("  " + task.toString() + "\n");
+        addOutput("  ");
+        addTask(task);
+        addOutput("\n");
         addOutput(" Now you have " + totalTasks + " tasks in the list.");
         if (!isCaptureMode) {
             addOutput("\n\n");
@@ -144,7 +264,8 @@ public class Ui {
      */
     public void showTaskMarked(Task task) {
         addOutput("Nice! This task has been marked as done:\n");
-        addOutput("  " + task.toString());
+        addOutput("  ");
+        addTask(task);
         if (!isCaptureMode) {
             addOutput("\n\n");
         }
@@ -155,7 +276,8 @@ public class Ui {
      */
     public void showTaskUnmarked(Task task) {
         addOutput("OK, This task has been marked as not done yet:\n");
-        addOutput("  " + task.toString());
+        addOutput("  ");
+        addTask(task);
         if (!isCaptureMode) {
             addOutput("\n\n");
         }
@@ -166,7 +288,34 @@ public class Ui {
      */
     public void showTaskDeleted(Task task, int totalTasks) {
         addOutput("The following task has been removed:\n");
-        addOutput("  " + task.toString() + "\n");
+        addOutput("  ");
+        addTask(task);
+        addOutput("\n");
+        addOutput("Now you have " + totalTasks + " tasks in the list.");
+        if (!isCaptureMode) {
+            addOutput("\n\n");
+        }
+    }
+
+    /**
+     * Shows a message when several tasks are marked as done or not done at once
+     */
+    public void showTasksMarked(int count, boolean isDone) {
+        if (isDone) {
+            addOutput("Nice! " + count + " tasks have been marked as done.");
+        } else {
+            addOutput("OK, " + count + " tasks have been marked as not done yet.");
+        }
+        if (!isCaptureMode) {
+            addOutput("\n\n");
+        }
+    }
+
+    /**
+     * Shows a message when several tasks are deleted at once
+     */
+    public void showTasksDeleted(int count, int totalTasks) {
+        addOutput(count + " tasks have been removed.\n");
         addOutput("Now you have " + totalTasks + " tasks in the list.");
         if (!isCaptureMode) {
             addOutput("\n\n");
@@ -182,14 +331,60 @@ public class Ui {
         } else {
             addOutput("Here are the matching tasks in your list:\n");
             for (int i = 0; i < matchingTasks.size(); i++) {
-                addOutput(" " + (i + 1) + "." + matchingTasks.get(i).toString() + "\n");
+                addTaskLine(" ", i + 1, ".", matchingTasks.get(i), false);
+            }
+        }
+        if (!isCaptureMode) {
+            addOutput("\n");
+        }
+    }
+
+    /**
+     * Shows one page of the search results, from index from to index to, exclusive
+     */
+    public void showSearchPage(List<Task> matchingTasks, int from, int to, int page, int pageCount) {
+        if (matchingTasks.isEmpty()) {
+            addOutput("No matching tasks found.");
+        } else {
+            addOutput("Here are the matching tasks in your list:\n");
+            int number = from + 1;
+            for (Task task : matchingTasks.subList(from, to)) {
+                addTaskLine(" ", number++, ".", task, false);
             }
+            addPageFooter("matching tasks", matchingTasks.size(), from, to, page, pageCount);
         }
         if (!isCaptureMode) {
             addOutput("\n");
         }
     }
 
+    /**
+     * Says which part of how many items a page shows, and how to move to the pages around it
+     */
+    private void addPageFooter(String items, int total, int from, int to, int page, int pageCount) {
+        addOutput("Showing " + (from + 1) + "-" + to + " of " + total + " " + items
+                + " (page " + page + " of " + pageCount + ")");
+        if (from > 0 && to < total) {
+            addOutput(". Type next or prev for more.\n");
+        } else if (to < total) {
+            addOutput(". Type next for more.\n");
+        } else if (from > 0) {
+            addOutput(". Type prev for earlier ones.\n");
+        } else {
+            addOutput(".\n");
+        }
+    }
+
+    /**
+     * Shows the command latency report
+     */
+    public void showStats(String report) {
+        addOutput(report + "\n");
+        if (!isCaptureMode) {
+            addOutput("\n");
+        }
+    }
+
     /**
      * Shows undo success message
      */
@@ -201,9 +396,20 @@ public class Ui {
     }
 
     /**
-     * Closes the scanner
+     * Shows redo success message
+     */
+    public void showRedoSuccess() {
+        addOutput("Redo successful! Reapplied the last undone command.\n");
+        if (!isCaptureMode) {
+            addOutput("\n");
+        }
+    }
+
+    /**
+     * Writes any console output left and closes the scanner
      */
     public void close() {
+        flush();
         scanner.close();
     }
 }
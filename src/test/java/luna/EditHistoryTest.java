@@ -0,0 +1,125 @@
+package luna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import luna.storage.Storage;
+
+/**
+ * Test class for EditHistory, driven through Luna's undo and redo commands
+ */
+public class EditHistoryTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void undo_severalCommands_revertedInReverseOrder() {
+        Luna luna = new Luna(new Storage(tempDir.resolve("luna.txt").toString()));
+        luna.getResponse("todo read book");
+        luna.getResponse("todo buy milk");
+        luna.getResponse("mark 1");
+        luna.getResponse("delete 2");
+
+        luna.getResponse("undo");
+        assertEquals("1. [T] [X] read book\n2. [T] [ ] buy milk", luna.getResponse("list"));
+        luna.getResponse("undo");
+        luna.getResponse("undo");
+        assertEquals("1. [T] [ ] read book", luna.getResponse("list"));
+        luna.getResponse("undo");
+        assertEquals("Error: No previous command to undo", luna.getResponse("undo"));
+    }
+
+    @Test
+    public void undo_changeFromAnotherSession_rejected() {
+        Luna luna = new Luna(new Storage(tempDir.resolve("luna.txt").toString()));
+        Session first = new Session();
+        Session second = new Session();
+        luna.getResponse("todo read book", first);
+        luna.getResponse("todo buy milk", second);
+
+        assertEquals("Error: The last change was made by another client, so it cannot be undone here",
+                luna.getResponse("undo", first));
+        luna.getResponse("undo", second);
+        assertEquals("1. [T] [ ] read book", luna.getResponse("list", first));
+        assertEquals("Error: The last change was undone by another client, so it cannot be redone here",
+                luna.getResponse("redo", first));
+    }
+
+    @Test
+    public void redo_afterUndo_reappliesUntilNewChange() {
+        Luna luna = new Luna(new Storage(tempDir.resolve("luna.txt").toString()));
+        luna.getResponse("todo read book");
+        luna.getResponse("todo buy milk");
+        luna.getResponse("delete 1");
+        luna.getResponse("undo");
+        luna.getResponse("undo");
+
+        luna.getResponse("redo");
+        assertEquals("1. [T] [ ] read book\n2. [T] [ ] buy milk", luna.getResponse("list"));
+        luna.getResponse("todo call mom");
+        assertEquals("Error: No undone command to redo", luna.getResponse("redo"));
+    }
+
+    @Test
+    public void undo_bulkCommands_revertedAsOneChange() {
+        Luna luna = new Luna(new Storage(tempDir.resolve("luna.txt").toString()));
+        for (int i = 1; i <= 6; i++) {
+            luna.getResponse("todo task " + i);
+        }
+
+        assertEquals("Nice! 4 tasks have been marked as done.", luna.getResponse("mark 2-4, 6"));
+        assertEquals("3 tasks have been removed.\nNow you have 3 tasks in the list.",
+                luna.getResponse("delete 1,3-4"));
+        assertEquals("1. [T] [X] task 2\n2. [T] [ ] task 5\n3. [T] [X] task 6", luna.getResponse("list"));
+
+        luna.getResponse("undo");
+        luna.getResponse("undo");
+        assertEquals("1. [T] [ ] task 1\n2. [T] [ ] task 2\n3. [T] [ ] task 3\n"
+                + "4. [T] [ ] task 4\n5. [T] [ ] task 5\n6. [T] [ ] task 6", luna.getResponse("list"));
+        luna.getResponse("redo");
+        assertEquals("OK, 2 tasks have been marked as not done yet.", luna.getResponse("unmark #2-#3"));
+        assertEquals("Error: Task index is out of bounds", luna.getResponse("delete 5-7"));
+        assertEquals("Error: Please separate task numbers with single commas", luna.getResponse("delete 1,,2"));
+    }
+
+    @Test
+    public void undo_afterBulkMarkChangingNothing_revertsEarlierChange() {
+        Luna luna = new Luna(new Storage(tempDir.resolve("luna.txt").toString()));
+        luna.getResponse("todo read book");
+        luna.getResponse("todo buy milk");
+        luna.getResponse("mark 1-2");
+        luna.getResponse("undo");
+        luna.getResponse("unmark 1-2");
+
+        luna.getResponse("redo");
+        assertEquals("1. [T] [X] read book\n2. [T] [X] buy milk", luna.getResponse("list"));
+        luna.getResponse("mark 1-2");
+        luna.getResponse("undo");
+        assertEquals("1. [T] [ ] read book\n2. [T] [ ] buy milk", luna.getResponse("list"));
+    }
+
+    @Test
+    public void undo_journalMode_persistedAfterReload() {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Luna luna = new Luna(new Storage(filePath, true));
+        luna.getResponse("todo read book");
+        luna.getResponse("todo buy milk");
+        luna.getResponse("todo call mom");
+        luna.getResponse("mark 2");
+        luna.getResponse("delete 2");
+        luna.getResponse("undo");
+        luna.getResponse("undo");
+        luna.getResponse("delete 1-2");
+        luna.getResponse("undo");
+        luna.close();
+
+        Luna reloaded = new Luna(new Storage(filePath, true));
+        assertEquals("1. [T] [ ] read book\n2. [T] [ ] buy milk\n3. [T] [ ] call mom",
+                reloaded.getResponse("list"));
+        reloaded.close();
+    }
+}
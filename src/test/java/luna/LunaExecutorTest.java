@@ -0,0 +1,76 @@
+package luna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import luna.storage.Storage;
+
+/**
+ * Test class for LunaExecutor
+ */
+public class LunaExecutorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void submit_concurrentWriters_everyCommandAppliedOnce() throws InterruptedException {
+        LunaExecutor executor = new LunaExecutor(new Luna(new Storage(tempDir.resolve("luna.txt").toString())));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    executor.submit("todo task " + thread + "-" + i).join();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        String[] lines = executor.submit("list").join().split("\n");
+        assertEquals(800, lines.length);
+        assertEquals(800, Arrays.stream(lines).map(line -> line.substring(line.indexOf(' '))).distinct().count());
+        executor.close();
+    }
+
+    @Test
+    public void submit_readAfterCompletedWrite_seesChangeWithoutWaiting() {
+        LunaExecutor executor = new LunaExecutor(new Luna(new Storage(tempDir.resolve("luna.txt").toString())));
+
+        executor.submit("todo read book").join();
+        executor.submit("mark 1").join();
+        CompletableFuture<String> list = executor.submit("list");
+
+        assertTrue(list.isDone());
+        assertEquals("1. [T] [X] read book", list.join());
+        assertEquals("Here are the matching tasks in your list:\n 1.[T] [X] read book",
+                executor.submit("find BOOK").join());
+        executor.close();
+    }
+
+    @Test
+    public void close_queuedCommands_runAndLaterOnesRejected() {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        LunaExecutor executor = new LunaExecutor(new Luna(new Storage(filePath)));
+        for (int i = 0; i < 50; i++) {
+            executor.submit("todo task " + i);
+        }
+        executor.close();
+
+        assertThrows(CompletionException.class, () -> executor.submit("todo too late").join());
+        assertEquals(50, new Luna(new Storage(filePath)).getResponse("list").split("\n").length);
+    }
+}
@@ -0,0 +1,157 @@
+package luna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import luna.storage.Durability;
+import luna.storage.Storage;
+
+/**
+ * Test class for paging and streaming the responses of Luna
+ */
+public class LunaTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void list_pageAndSize_showsOnlyThatPageNumberedInWholeList() {
+        Luna luna = newLuna(25);
+
+        String response = luna.getResponse("list /page 2 /size 10");
+
+        String[] lines = response.split("\n");
+        assertEquals(11, lines.length);
+        assertEquals("11. [T] [ ] task 11", lines[0]);
+        assertEquals("20. [T] [ ] task 20", lines[9]);
+        assertEquals("Showing 11-20 of 25 tasks (page 2 of 3). Type next or prev for more.", lines[10]);
+    }
+
+    @Test
+    public void list_idsOption_showsIdsThatCommandsAccept() {
+        Luna luna = newLuna(5);
+        luna.getResponse("delete 1");
+
+        String[] lines = luna.getResponse("list /ids").split("\n");
+        String id = lines[1].substring(lines[1].lastIndexOf(" #") + 1);
+        luna.getResponse("mark " + id);
+
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].startsWith("2. [T] [ ] task 3 #"), lines[1]);
+        assertTrue(luna.getResponse("list").startsWith("1. [T] [ ] task 2\n2. [T] [X] task 3\n"));
+    }
+
+    @Test
+    public void next_afterPageWithIds_keepsShowingIds() {
+        Luna luna = newLuna(5);
+        luna.getResponse("list /ids /size 2");
+
+        String response = luna.getResponse("next");
+
+        assertTrue(response.startsWith("3. [T] [ ] task 3 #"), response);
+        assertTrue(luna.getResponse("list /size 2").startsWith("1. [T] [ ] task 1\n"));
+    }
+
+    @Test
+    public void list_pageAfterEnd_error() {
+        Luna luna = newLuna(25);
+
+        assertEquals("Error: There is no page 4, only 3", luna.getResponse("list /page 4 /size 10"));
+        assertTrue(luna.getResponse("list /page 0").startsWith("Error: "));
+        assertTrue(luna.getResponse("list /page two").startsWith("Error: "));
+    }
+
+    @Test
+    public void next_afterEditsBeforePage_continuesAfterLastTaskShown() {
+        Luna luna = newLuna(25);
+        luna.getResponse("list /page 1 /size 10");
+        luna.getResponse("delete 1-3");
+        luna.getResponse("todo added later");
+
+        String response = luna.getResponse("next");
+
+        String[] lines = response.split("\n");
+        assertEquals("8. [T] [ ] task 11", lines[0]);
+        assertEquals("Showing 8-17 of 23 tasks (page 2 of 3). Type next or prev for more.", lines[10]);
+    }
+
+    @Test
+    public void nextAndPrev_atEnds_error() {
+        Luna luna = newLuna(15);
+
+        assertEquals("Error: Please show a page first, such as with list /page 1", luna.getResponse("next"));
+        luna.getResponse("list /size 10");
+        assertEquals("Error: This is already the first page", luna.getResponse("prev"));
+        String lastPage = luna.getResponse("next");
+        assertTrue(lastPage.endsWith("Showing 11-15 of 15 tasks (page 2 of 2). Type prev for earlier ones."), lastPage);
+        assertEquals("Error: This is already the last page", luna.getResponse("next"));
+        assertTrue(luna.getResponse("prev").startsWith("1. [T] [ ] task 1\n"));
+    }
+
+    @Test
+    public void find_withPage_pagesMatchesAndNextFollows() {
+        Luna luna = newLuna(25);
+
+        String response = luna.getResponse("find task 1 /size 4");
+
+        assertTrue(response.startsWith("Here are the matching tasks in your list:\n 1.[T] [ ] task 1\n"), response);
+        assertTrue(response.endsWith("Showing 1-4 of 11 matching tasks (page 1 of 3). Type next for more."), response);
+        assertTrue(luna.getResponse("next").contains(" 5.[T] [ ] task 13\n"));
+    }
+
+    @Test
+    public void list_pageOnSnapshot_nextOnOriginalFollows() {
+        Luna luna = newLuna(25);
+
+        luna.readOnlySnapshot().getResponse("list /size 10");
+
+        assertTrue(luna.getResponse("next").startsWith("11. [T] [ ] task 11\n"));
+    }
+
+    @Test
+    public void next_pagesShownToTwoSessions_eachFollowsItsOwn() {
+        Luna luna = newLuna(25);
+        Session first = new Session();
+        Session second = new Session();
+
+        luna.getResponse("list /size 10", first);
+        luna.readOnlySnapshot().getResponse("find task 1 /size 4", second);
+
+        assertTrue(luna.getResponse("next", first).startsWith("11. [T] [ ] task 11\n"));
+        assertTrue(luna.getResponse("next", second).contains(" 5.[T] [ ] task 13\n"));
+        assertEquals("Error: Please show a page first, such as with list /page 1",
+                luna.getResponse("next", new Session()));
+    }
+
+    @Test
+    public void writeResponse_anyCommand_writesSameAsGetResponse() throws IOException {
+        Luna luna = newLuna(5);
+        Luna streamingLuna = newLuna(5);
+        for (String command : new String[] {"list", "todo read book", "find task", "mark 2", "list /size 2",
+            "next", "nonsense", "delete 1"}) {
+            StringWriter out = new StringWriter();
+            boolean isSuccessful = streamingLuna.writeResponse(command, out);
+            String expected = luna.getResponse(command);
+            assertEquals(expected, out.toString(), command);
+            assertEquals(!expected.startsWith("Error: "), isSuccessful, command);
+        }
+        assertFalse(luna.writeResponse("nonsense", new StringWriter()));
+    }
+
+    private Luna newLuna(int taskCount) {
+        Storage storage = new Storage(tempDir.resolve("luna" + System.nanoTime() + ".txt").toString());
+        storage.setDurability(Durability.NONE);
+        Luna luna = new Luna(storage);
+        for (int i = 1; i <= taskCount; i++) {
+            luna.getResponse("todo task " + i);
+        }
+        return luna;
+    }
+}
@@ -0,0 +1,81 @@
+package luna;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import luna.storage.Durability;
+import luna.storage.Storage;
+
+/**
+ * Test class for ScriptRunner
+ */
+public class ScriptRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void run_script_repliesInOrderAndSavesAtEnd() throws IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        ScriptRunner runner = new ScriptRunner(newLuna(dataFile), 0);
+        StringWriter replies = new StringWriter();
+
+        runner.run(new BufferedReader(new StringReader("todo read book\n\nmark 1\nnonsense\nlist\n")), replies);
+
+        String[] lines = replies.toString().split("\n");
+        assertEquals("The following task has been added:", lines[0]);
+        assertEquals("Error: Sorry! I dont gets", lines[lines.length - 2]);
+        assertEquals("1. [T] [X] read book", lines[lines.length - 1]);
+        assertEquals(4, runner.getCommandCount());
+        assertEquals(1, runner.getErrorCount());
+        assertEquals(List.of("[T] [X] read book"), Files.readAllLines(dataFile));
+    }
+
+    @Test
+    public void run_checkpointInterval_savesEveryIntervalOnly() throws IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        List<Integer> savedCounts = new ArrayList<>();
+        BufferedReader commands = new BufferedReader(new StringReader("todo a\ntodo b\ntodo c\ntodo d\ntodo e\n")) {
+            @Override
+            public String readLine() throws IOException {
+                savedCounts.add(Files.exists(dataFile) ? Files.readAllLines(dataFile).size() : 0);
+                return super.readLine();
+            }
+        };
+
+        new ScriptRunner(newLuna(dataFile), 2).run(commands, new StringWriter());
+
+        assertEquals(List.of(0, 0, 2, 2, 4, 4), savedCounts);
+        assertEquals(5, Files.readAllLines(dataFile).size());
+    }
+
+    @Test
+    public void run_bye_stopsReading() throws IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        ScriptRunner runner = new ScriptRunner(newLuna(dataFile), 0);
+        StringWriter replies = new StringWriter();
+
+        runner.run(new BufferedReader(new StringReader("todo a\nbye\ntodo b\n")), replies);
+
+        assertEquals(2, runner.getCommandCount());
+        assertTrue(replies.toString().contains("Goodbye!"), replies.toString());
+        assertEquals(List.of("[T] [ ] a"), Files.readAllLines(dataFile));
+    }
+
+    private static Luna newLuna(Path dataFile) {
+        Storage storage = new Storage(dataFile.toString());
+        storage.setDurability(Durability.NONE);
+        return new Luna(storage);
+    }
+}
@@ -0,0 +1,83 @@
+package luna.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import luna.Luna;
+
+/**
+ * Test class for the Flight Recorder events emitted while Luna runs
+ */
+public class FlightRecorderEventsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void getResponse_recordingEnabled_emitsDomainEvents() throws IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        Files.writeString(dataFile, "[T] [ ] read book\nnot a task\n[D] [ ] return book (by: Sunday)\n");
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("luna.StorageLoad", "luna.StorageSave", "luna.CommandExecuted",
+                    "luna.SearchExecuted")) {
+                recording.enable(name).withoutThreshold();
+            }
+            recording.start();
+            Luna luna = new Luna(dataFile.toString());
+            luna.getResponse("todo buy book");
+            luna.getResponse("find book");
+            luna.getResponse("nonsense");
+            luna.close();
+            recording.stop();
+
+            Path recordingFile = tempDir.resolve("luna.jfr");
+            recording.dump(recordingFile);
+            events = RecordingFile.readAllEvents(recordingFile);
+        }
+
+        RecordedEvent load = only(events, "luna.StorageLoad");
+        assertEquals(2, load.getInt("taskCount"));
+        assertEquals(1, load.getLong("parseFailures"));
+        assertEquals("text", load.getString("format"));
+
+        assertTrue(named(events, "luna.StorageSave").stream().anyMatch(save -> save.getInt("taskCount") == 3));
+
+        RecordedEvent search = only(events, "luna.SearchExecuted");
+        assertEquals("contains", search.getString("mode"));
+        assertEquals(4, search.getInt("keywordLength"));
+        assertEquals(3, search.getInt("hits"));
+
+        List<RecordedEvent> commands = named(events, "luna.CommandExecuted");
+        assertEquals(List.of("todo", "find", "invalid"),
+                commands.stream().map(command -> command.getString("commandType")).collect(Collectors.toList()));
+        assertTrue(commands.get(0).getBoolean("isSuccessful"));
+        assertTrue(commands.get(0).getDuration("persistTime").toNanos() > 0);
+        assertEquals(3, commands.get(1).getInt("taskCount"));
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = named(events, name);
+        assertEquals(1, matching.size());
+        return matching.get(0);
+    }
+}
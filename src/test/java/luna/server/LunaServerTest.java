@@ -0,0 +1,154 @@
+package luna.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for LunaServer, talking to it over localhost
+ */
+public class LunaServerTest {
+    @TempDir
+    Path tempDir;
+
+    private LunaServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new LunaServer(tempDir);
+        server.start(0, 0);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void tcp_commands_answeredWithLineCountAndSharedAcrossClients() throws IOException {
+        try (Client first = new Client(server.getTcpPort()); Client second = new Client(server.getTcpPort())) {
+            assertEquals(List.of("The following task has been added:", "  [T] [ ] read book",
+                    " Now you have 1 tasks in the list."), first.send("todo read book"));
+            assertEquals(List.of("1. [T] [ ] read book"), second.send("list"));
+            assertEquals(List.of("Now using task list work"), second.send("use work"));
+            assertEquals(List.of("No tasks in your list yet!"), second.send("list"));
+            assertEquals(List.of("Goodbye! Hope to see you again"), first.send("bye"));
+        }
+    }
+
+    @Test
+    public void tcp_undo_onlyReversesOwnChanges() throws IOException {
+        try (Client first = new Client(server.getTcpPort()); Client second = new Client(server.getTcpPort())) {
+            first.send("todo read book");
+
+            assertEquals(List.of("Error: The last change was made by another client, so it cannot be undone here"),
+                    second.send("undo"));
+            first.send("undo");
+            assertEquals(List.of("No tasks in your list yet!"), second.send("list"));
+        }
+    }
+
+    @Test
+    public void http_postCommand_repliesWithJson() throws IOException {
+        assertEquals("{\"response\": \"The following task has been added:\\n  [T] [ ] say \\\"hi\\\"\\n"
+                + " Now you have 1 tasks in the list.\"}", post("/command?list=home",
+                "{\"command\": \"todo say \\\"hi\\\"\"}"));
+        assertEquals("{\"error\": \"The request should have a \\\"command\\\" field\"}",
+                post("/command", "{\"text\": \"list\"}"));
+        assertEquals("{\"error\": \"List names should be 1 to 64 letters, digits, '-' or '_'\"}",
+                post("/command?list=../x", "{\"command\": \"list\"}"));
+    }
+
+    @Test
+    public void tcp_concurrentClients_everyCommandApplied() throws Exception {
+        int clientCount = 16;
+        int tasksPerClient = 25;
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int c = 0; c < clientCount; c++) {
+            int client = c;
+            Thread thread = new Thread(() -> {
+                try (Client connection = new Client(server.getTcpPort())) {
+                    for (int i = 0; i < tasksPerClient; i++) {
+                        connection.send("todo task " + client + "-" + i);
+                    }
+                } catch (IOException e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of(), failures);
+        try (Client client = new Client(server.getTcpPort())) {
+            assertEquals(clientCount * tasksPerClient, client.send("list").size());
+        }
+    }
+
+    private String post(String path, String body) throws IOException {
+        URL url = new URL("http://localhost:" + server.getHttpPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+    }
+
+    /**
+     * A line protocol client that sends a command and reads back the counted response lines
+     */
+    private static class Client implements AutoCloseable {
+        private final Socket socket;
+        private final PrintWriter out;
+        private final BufferedReader in;
+
+        Client(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        List<String> send(String command) throws IOException {
+            out.println(command);
+            int lineCount = Integer.parseInt(in.readLine());
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < lineCount; i++) {
+                lines.add(in.readLine());
+            }
+            return lines;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
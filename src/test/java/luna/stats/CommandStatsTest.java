@@ -0,0 +1,52 @@
+package luna.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import luna.Luna;
+
+/**
+ * Test class for CommandStats
+ */
+public class CommandStatsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void finish_lappedPhases_recordedWithTotal() {
+        CommandStats stats = new CommandStats();
+        CommandTimer timer = new CommandTimer();
+        timer.lap(Phase.PARSE);
+        timer.lap(Phase.EXECUTE);
+        timer.lap(Phase.EXECUTE);
+        timer.finish(stats, "todo");
+
+        assertEquals(1, stats.get("todo", Phase.PARSE).getCount());
+        assertEquals(1, stats.get("todo", Phase.EXECUTE).getCount());
+        assertEquals(0, stats.get("todo", Phase.PERSIST).getCount());
+        assertEquals(1, stats.get("todo", Phase.TOTAL).getCount());
+        assertNull(stats.get("list", Phase.TOTAL));
+        assertTrue(stats.format().startsWith("Latency in microseconds as p50 / p99 / max:\ntodo x1: total "));
+    }
+
+    @Test
+    public void getResponse_statsCommand_showsPhasesOfEachCommand() {
+        Luna luna = new Luna(tempDir.resolve("luna.txt").toString());
+        luna.getResponse("todo read book");
+        luna.getResponse("list");
+        luna.getResponse("nonsense");
+
+        String report = luna.getResponse("stats");
+        assertTrue(report.matches("(?s).*\\ntodo x\\d+: total [^\\n]*, parse [^\\n]*, execute [^\\n]*, history [^\\n]*"
+                + ", persist [^\\n]*, render .*"), report);
+        assertTrue(report.matches("(?s).*\\nlist x\\d+: total [^\\n]*, render .*"), report);
+        assertTrue(report.contains("\ninvalid x"), report);
+        luna.close();
+    }
+}
@@ -0,0 +1,58 @@
+package luna.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for LatencyHistogram
+ */
+public class LatencyHistogramTest {
+    @Test
+    public void bucketIndex_everyValue_withinItsBucket() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.highestValueIn(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestValueIn(index - 1));
+        }
+    }
+
+    @Test
+    public void getPercentileNanos_uniformLatencies_withinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMaxNanos());
+        assertEquals(50_000_000, histogram.getPercentileNanos(50), 50_000_000 * 0.03);
+        assertEquals(99_000_000, histogram.getPercentileNanos(99), 99_000_000 * 0.03);
+        assertEquals(100_000_000, histogram.getPercentileNanos(100));
+        assertEquals(50_000_500, histogram.getMeanNanos());
+    }
+
+    @Test
+    public void record_concurrentThreads_noCountLost() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(800_000, histogram.getCount());
+        assertEquals(99_999, histogram.getMaxNanos());
+    }
+}
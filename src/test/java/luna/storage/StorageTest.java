@@ -0,0 +1,344 @@
+package luna.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import luna.Luna;
+import luna.exception.LunaException;
+import luna.task.DeadlineTask;
+import luna.task.EventTask;
+import luna.task.Task;
+import luna.task.TaskList;
+import luna.task.ToDoTask;
+import luna.task.UnparsedTasks;
+
+/**
+ * Test class for Storage
+ */
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void recordMutations_journalMode_replayedOnLoad() throws LunaException {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Storage storage = new Storage(filePath, true);
+        ArrayList<Task> tasks = storage.load();
+
+        tasks.add(new ToDoTask("read book"));
+        storage.recordAdded(List.copyOf(tasks), tasks.get(0));
+        tasks.add(new DeadlineTask("return book /by 2024-12-31"));
+        storage.recordAdded(List.copyOf(tasks), tasks.get(1));
+        tasks.add(new ToDoTask("buy milk"));
+        storage.recordAdded(List.copyOf(tasks), tasks.get(2));
+        tasks.get(1).markDone(true);
+        storage.recordMarked(List.copyOf(tasks), 1, true);
+        tasks.remove(0);
+        storage.recordDeleted(List.copyOf(tasks), 0);
+        storage.close();
+
+        assertFalse(Files.exists(tempDir.resolve("luna.txt")));
+        ArrayList<Task> loaded = new Storage(filePath, true).load();
+        assertEquals(2, loaded.size());
+        assertEquals("[D] [X] return book (by: Dec 31 2024)", loaded.get(0).toString());
+        assertEquals("[T] [ ] buy milk", loaded.get(1).toString());
+    }
+
+    @Test
+    public void recordAdded_journalInMissingDirectory_directoryCreated() throws LunaException {
+        String filePath = tempDir.resolve("data").resolve("luna.txt").toString();
+        Storage storage = new Storage(filePath, true);
+        storage.setDurability(Durability.FSYNC_COMMAND);
+        ArrayList<Task> tasks = storage.load();
+
+        tasks.add(new ToDoTask("read book"));
+        storage.recordAdded(List.copyOf(tasks), tasks.get(0));
+        storage.close();
+
+        assertTrue(Files.exists(tempDir.resolve("data").resolve("luna.txt.journal")));
+        assertEquals("[T] [ ] read book", new Storage(filePath, true).load().get(0).toString());
+    }
+
+    @Test
+    public void recordBatches_journalMode_replayedOnLoad() throws LunaException {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Storage storage = new Storage(filePath, true);
+        ArrayList<Task> tasks = storage.load();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(new ToDoTask("task " + i));
+            storage.recordAdded(List.copyOf(tasks), tasks.get(i));
+        }
+
+        for (int index : new int[] {2, 3, 4, 8}) {
+            tasks.get(index).markDone(true);
+        }
+        storage.recordMarkedAll(List.copyOf(tasks), new int[] {2, 3, 4, 8}, true);
+        tasks.remove(9);
+        tasks.remove(4);
+        tasks.remove(0);
+        storage.recordDeletedAll(List.copyOf(tasks), new int[] {0, 4, 9});
+        storage.close();
+
+        ArrayList<Task> loaded = new Storage(filePath, true).load();
+        assertEquals(7, loaded.size());
+        assertEquals("[T] [ ] task 1", loaded.get(0).toString());
+        assertEquals("[T] [X] task 3", loaded.get(2).toString());
+        assertEquals("[T] [ ] task 5", loaded.get(3).toString());
+        assertEquals("[T] [X] task 8", loaded.get(6).toString());
+    }
+
+    @Test
+    public void recordMutations_pastThreshold_compactsJournal() throws LunaException, IOException {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Storage storage = new Storage(filePath, true);
+        storage.setCompactionThreshold(64);
+        ArrayList<Task> tasks = storage.load();
+
+        for (int i = 0; i < 20; i++) {
+            tasks.add(new ToDoTask("task " + i));
+            storage.recordAdded(List.copyOf(tasks), tasks.get(i));
+        }
+        storage.close();
+
+        assertTrue(Files.readAllLines(tempDir.resolve("luna.txt")).get(0).startsWith("#journal "));
+        ArrayList<Task> loaded = new Storage(filePath, true).load();
+        assertEquals(20, loaded.size());
+        assertEquals("[T] [ ] task 19", loaded.get(19).toString());
+    }
+
+    @Test
+    public void load_journalLeftOverWithJournalDisabled_foldedIntoFile() throws LunaException, IOException {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Storage journaled = new Storage(filePath, true);
+        ArrayList<Task> tasks = journaled.load();
+        tasks.add(new ToDoTask("read book"));
+        journaled.recordAdded(List.copyOf(tasks), tasks.get(0));
+        journaled.close();
+
+        ArrayList<Task> loaded = new Storage(filePath).load();
+        assertEquals(1, loaded.size());
+        assertFalse(Files.exists(tempDir.resolve("luna.txt.journal")));
+        assertEquals("#journal 1", Files.readAllLines(tempDir.resolve("luna.txt")).get(0));
+        assertEquals(1, new Storage(filePath).load().size());
+    }
+
+    @Test
+    public void save_binaryFormat_roundTripsAllTaskTypes() throws LunaException {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Storage storage = new Storage(filePath);
+        storage.setDataFormat(DataFormat.BINARY);
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new ToDoTask("read book"));
+        tasks.add(new DeadlineTask("homework /by 2019-12-02 1800"));
+        tasks.add(new DeadlineTask("project /by 15/1/2025"));
+        tasks.add(new DeadlineTask("return book /by June 6th"));
+        tasks.add(new EventTask("project meeting /from Aug 6th 2pm /to 4pm"));
+        tasks.get(1).markDone(true);
+        storage.save(List.copyOf(tasks));
+
+        ArrayList<Task> loaded = new Storage(filePath).load();
+        assertEquals(tasks.size(), loaded.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toString(), loaded.get(i).toString());
+        }
+    }
+
+    @Test
+    public void load_truncatedBinaryFile_keepsCopyAndCompleteTasks() throws LunaException, IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        Storage storage = new Storage(dataFile.toString(), true);
+        storage.setDataFormat(DataFormat.BINARY);
+        storage.save(List.of(new ToDoTask("read book"), new ToDoTask("buy milk")));
+        storage.close();
+        byte[] bytes = Files.readAllBytes(dataFile);
+        Files.write(dataFile, Arrays.copyOf(bytes, bytes.length - 3));
+
+        Storage reopened = new Storage(dataFile.toString(), true);
+        ArrayList<Task> tasks = reopened.load();
+        assertEquals(1, tasks.size());
+        tasks.add(new ToDoTask("walk dog"));
+        reopened.recordAdded(List.copyOf(tasks), tasks.get(1));
+        reopened.close();
+
+        assertTrue(Files.exists(tempDir.resolve("luna.txt.corrupt")));
+        ArrayList<Task> loaded = new Storage(dataFile.toString(), true).load();
+        assertEquals(2, loaded.size());
+        assertEquals("[T] [ ] walk dog", loaded.get(1).toString());
+    }
+
+    @Test
+    public void load_binaryCountPastFileEnd_keepsCopyAsCorrupt() throws LunaException, IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        byte[] bytes = BinaryTaskCodec.encode(List.of(new ToDoTask("read book")), 0);
+        // The count follows the magic, version and journal sequence
+        bytes[13] = 0x7f;
+        bytes[14] = (byte) 0xff;
+        bytes[15] = (byte) 0xff;
+        bytes[16] = (byte) 0xff;
+        Files.write(dataFile, bytes);
+
+        ArrayList<Task> tasks = new Storage(dataFile.toString()).load();
+
+        assertTrue(tasks.isEmpty());
+        assertTrue(Arrays.equals(bytes, Files.readAllBytes(tempDir.resolve("luna.txt.corrupt"))));
+    }
+
+    @Test
+    public void load_newerBinaryVersion_fileKeptAfterCommand() throws LunaException, IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        byte[] bytes = BinaryTaskCodec.encode(List.of(new ToDoTask("read book")), 0);
+        bytes[4] = BinaryTaskCodec.VERSION + 1;
+        Files.write(dataFile, bytes);
+
+        Storage storage = new Storage(dataFile.toString());
+        Luna luna = new Luna(storage);
+        luna.getResponse("todo walk dog");
+        storage.close();
+
+        assertTrue(Arrays.equals(bytes, Files.readAllBytes(dataFile)));
+    }
+
+    @Test
+    public void exportText_binaryStorage_readableByImport() throws LunaException {
+        Storage storage = new Storage(tempDir.resolve("luna.bin").toString());
+        storage.setDataFormat(DataFormat.BINARY);
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new DeadlineTask("report /by 5/10/2024"));
+
+        String textPath = tempDir.resolve("export.txt").toString();
+        storage.exportText(textPath, tasks);
+        ArrayList<Task> imported = storage.importText(textPath);
+
+        assertEquals(1, imported.size());
+        assertEquals("[D] [ ] report (by: Oct 05 2024)", imported.get(0).toString());
+    }
+
+    @Test
+    public void load_parallelChunks_preservesFileOrder() throws LunaException, IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add("#journal 0");
+        for (int i = 0; i < 60000; i++) {
+            lines.add(i % 3 == 0
+                    ? "[D] [X] task " + i + " (by: Dec 02 2019, 6:00PM)"
+                    : "[T] [ ] task " + i);
+        }
+        Files.write(dataFile, lines);
+
+        Storage storage = new Storage(dataFile.toString());
+        storage.setParallelLoadThreshold(0);
+        ArrayList<Task> loaded = storage.load();
+
+        assertEquals(60000, loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            assertEquals(lines.get(i + 1), loaded.get(i).toString());
+        }
+    }
+
+    @Test
+    public void save_asyncDurability_coalescedAndFlushed() throws LunaException {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Storage storage = new Storage(filePath);
+        storage.setDurability(Durability.ASYNC);
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tasks.add(new ToDoTask("task " + i));
+            storage.recordAdded(List.copyOf(tasks), tasks.get(i));
+        }
+        storage.flush();
+
+        ArrayList<Task> loaded = new Storage(filePath).load();
+        assertEquals(200, loaded.size());
+        assertFalse(Files.exists(tempDir.resolve("luna.txt.tmp")));
+    }
+
+    @Test
+    public void save_noDurability_writtenOnlyOnClose() throws LunaException {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Storage storage = new Storage(filePath, true);
+        storage.setDurability(Durability.NONE);
+        ArrayList<Task> tasks = storage.load();
+
+        tasks.add(new ToDoTask("read book"));
+        storage.recordAdded(List.copyOf(tasks), tasks.get(0));
+        assertFalse(Files.exists(tempDir.resolve("luna.txt.journal")));
+
+        storage.close();
+        assertEquals(1, new Storage(filePath, true).load().size());
+    }
+
+    @Test
+    public void loadUnparsed_lazyLoad_sameTasksAsLoad() throws LunaException, IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        Files.write(dataFile, List.of("#journal 3", "[T] [ ] read book", "not a task", "",
+                "[D] [X] return book (by: Dec 31 2024)", "[D] [ ] no date", "[E] [ ] meeting (from: 2pm to: 4pm)"));
+        Storage storage = new Storage(dataFile.toString(), true);
+        storage.setLazyLoad(true);
+
+        UnparsedTasks unparsed = storage.loadUnparsed();
+        TaskList tasks = new TaskList(unparsed);
+        tasks.markTask(0, true);
+        tasks.deleteTask(1);
+        storage.save(tasks.getTasks());
+
+        assertEquals(3, unparsed.size());
+        ArrayList<Task> loaded = new Storage(dataFile.toString(), true).load();
+        assertEquals(2, loaded.size());
+        assertEquals("[T] [X] read book", loaded.get(0).toString());
+        assertEquals("[E] [ ] meeting (from: 2pm to: 4pm)", loaded.get(1).toString());
+    }
+
+    @Test
+    public void loadUnparsed_malformedLines_sameTasksAsLoad() throws LunaException, IOException {
+        Path dataFile = tempDir.resolve("luna.txt");
+        Files.write(dataFile, List.of("[T] [ ]   ", "[D] [ ] b (by:  )", "[E] [ ] party (from: x to: )",
+                "[D] [X] a /by b (by: c)", "[E] [ ] x (from: a/b to: c)", "[D] [ ] (by: Monday)",
+                "[T] [X] read book", "[E] [X] meeting (from: 2pm to: 4pm)"));
+        Storage storage = new Storage(dataFile.toString(), false);
+        storage.setLazyLoad(true);
+
+        TaskList lazy = new TaskList(storage.loadUnparsed());
+        ArrayList<Task> eager = new Storage(dataFile.toString(), false).load();
+
+        List<String> expected = new ArrayList<>();
+        for (Task task : eager) {
+            expected.add(task.toString());
+        }
+        List<String> actual = new ArrayList<>();
+        for (Task task : lazy.getTasks()) {
+            actual.add(task.toString());
+        }
+        assertEquals(expected, actual);
+        assertEquals(eager.size(), lazy.size());
+    }
+
+    @Test
+    public void loadUnparsed_journalRecordsPending_returnsNull() throws LunaException {
+        String filePath = tempDir.resolve("luna.txt").toString();
+        Storage journaled = new Storage(filePath, true);
+        ArrayList<Task> tasks = journaled.load();
+        tasks.add(new ToDoTask("read book"));
+        journaled.recordAdded(List.copyOf(tasks), tasks.get(0));
+        journaled.close();
+
+        Storage storage = new Storage(filePath, true);
+        storage.setLazyLoad(true);
+
+        assertNull(storage.loadUnparsed());
+        assertEquals(1, storage.load().size());
+    }
+}
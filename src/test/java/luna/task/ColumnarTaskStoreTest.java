@@ -0,0 +1,83 @@
+package luna.task;
+
+import static luna.task.TaskFixtures.everyType;
+import static luna.task.TaskFixtures.strings;
+import static luna.task.TaskFixtures.todos;
+import static luna.task.TaskFixtures.withId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import luna.exception.LunaException;
+
+/**
+ * Test class for ColumnarTaskStore
+ */
+public class ColumnarTaskStoreTest {
+    @Test
+    public void get_everyTaskType_sameFieldsAfterSnapshotCopy() throws LunaException {
+        List<Task> tasks = everyType();
+        List<String> expected = strings(tasks);
+        ColumnarTaskStore store = ColumnarTaskStore.of(tasks);
+        TaskStore snapshot = store.snapshot();
+
+        // Marking copies the shared chunk, which must carry every field over
+        store.markDone(0, true);
+
+        assertEquals(expected, strings(snapshot.asList()));
+        assertEquals(expected.get(4), store.get(4).toString());
+        assertTrue(store.get(0).isDone());
+        assertFalse(snapshot.get(0).isDone());
+    }
+
+    @Test
+    public void insert_pastChunkCapacity_keepsOrderAndIds() throws LunaException {
+        int count = ColumnarTaskStore.CHUNK_CAPACITY * 3 + 7;
+        ColumnarTaskStore store = ColumnarTaskStore.of(todos(count));
+
+        // Filling a chunk in the middle splits it
+        store.insert(10, withId(new ToDoTask("inserted"), count + 1));
+
+        assertEquals(count + 1, store.size());
+        assertEquals("inserted", store.get(10).getDescription());
+        assertEquals("task 10", store.get(11).getDescription());
+        assertEquals(count, store.get(count).getId());
+        assertEquals(2000, store.indexOfId(2000));
+        assertEquals(10, store.scanForId(count + 1));
+        assertEquals(-1, store.indexOfId(count + 2));
+    }
+
+    @Test
+    public void removeAll_acrossChunks_removesOnlyThose() throws LunaException {
+        int count = ColumnarTaskStore.CHUNK_CAPACITY * 2;
+        ColumnarTaskStore store = ColumnarTaskStore.of(todos(count));
+        TaskStore snapshot = store.snapshot();
+
+        Task[] removed = store.removeAll(new int[] {0, ColumnarTaskStore.CHUNK_CAPACITY, count - 1});
+
+        assertEquals(3, removed.length);
+        assertEquals("task " + ColumnarTaskStore.CHUNK_CAPACITY, removed[1].getDescription());
+        assertEquals(count - 3, store.size());
+        assertEquals("task 1", store.get(0).getDescription());
+        assertEquals(count, snapshot.size());
+        assertEquals("task 0", snapshot.get(0).getDescription());
+    }
+
+    @Test
+    public void remove_lastTaskOfChunk_dropsChunk() throws LunaException {
+        ColumnarTaskStore store = ColumnarTaskStore.of(todos(ColumnarTaskStore.CHUNK_CAPACITY + 1));
+        Task last = store.get(ColumnarTaskStore.CHUNK_CAPACITY);
+
+        Task removed = store.remove(ColumnarTaskStore.CHUNK_CAPACITY);
+
+        assertEquals(last.getId(), removed.getId());
+        assertEquals(ColumnarTaskStore.CHUNK_CAPACITY, store.size());
+        store.insert(store.size(), withId(new ToDoTask("again"), 5000));
+        assertEquals("again", store.get(ColumnarTaskStore.CHUNK_CAPACITY).getDescription());
+        assertEquals(5000, store.get(ColumnarTaskStore.CHUNK_CAPACITY).getId());
+    }
+}
@@ -0,0 +1,52 @@
+package luna.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for DateTimeLexer
+ */
+public class DateTimeLexerTest {
+
+    @Test
+    public void parse_allSupportedFormats_success() {
+        assertEquals(LocalDateTime.of(2019, 12, 2, 18, 0), DateTimeLexer.parse("Dec 02 2019, 6:00PM"));
+        assertEquals(LocalDateTime.of(2019, 12, 2, 0, 5), DateTimeLexer.parse("Dec 02 2019, 12:05AM"));
+        assertEquals(LocalDate.of(2019, 12, 2), DateTimeLexer.parse("Dec 02 2019"));
+        assertEquals(LocalDateTime.of(2019, 12, 2, 18, 0), DateTimeLexer.parse("2019-12-02 1800"));
+        assertEquals(LocalDateTime.of(2019, 12, 2, 18, 0), DateTimeLexer.parse("2/12/2019 1800"));
+        assertEquals(LocalDate.of(2019, 12, 2), DateTimeLexer.parse("2019-12-02"));
+        assertEquals(LocalDate.of(2019, 12, 2), DateTimeLexer.parse("02/12/2019"));
+    }
+
+    @Test
+    public void parse_surroundingWhitespace_ignored() {
+        assertEquals(LocalDate.of(2024, 12, 31), DateTimeLexer.parse("  2024-12-31  "));
+    }
+
+    @Test
+    public void parse_unsupportedText_returnsNull() {
+        assertNull(DateTimeLexer.parse("June 6th"));
+        assertNull(DateTimeLexer.parse("next Monday"));
+        assertNull(DateTimeLexer.parse("2024-12-31 /by 2025-01-01"));
+        assertNull(DateTimeLexer.parse("2024-13-01"));
+        assertNull(DateTimeLexer.parse("dec 02 2019"));
+        assertNull(DateTimeLexer.parse("1//2024"));
+        assertNull(DateTimeLexer.parse(""));
+    }
+
+    @Test
+    public void parse_unusualFieldValues_matchFormatterResolving() {
+        // The formatters resolve these leniently, so the lexer must agree with them
+        assertEquals(LocalDate.of(2023, 2, 28), DateTimeLexer.parse("2023-02-30"));
+        assertEquals(LocalDate.of(2024, 2, 29), DateTimeLexer.parse("31/2/2024"));
+        assertEquals(LocalDateTime.of(2019, 12, 3, 0, 0), DateTimeLexer.parse("2019-12-02 2400"));
+        assertNull(DateTimeLexer.parse("0000-01-01"));
+        assertNull(DateTimeLexer.parse("2019-12-02 1860"));
+    }
+}
@@ -0,0 +1,105 @@
+package luna.task;
+
+import static luna.task.TaskFixtures.everyType;
+import static luna.task.TaskFixtures.strings;
+import static luna.task.TaskFixtures.todos;
+import static luna.task.TaskFixtures.withId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import luna.exception.LunaException;
+
+/**
+ * Test class for OffHeapTaskStore
+ */
+public class OffHeapTaskStoreTest {
+    @Test
+    public void get_everyTaskType_sameFields() throws LunaException {
+        List<Task> tasks = everyType();
+        OffHeapTaskStore store = OffHeapTaskStore.of(tasks);
+        // A snapshot makes tasks from the records rather than returning the cached objects
+        TaskStore snapshot = store.snapshot();
+
+        assertEquals(strings(tasks), strings(snapshot));
+        assertEquals(3, store.indexOfId(4));
+        assertEquals(-1, store.indexOfId(6));
+    }
+
+    @Test
+    public void remove_taskSeenBySnapshot_snapshotStillReadsIt() throws LunaException {
+        OffHeapTaskStore store = OffHeapTaskStore.of(everyType());
+        TaskStore snapshot = store.snapshot();
+        List<String> expected = strings(snapshot);
+
+        // Records of the same size would reuse the space of removed ones if no snapshot could see them
+        for (int i = 0; i < 5; i++) {
+            store.remove(i);
+            store.insert(i, withId(new ToDoTask("read b\u00f6x"), 10 + i));
+        }
+        store.markDone(4, true);
+
+        assertEquals(expected, strings(snapshot));
+        assertEquals("[T] [X] read b\u00f6x", store.get(4).toString());
+    }
+
+    @Test
+    public void insert_intoSnapshot_originalUnchanged() throws LunaException {
+        OffHeapTaskStore store = OffHeapTaskStore.of(everyType());
+        List<String> expected = strings(store.asList());
+        TaskStore snapshot = store.snapshot();
+
+        snapshot.remove(1);
+        snapshot.insert(0, withId(new ToDoTask("new"), 6));
+        store.markDone(0, true);
+
+        assertEquals(expected.size(), snapshot.size());
+        assertEquals("[T] [ ] new", snapshot.get(0).toString());
+        assertFalse(snapshot.get(1).isDone());
+        assertTrue(store.get(0).isDone());
+        assertEquals(expected.subList(1, expected.size()), strings(store.asList()).subList(1, expected.size()));
+    }
+
+    @Test
+    public void removeAll_manyBlocks_compactsAndKeepsRest() throws LunaException {
+        int count = OffHeapTaskStore.BLOCK_CAPACITY * 20;
+        OffHeapTaskStore store = OffHeapTaskStore.of(todos(count));
+        int[] indices = new int[count - 10];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i + 10;
+        }
+
+        Task[] removed = store.removeAll(indices);
+
+        assertEquals(indices.length, removed.length);
+        assertEquals(10, store.size());
+        assertEquals("task 9", store.get(9).getDescription());
+        store.insert(10, withId(new ToDoTask("after"), count + 1));
+        assertEquals(10, store.indexOfId(count + 1));
+    }
+
+    @Test
+    public void of_arenaDirectorySet_mapsFileAndLeavesNoneBehind() throws LunaException, IOException {
+        Path directory = Files.createTempDirectory("luna-arena");
+        System.setProperty("luna.tasks.arenaDir", directory.toString());
+        try {
+            OffHeapTaskStore store = OffHeapTaskStore.of(everyType());
+
+            assertEquals(strings(everyType()), strings(store.snapshot()));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            System.clearProperty("luna.tasks.arenaDir");
+            Files.delete(directory);
+        }
+    }
+}
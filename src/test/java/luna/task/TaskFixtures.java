@@ -0,0 +1,50 @@
+package luna.task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import luna.exception.LunaException;
+
+/**
+ * Tasks shared by the tests of the task stores
+ */
+final class TaskFixtures {
+    private TaskFixtures() {
+    }
+
+    static Task withId(Task task, long id) {
+        task.setId(id);
+        return task;
+    }
+
+    /**
+     * Returns todos described "task 0" onwards, with ids from 1
+     */
+    static List<Task> todos(int count) throws LunaException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(withId(new ToDoTask("task " + i), i + 1));
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns one task of each type and kind of deadline, with ids 1 to 5
+     */
+    static List<Task> everyType() throws LunaException {
+        return List.of(
+                withId(new ToDoTask("read b\u00f6k"), 1),
+                withId(new DeadlineTask("submit /by 2024-12-31"), 2),
+                withId(new DeadlineTask("call /by 2024-12-31 1800"), 3),
+                withId(new DeadlineTask("return /by next week"), 4),
+                withId(new EventTask("meeting /from 2024-09-01 /to 2024-09-02"), 5));
+    }
+
+    static List<String> strings(Iterable<Task> tasks) {
+        List<String> strings = new ArrayList<>();
+        for (Task task : tasks) {
+            strings.add(task.toString());
+        }
+        return strings;
+    }
+}
@@ -2,9 +2,13 @@ package luna.task;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -208,4 +212,199 @@ public class TaskListTest {
         taskList.markTask(0, true);
         assertTrue(todoTask.isDone());
     }
+
+    @Test
+    public void findTasks_substringAcrossWords_matchesLikeContains() throws LunaException {
+        taskList.add(new ToDoTask("Read Book"));
+        taskList.add(new ToDoTask("buy cook book"));
+        taskList.add(new ToDoTask("bookmark page"));
+        taskList.add(new ToDoTask("read"));
+
+        assertEquals(List.of("[T] [ ] Read Book", "[T] [ ] buy cook book", "[T] [ ] bookmark page"),
+                toStrings(taskList.findTasks("BOOK")));
+        assertEquals(List.of("[T] [ ] Read Book"), toStrings(taskList.findTasks("d b")));
+        assertEquals(List.of("[T] [ ] buy cook book"), toStrings(taskList.findTasks("ok bo")));
+        assertTrue(taskList.findTasks("!").isEmpty());
+    }
+
+    @Test
+    public void findTasks_afterAddAndDelete_indexKeptUpToDate() throws LunaException {
+        taskList.add(todoTask);
+        taskList.add(deadlineTask);
+        assertEquals(1, taskList.findTasks("book").size());
+
+        taskList.add(new ToDoTask("return book"));
+        taskList.deleteTask(0);
+        assertEquals(List.of("[T] [ ] return book"), toStrings(taskList.findTasks("book")));
+
+        TaskList restored = taskList.copy();
+        restored.add(new ToDoTask("book flight"));
+        assertEquals(2, restored.findTasks("book").size());
+        assertEquals(1, taskList.findTasks("book").size());
+    }
+
+    @Test
+    public void findTasksWithWords_multipleKeywords_andOrSemantics() throws LunaException {
+        taskList.add(new ToDoTask("read book"));
+        taskList.add(new ToDoTask("write book report"));
+        taskList.add(new ToDoTask("report bug"));
+        taskList.add(new ToDoTask("books"));
+
+        assertEquals(List.of("[T] [ ] write book report"),
+                toStrings(taskList.findTasksWithAllWords(List.of("Book", "report,"))));
+        assertEquals(List.of("[T] [ ] read book", "[T] [ ] write book report", "[T] [ ] report bug"),
+                toStrings(taskList.findTasksWithAnyWord(List.of("book", "report"))));
+        assertTrue(taskList.findTasksWithAllWords(List.of("book", "missing")).isEmpty());
+    }
+
+    @Test
+    public void findTasks_manyDeletions_resultsStayInListOrder() throws LunaException {
+        for (int i = 0; i < 100; i++) {
+            taskList.add(new ToDoTask("task " + i));
+        }
+        assertEquals(100, taskList.findTasks("task").size());
+        for (int i = 0; i < 90; i++) {
+            taskList.deleteTask(0);
+        }
+        for (int i = 100; i < 200; i++) {
+            taskList.add(new ToDoTask("task " + i));
+        }
+
+        ArrayList<Task> found = taskList.findTasks("ask 1");
+        assertEquals(100, found.size());
+        assertEquals("[T] [ ] task 100", found.get(0).toString());
+        assertEquals("[T] [ ] task 199", found.get(99).toString());
+        assertEquals(List.of("[T] [ ] task 95"), toStrings(taskList.findTasks("task 95")));
+    }
+
+    @Test
+    public void copy_changesAfterCopy_notVisibleInOtherList() throws LunaException {
+        taskList.add(todoTask);
+        taskList.add(deadlineTask);
+        TaskList snapshot = taskList.copy();
+
+        taskList.markTask(0, true);
+        taskList.deleteTask(1);
+        taskList.add(eventTask);
+
+        assertFalse(todoTask.isDone());
+        assertEquals(List.of("[T] [ ] read book", "[D] [ ] submit assignment (by: Dec 31 2024)"),
+                toStrings(new ArrayList<>(snapshot.getTasks())));
+        assertTrue(taskList.get(0).isDone());
+        assertEquals(2, taskList.size());
+
+        snapshot.markTask(1, true);
+        assertEquals(1, taskList.findTasks("read").size());
+        assertTrue(taskList.findTasks("read").get(0).isDone());
+        assertFalse(snapshot.get(0).isDone());
+    }
+
+    @Test
+    public void getTasks_listChangedLater_viewUnchanged() throws LunaException {
+        for (int i = 0; i < 50; i++) {
+            taskList.add(new ToDoTask("task " + i));
+        }
+        List<Task> view = taskList.getTasks();
+
+        taskList.markTask(10, true);
+        taskList.deleteTask(0);
+
+        assertEquals(50, view.size());
+        assertEquals("[T] [ ] task 10", view.get(10).toString());
+        assertEquals("[T] [X] task 10", taskList.get(9).toString());
+    }
+
+    @Test
+    public void deleteTasks_manyIndices_singlePassKeepsOrderAndSnapshot() throws LunaException {
+        for (int i = 0; i < 100; i++) {
+            taskList.add(new ToDoTask("task " + i));
+        }
+        TaskList snapshot = taskList.copy();
+        int[] evenIndices = new int[50];
+        for (int i = 0; i < 50; i++) {
+            evenIndices[i] = i * 2;
+        }
+
+        List<Task> removed = taskList.deleteTasks(evenIndices);
+        taskList.markTask(0, true);
+
+        assertEquals(50, removed.size());
+        assertEquals("[T] [ ] task 98", removed.get(49).toString());
+        assertEquals(50, taskList.size());
+        assertEquals("[T] [X] task 1", taskList.get(0).toString());
+        assertEquals("[T] [ ] task 99", taskList.get(49).toString());
+        assertEquals(List.of("[T] [ ] task 71"), toStrings(taskList.findTasks("task 71")));
+        assertEquals(100, snapshot.size());
+        assertEquals("[T] [ ] task 1", snapshot.get(1).toString());
+    }
+
+    @Test
+    public void deleteTasks_indexOutOfBounds_nothingDeleted() {
+        taskList.add(todoTask);
+        taskList.add(deadlineTask);
+
+        assertThrows(LunaException.class, () -> taskList.deleteTasks(new int[] {0, 2}));
+        assertEquals(2, taskList.size());
+    }
+
+    @Test
+    public void snapshot_laterChanges_snapshotUnchangedAndSearchesAlike() throws LunaException {
+        taskList.add(new ToDoTask("Read Book"));
+        taskList.add(new ToDoTask("buy cook book"));
+        taskList.add(new ToDoTask("bookmark page"));
+        TaskList snapshot = taskList.snapshot();
+
+        taskList.markTask(0, true);
+        taskList.deleteTask(2);
+
+        assertEquals(3, snapshot.getTasks().size());
+        assertEquals(List.of("[T] [ ] Read Book", "[T] [ ] buy cook book", "[T] [ ] bookmark page"),
+                toStrings(snapshot.findTasks("BOOK")));
+        assertEquals(List.of("[T] [ ] buy cook book"), toStrings(snapshot.findTasks("ok bo")));
+        assertEquals(List.of("[T] [ ] Read Book", "[T] [ ] buy cook book"),
+                toStrings(snapshot.findTasksWithAllWords(List.of("book"))));
+        assertEquals(List.of("[T] [ ] Read Book", "[T] [ ] bookmark page"),
+                toStrings(snapshot.findTasksWithAnyWord(List.of("read,", "page"))));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(todoTask));
+    }
+
+    @Test
+    public void indexOfId_afterDeletions_idsStayWithTasks() throws LunaException {
+        for (int i = 0; i < 100; i++) {
+            taskList.add(new ToDoTask("task " + i));
+        }
+        long id = taskList.get(60).getId();
+
+        taskList.deleteTask(10);
+        taskList.deleteTask(20);
+
+        assertEquals(58, taskList.indexOfId(id));
+        assertEquals("[T] [ ] task 60", taskList.getById(id).toString());
+        assertEquals(-1, taskList.indexOfId(taskList.size() + 1000));
+    }
+
+    @Test
+    public void insert_deletedTaskRestored_keepsIdAndLookupWorks() throws LunaException {
+        for (int i = 0; i < 10; i++) {
+            taskList.add(new ToDoTask("task " + i));
+        }
+        Task removed = taskList.deleteTask(4);
+        long removedId = removed.getId();
+        assertNull(taskList.getById(removedId));
+
+        taskList.insert(4, removed);
+        taskList.insert(0, new ToDoTask("new task"));
+
+        assertEquals(removedId, taskList.get(5).getId());
+        assertEquals(5, taskList.indexOfId(removedId));
+        assertEquals(0, taskList.indexOfId(taskList.get(0).getId()));
+    }
+
+    private static List<String> toStrings(ArrayList<Task> tasks) {
+        List<String> strings = new ArrayList<>();
+        for (Task task : tasks) {
+            strings.add(task.toString());
+        }
+        return strings;
+    }
 }
@@ -0,0 +1,101 @@
+package luna.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for Conversation
+ */
+public class ConversationTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void add_overHistoryLimit_oldestMovedToDisk() {
+        List<Message> items = new ArrayList<>();
+        Conversation conversation = new Conversation(items, 100);
+        for (int i = 0; i < 250; i++) {
+            conversation.add(Message.fromUser("message " + i));
+        }
+
+        assertEquals(Message.Kind.EARLIER, items.get(0).getKind());
+        assertEquals("Show 156 earlier messages", items.get(0).getText());
+        assertEquals(94, conversation.getInMemoryCount());
+        assertEquals("message 156", items.get(1).getText());
+        assertEquals("message 249", items.get(items.size() - 1).getText());
+        conversation.close();
+    }
+
+    @Test
+    public void showEarlier_spilledMessages_loadedBackInOrder() {
+        List<Message> items = new ArrayList<>();
+        Conversation conversation = new Conversation(items, 100);
+        for (int i = 0; i < 250; i++) {
+            conversation.add(i % 2 == 0 ? Message.fromUser("question " + i) : Message.fromLuna("line " + i + "\nnext"));
+        }
+
+        conversation.showEarlier();
+        assertEquals("Show 56 earlier messages", items.get(0).getText());
+        assertEquals("question 56", items.get(1).getText());
+        conversation.showEarlier();
+        assertEquals(250, items.size());
+        for (int i = 0; i < 250; i++) {
+            assertEquals(i % 2 == 0, items.get(i).isFromUser());
+            assertEquals(i % 2 == 0 ? "question " + i : "line " + i + "\nnext", items.get(i).getText());
+        }
+
+        // Loaded messages are already on disk, so moving them out again does not duplicate them
+        conversation.add(Message.fromUser("question 250"));
+        assertEquals("Show 176 earlier messages", items.get(0).getText());
+        conversation.showEarlier();
+        conversation.showEarlier();
+        assertEquals("question 0", items.get(0).getText());
+        assertEquals(251, items.size());
+        conversation.close();
+    }
+
+    @Test
+    public void add_pendingReply_keptInMemoryUntilReplaced() {
+        List<Message> items = new ArrayList<>();
+        Conversation conversation = new Conversation(items, 4);
+        Message pending = Message.pending();
+        conversation.add(pending);
+        for (int i = 0; i < 10; i++) {
+            conversation.add(Message.fromUser("message " + i));
+        }
+        assertSame(pending, items.get(0));
+
+        Message reply = Message.fromLuna("done");
+        conversation.replace(pending, reply);
+        conversation.add(Message.fromUser("message 10"));
+        assertEquals("Show 9 earlier messages", items.get(0).getText());
+        conversation.showEarlier();
+        assertSame(Message.Kind.LUNA, items.get(0).getKind());
+        assertEquals("done", items.get(0).getText());
+        conversation.close();
+    }
+
+    @Test
+    public void read_escapedText_returnedUnchanged() throws IOException {
+        Transcript transcript = new Transcript(tempDir.resolve("transcript.txt"));
+        String[] texts = {"plain", "two\nlines", "back\\slash\\n", "", "\u00fcn\u00efc\u00f6d\u00e9 \u2713"};
+        for (String text : texts) {
+            transcript.append(Message.fromLuna(text));
+        }
+
+        List<Message> messages = transcript.read(1, 5);
+        assertEquals(4, messages.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(texts[i + 1], messages.get(i).getText());
+        }
+        transcript.close();
+    }
+}
@@ -0,0 +1,29 @@
+package luna.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for StartupMetrics
+ */
+public class StartupMetricsTest {
+    @Test
+    public void mark_eachMilestone_firstTimeKept() {
+        StartupMetrics metrics = new StartupMetrics(Instant.now().minusSeconds(2));
+        metrics.markInteractive();
+        assertNull(metrics.getFirstFrame());
+
+        Duration interactive = metrics.getInteractive();
+        assertTrue(interactive.toMillis() >= 2000);
+        metrics.markFirstFrame();
+        metrics.markInteractive();
+        assertEquals(interactive, metrics.getInteractive());
+        assertTrue(metrics.getFirstFrame().compareTo(interactive) >= 0);
+    }
+}
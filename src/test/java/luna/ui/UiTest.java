@@ -0,0 +1,73 @@
+package luna.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import luna.exception.LunaException;
+import luna.task.Task;
+import luna.task.ToDoTask;
+
+/**
+ * Test class for Ui
+ */
+public class UiTest {
+    /**
+     * Counts how many times it is written to
+     */
+    private static class CountingWriter extends StringWriter {
+        private int writeCount = 0;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            writeCount++;
+            super.write(chars, offset, length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            writeCount++;
+            super.write(text, offset, length);
+        }
+    }
+
+    @Test
+    public void showTaskList_consoleMode_writesOnceWhenFlushed() throws LunaException {
+        CountingWriter console = new CountingWriter();
+        Ui ui = new Ui(new ByteArrayInputStream(new byte[0]), console);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            tasks.add(new ToDoTask("task " + i));
+        }
+
+        ui.showTaskList(tasks);
+        assertEquals("", console.toString());
+        ui.flush();
+
+        assertEquals(1, console.writeCount);
+        assertTrue(console.toString().endsWith("\n100. [T] [ ] task 100\n\n"), console.toString());
+        assertEquals("1. [T] [ ] task 1", console.toString().split("\n")[0]);
+    }
+
+    @Test
+    public void showTaskList_captureMode_sameAsConsoleWithoutSpacing() throws LunaException {
+        StringWriter console = new StringWriter();
+        Ui consoleUi = new Ui(new ByteArrayInputStream(new byte[0]), console);
+        Ui captureUi = new Ui(true);
+        List<Task> tasks = List.of(new ToDoTask("read book"), new ToDoTask("return book"));
+
+        consoleUi.showTaskList(tasks);
+        consoleUi.showTaskAdded(tasks.get(1), 2);
+        consoleUi.flush();
+        captureUi.showTaskList(tasks);
+        captureUi.showTaskAdded(tasks.get(1), 2);
+
+        assertEquals(captureUi.getOutput(), console.toString().trim().replace("\n\n", "\n"));
+    }
+}